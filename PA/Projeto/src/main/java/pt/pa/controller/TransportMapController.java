@@ -4,10 +4,13 @@ import com.brunomnsilva.smartgraph.graph.Edge;
 import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
 import com.brunomnsilva.smartgraph.graph.Vertex;
 import javafx.application.Platform;
+import pt.pa.transportmap.path.CachedPathStrategy;
 import pt.pa.transportmap.path.PathCriteria;
 import pt.pa.transportmap.path.PathResult;
+import pt.pa.transportmap.path.PathStrategy;
 import pt.pa.transportmap.path.PathStrategyFactory;
 import pt.pa.transportmap.path.PathUtils;
+import pt.pa.transportmap.path.ReachabilitySearch;
 import pt.pa.transportmap.Route;
 import pt.pa.transportmap.Stop;
 import pt.pa.transportmap.TransportMap;
@@ -19,11 +22,14 @@ import pt.pa.view.map.MapType;
 
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class that represents the controller of the application
  */
 public class TransportMapController {
+    /** Number of alternative paths shown with the less cost path */
+    private static final int ALTERNATIVE_PATHS = 5;
     /** The model */
     private final TransportMap model;
     /** The view */
@@ -146,7 +152,22 @@ public class TransportMapController {
     }
 
     /**
-     * Action to get the less cost path between two vertices
+     * Action to determine the stops reachable from the origin within a budget, shown as a list and as an isochrone on the map
+     * @param pathCriteria PathCriteria the criteria of the budget
+     * @param transportType EnumSet<TransportType> the transport types to use
+     * @param origin Vertex<Stop> the origin vertex
+     * @param budget double the maximum cost of the paths
+     * @throws IllegalArgumentException if a parameter is null, no transports are provided or a usable edge has a negative cost
+     * @throws InvalidVertexException if the origin vertex is not valid
+     */
+    public void startActionReachableStops(PathCriteria pathCriteria, EnumSet<TransportType> transportType, Vertex<Stop> origin, double budget) throws IllegalArgumentException, InvalidVertexException {
+        Map<Vertex<Stop>, Double> reachable = new ReachabilitySearch().findReachableStops(model, pathCriteria, transportType, origin, budget);
+        ((MainView) view).getStartView().showReachableStops(pathCriteria, reachable);
+        ((MainView) view).getMapView().visualizeIsochrone(origin, reachable, budget);
+    }
+
+    /**
+     * Action to get the less cost path between two vertices and its alternatives, the k less cost paths
      * @param pathCriteria PathCriteria the criteria to use
      * @param transportType EnumSet<TransportType> the transport types to use
      * @param origin Vertex<Stop> the origin vertex
@@ -156,10 +177,35 @@ public class TransportMapController {
      * @throws InvalidVertexException if the origin or destination vertex is not valid
      */
     public void startActionLessCostPathBetweenTwoVertices(PathCriteria pathCriteria, EnumSet<TransportType> transportType, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalStateException, IllegalArgumentException, InvalidVertexException {
-        model.setPathStrategy(PathStrategyFactory.create(pathCriteria));
+        model.setPathStrategy(new CachedPathStrategy(PathStrategyFactory.create(pathCriteria), model.getShortestPathTreeCache()));
         PathResult result = model.getPathStrategy().findLessCostPathBetweenTwoVertices(model, transportType, origin, destination);
         mapActionVisualizeGraphColors(result);
         ((MainView) view).getStartView().showPathResult(result);
+        List<PathResult> alternatives;
+        try {
+            alternatives = model.getPathStrategy().findKLessCostPaths(model, transportType, origin, destination, ALTERNATIVE_PATHS);
+        } catch (IllegalArgumentException e) {
+            alternatives = List.of(result); // negative costs, no alternatives
+        }
+        ((MainView) view).getStartView().showAlternativePaths(alternatives);
+    }
+
+    /**
+     * Action to get the Pareto front of the paths between two vertices, the paths not dominated in distance, duration
+     * and sustainability
+     * @param transportType EnumSet<TransportType> the transport types to use
+     * @param origin Vertex<Stop> the origin vertex
+     * @param destination Vertex<Stop> the destination vertex
+     * @throws IllegalArgumentException if a parameter is null or no transports are provided
+     * @throws InvalidVertexException if the origin or destination vertex is not valid
+     */
+    public void startActionParetoPaths(EnumSet<TransportType> transportType, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathStrategy strategy = model.getPathStrategy() != null ? model.getPathStrategy() : PathStrategyFactory.create(PathCriteria.DURATION);
+        List<PathResult> front = strategy.findParetoPaths(model, transportType, origin, destination);
+        if(!front.isEmpty()){
+            mapActionVisualizeGraphColors(front.get(0));
+        }
+        ((MainView) view).getStartView().showParetoPaths(front);
     }
 
     // Map actions
@@ -231,7 +277,7 @@ public class TransportMapController {
      * Action to show the top 5 of the number of routes by transport type
      */
     public void showMetricTop5(){
-        view.showMetricTop5( model.getStopCentrality() );
+        view.showMetricTop5( model.getStopCentrality(5) );
     }
 
     /**
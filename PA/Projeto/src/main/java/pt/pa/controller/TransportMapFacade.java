@@ -1,13 +1,9 @@
 package pt.pa.controller;
 
-import com.brunomnsilva.smartgraph.graph.Graph;
-import com.brunomnsilva.smartgraph.graph.GraphEdgeList;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import pt.pa.transportmap.Route;
-import pt.pa.transportmap.Stop;
 import pt.pa.transportmap.TransportMap;
 import pt.pa.view.MainView;
 
@@ -26,9 +22,8 @@ public class TransportMapFacade {
      * Constructor for TransportMapFacade
      */
     public TransportMapFacade() {
-        Graph<Stop, Route> graph = new GraphEdgeList<>();
-        TransportMap model = new TransportMap(graph);
-        MainView mainView = new MainView(graph, model, CSS_FILE);
+        TransportMap model = new TransportMap(); // adjacency list graph
+        MainView mainView = new MainView(model.getGraph(), model, CSS_FILE);
 
         controller = new TransportMapController(model, mainView);
     }
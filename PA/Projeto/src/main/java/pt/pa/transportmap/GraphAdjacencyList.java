@@ -0,0 +1,355 @@
+package pt.pa.transportmap;
+
+import com.brunomnsilva.smartgraph.graph.*;
+
+import java.util.*;
+
+/**
+ * ADT Graph implementation based on adjacency lists.
+ * Each vertex stores its incident edges and a map of adjacent vertices, so incidence, adjacency and opposite
+ * queries only depend on the vertex degree instead of the total number of edges (as in GraphEdgeList).
+ * Follows the same contract as GraphEdgeList: vertices and edges are unique by element.
+ * @param <V> Type of element stored at a vertex
+ * @param <E> Type of element stored at an edge
+ */
+public class GraphAdjacencyList<V, E> implements Graph<V, E> {
+    /** Vertices by element */
+    private final Map<V, MyVertex> vertices;
+    /** Edges by element */
+    private final Map<E, Edge<E, V>> edges;
+
+    /**
+     * Constructor for GraphAdjacencyList, creates an empty graph
+     */
+    public GraphAdjacencyList() {
+        this.vertices = new LinkedHashMap<>();
+        this.edges = new LinkedHashMap<>();
+    }
+
+    @Override
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    @Override
+    public int numEdges() {
+        return edges.size();
+    }
+
+    @Override
+    public Collection<Vertex<V>> vertices() {
+        return new ArrayList<>(vertices.values());
+    }
+
+    @Override
+    public Collection<Edge<E, V>> edges() {
+        return new ArrayList<>(edges.values());
+    }
+
+    @Override
+    public Collection<Edge<E, V>> incidentEdges(Vertex<V> v) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(v);
+        return new ArrayList<>(vertex.incidentEdges);
+    }
+
+    @Override
+    public Vertex<V> opposite(Vertex<V> v, Edge<E, V> e) throws InvalidVertexException, InvalidEdgeException {
+        checkVertex(v);
+        MyEdge edge = checkEdge(e);
+        if (!edge.contains(v)) {
+            return null; // vertex not in edge
+        }
+        return edge.vertexOutbound == v ? edge.vertexInbound : edge.vertexOutbound;
+    }
+
+    @Override
+    public synchronized boolean areAdjacent(Vertex<V> u, Vertex<V> v) throws InvalidVertexException {
+        MyVertex outVertex = checkVertex(u);
+        MyVertex inVertex = checkVertex(v);
+        return outVertex.adjacentVertices.containsKey(inVertex);
+    }
+
+    @Override
+    public synchronized Vertex<V> insertVertex(V vElement) throws InvalidVertexException {
+        if (existsVertexWith(vElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+        MyVertex newVertex = new MyVertex(vElement);
+        vertices.put(vElement, newVertex);
+        return newVertex;
+    }
+
+    @Override
+    public synchronized Edge<E, V> insertEdge(Vertex<V> u, Vertex<V> v, E edgeElement) throws InvalidVertexException, InvalidEdgeException {
+        if (existsEdgeWith(edgeElement)) {
+            throw new InvalidEdgeException("There's already an edge with this element.");
+        }
+        MyVertex outVertex = checkVertex(u);
+        MyVertex inVertex = checkVertex(v);
+        return attachEdge(outVertex, inVertex, edgeElement);
+    }
+
+    @Override
+    public synchronized Edge<E, V> insertEdge(V vElement1, V vElement2, E edgeElement) throws InvalidVertexException, InvalidEdgeException {
+        if (existsEdgeWith(edgeElement)) {
+            throw new InvalidEdgeException("There's already an edge with this element.");
+        }
+        if (!existsVertexWith(vElement1)) {
+            throw new InvalidVertexException("No vertex contains " + vElement1);
+        }
+        if (!existsVertexWith(vElement2)) {
+            throw new InvalidVertexException("No vertex contains " + vElement2);
+        }
+        return attachEdge(vertices.get(vElement1), vertices.get(vElement2), edgeElement);
+    }
+
+    @Override
+    public synchronized V removeVertex(Vertex<V> v) throws InvalidVertexException {
+        MyVertex vertex = checkVertex(v);
+        V element = vertex.element;
+        // remove incident edges, copy to avoid concurrent modification
+        for (MyEdge edge : new ArrayList<>(vertex.incidentEdges)) {
+            detachEdge(edge);
+        }
+        vertices.remove(element);
+        return element;
+    }
+
+    @Override
+    public synchronized E removeEdge(Edge<E, V> e) throws InvalidEdgeException {
+        MyEdge edge = checkEdge(e);
+        E element = edge.element;
+        detachEdge(edge);
+        return element;
+    }
+
+    @Override
+    public synchronized V replace(Vertex<V> v, V newElement) throws InvalidVertexException {
+        if (existsVertexWith(newElement)) {
+            throw new InvalidVertexException("There's already a vertex with this element.");
+        }
+        MyVertex vertex = checkVertex(v);
+        V oldElement = vertex.element;
+        vertices.remove(oldElement);
+        vertex.element = newElement;
+        vertices.put(newElement, vertex);
+        return oldElement;
+    }
+
+    @Override
+    public synchronized E replace(Edge<E, V> e, E newElement) throws InvalidEdgeException {
+        if (existsEdgeWith(newElement)) {
+            throw new InvalidEdgeException("There's already an edge with this element.");
+        }
+        MyEdge edge = checkEdge(e);
+        E oldElement = edge.element;
+        edges.remove(oldElement);
+        edge.element = newElement;
+        edges.put(newElement, edge);
+        return oldElement;
+    }
+
+    /**
+     * Create an edge between two vertices of this graph and register it in both incidence lists
+     * @param outVertex MyVertex the outbound vertex
+     * @param inVertex MyVertex the inbound vertex
+     * @param edgeElement E the edge element
+     * @return MyEdge the new edge
+     */
+    private MyEdge attachEdge(MyVertex outVertex, MyVertex inVertex, E edgeElement) {
+        MyEdge newEdge = new MyEdge(edgeElement, outVertex, inVertex);
+        edges.put(edgeElement, newEdge);
+
+        outVertex.incidentEdges.add(newEdge);
+        outVertex.adjacentVertices.putIfAbsent(inVertex, newEdge);
+        inVertex.incidentEdges.add(newEdge); // no-op for self loops
+        inVertex.adjacentVertices.putIfAbsent(outVertex, newEdge);
+        return newEdge;
+    }
+
+    /**
+     * Remove an edge from the graph and from the incidence lists of its vertices
+     * @param edge MyEdge the edge to remove
+     */
+    private void detachEdge(MyEdge edge) {
+        edges.remove(edge.element);
+        edge.vertexOutbound.detach(edge, edge.vertexInbound);
+        edge.vertexInbound.detach(edge, edge.vertexOutbound);
+    }
+
+    /**
+     * Check if there is a vertex with the element
+     * @param vElement V the element
+     * @return true if there is a vertex with the element
+     */
+    private boolean existsVertexWith(V vElement) {
+        return vertices.containsKey(vElement);
+    }
+
+    /**
+     * Check if there is an edge with the element
+     * @param edgeElement E the element
+     * @return true if there is an edge with the element
+     */
+    private boolean existsEdgeWith(E edgeElement) {
+        return edges.containsKey(edgeElement);
+    }
+
+    /**
+     * Check if a vertex is valid and belongs to this graph
+     * @param v Vertex<V> the vertex to check
+     * @return MyVertex the vertex cast to the inner type
+     * @throws InvalidVertexException if the vertex is null, of another implementation or not in this graph
+     */
+    private MyVertex checkVertex(Vertex<V> v) throws InvalidVertexException {
+        if (v == null) {
+            throw new InvalidVertexException("Null vertex.");
+        }
+        if (!(v instanceof GraphAdjacencyList<?, ?>.MyVertex)) {
+            throw new InvalidVertexException("Not a vertex.");
+        }
+        MyVertex vertex = vertices.get(v.element());
+        if (vertex != v) {
+            throw new InvalidVertexException("Vertex does not belong to this graph.");
+        }
+        return vertex;
+    }
+
+    /**
+     * Check if an edge is valid and belongs to this graph
+     * @param e Edge<E, V> the edge to check
+     * @return MyEdge the edge cast to the inner type
+     * @throws InvalidEdgeException if the edge is null, of another implementation or not in this graph
+     */
+    private MyEdge checkEdge(Edge<E, V> e) throws InvalidEdgeException {
+        if (e == null) {
+            throw new InvalidEdgeException("Null edge.");
+        }
+        if (!(e instanceof GraphAdjacencyList<?, ?>.MyEdge)) {
+            throw new InvalidEdgeException("Not an edge.");
+        }
+        if (edges.get(e.element()) != e) {
+            throw new InvalidEdgeException("Edge does not belong to this graph.");
+        }
+        return (MyEdge) e;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("Graph with %d vertices and %d edges:\n", numVertices(), numEdges()));
+        sb.append("--- Vertices: \n");
+        for (Vertex<V> v : vertices.values()) {
+            sb.append("\t").append(v.toString()).append("\n");
+        }
+        sb.append("\n--- Edges: \n");
+        for (Edge<E, V> e : edges.values()) {
+            sb.append("\t").append(e.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Vertex with its incidence list and adjacency map
+     */
+    private class MyVertex implements Vertex<V> {
+        /** The vertex element */
+        private V element;
+        /** Edges incident to this vertex, in insertion order */
+        private final Set<MyEdge> incidentEdges;
+        /** Adjacent vertices and one of the edges connecting to them */
+        private final Map<MyVertex, MyEdge> adjacentVertices;
+
+        /**
+         * Constructor for MyVertex
+         * @param element V the vertex element
+         */
+        public MyVertex(V element) {
+            this.element = element;
+            this.incidentEdges = new LinkedHashSet<>();
+            this.adjacentVertices = new HashMap<>();
+        }
+
+        @Override
+        public V element() {
+            return element;
+        }
+
+        /**
+         * Remove an edge from the incidence list, keeping the adjacency map pointing to a remaining parallel edge
+         * @param edge MyEdge the edge to remove
+         * @param opposite MyVertex the opposite vertex in the edge
+         */
+        private void detach(MyEdge edge, MyVertex opposite) {
+            incidentEdges.remove(edge);
+            if (adjacentVertices.get(opposite) != edge) {
+                return;
+            }
+            adjacentVertices.remove(opposite);
+            // parallel edges with other elements may still connect both vertices
+            for (MyEdge other : incidentEdges) {
+                if (other.contains(opposite) && (opposite != this || other.vertexOutbound == other.vertexInbound)) {
+                    adjacentVertices.put(opposite, other);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Vertex{" + element + '}';
+        }
+    }
+
+    /**
+     * Edge connecting two vertices
+     */
+    private class MyEdge implements Edge<E, V> {
+        /** The edge element */
+        private E element;
+        /** The outbound vertex */
+        private final MyVertex vertexOutbound;
+        /** The inbound vertex */
+        private final MyVertex vertexInbound;
+
+        /**
+         * Constructor for MyEdge
+         * @param element E the edge element
+         * @param vertexOutbound MyVertex the outbound vertex
+         * @param vertexInbound MyVertex the inbound vertex
+         */
+        public MyEdge(E element, MyVertex vertexOutbound, MyVertex vertexInbound) {
+            this.element = element;
+            this.vertexOutbound = vertexOutbound;
+            this.vertexInbound = vertexInbound;
+        }
+
+        @Override
+        public E element() {
+            return element;
+        }
+
+        /**
+         * Check if a vertex is one of the edge ends
+         * @param v Vertex<V> the vertex
+         * @return true if the vertex is one of the edge ends
+         */
+        public boolean contains(Vertex<V> v) {
+            return vertexOutbound == v || vertexInbound == v;
+        }
+
+        @Override
+        public Vertex<V>[] vertices() {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Vertex<V>[] vertices = new Vertex[2];
+            vertices[0] = vertexOutbound;
+            vertices[1] = vertexInbound;
+            return vertices;
+        }
+
+        @Override
+        public String toString() {
+            return "Edge{{" + element + "}, vertexOutbound=" + vertexOutbound.toString()
+                    + ", vertexInbound=" + vertexInbound.toString() + '}';
+        }
+    }
+}
@@ -75,6 +75,13 @@ public interface Model extends Observable {
      */
     List<Map.Entry<Stop, Integer>> getStopCentrality();
 
+    /**
+     * Return the first tuples of the stop centrality list, see getStopCentrality()
+     * @param limit int the maximum number of tuples to return
+     * @return List<Map.Entry<Stop, Integer>> the first limit tuples <Stop, Number of adjacent Stops> of the centrality list
+     */
+    List<Map.Entry<Stop, Integer>> getStopCentrality(int limit);
+
     /**
      * Get the graph vertices
      * @return Collection<Vertex<Stop>> the graph vertices
@@ -115,6 +122,13 @@ public interface Model extends Observable {
      */
     boolean hasStop(String code);
 
+    /**
+     * Check if a vertex belongs to the graph
+     * @param vertex Vertex<Stop> the vertex to check
+     * @return true if the vertex is in the graph, false otherwise or if the vertex is null
+     */
+    boolean hasVertex(Vertex<Stop> vertex);
+
     /**
      * Get the graph edges
      * @return Collection<Edge<Route, Stop>> the graph edges
@@ -17,6 +17,8 @@ public class Stop implements Serializable {
     private double latitude;
     /** The longitude of the stop */
     private double longitude;
+    /** Mean earth radius in km, used for great-circle distances */
+    private static final double EARTH_RADIUS = 6371.0088;
     /** Serial version UID */
     @Serial
     private static final long serialVersionUID = 1L;
@@ -81,6 +83,38 @@ public class Stop implements Serializable {
         return longitude;
     }
 
+    /**
+     * Returns the great-circle distance to another stop
+     *
+     * @param other Stop the other stop
+     * @return double the great-circle distance in km
+     * @throws IllegalArgumentException if the other stop is null
+     */
+    public double distanceTo(Stop other) throws IllegalArgumentException {
+        if(other == null) {
+            throw new IllegalArgumentException("Stop must not be null.");
+        }
+        return greatCircleDistance(latitude, longitude, other.latitude, other.longitude);
+    }
+
+    /**
+     * Returns the great-circle distance between two coordinates, using the haversine formula
+     *
+     * @param latitude1 double the first latitude
+     * @param longitude1 double the first longitude
+     * @param latitude2 double the second latitude
+     * @param longitude2 double the second longitude
+     * @return double the great-circle distance in km
+     */
+    public static double greatCircleDistance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
 
     // Setters
     /**
@@ -2,7 +2,10 @@ package pt.pa.transportmap;
 
 import com.brunomnsilva.smartgraph.graph.*;
 import pt.pa.observerpattern.Observer;
+import pt.pa.transportmap.path.MinimumCostTable;
 import pt.pa.transportmap.path.PathStrategy;
+import pt.pa.transportmap.path.RoutingSnapshot;
+import pt.pa.transportmap.path.ShortestPathTreeCache;
 import pt.pa.transportmap.userconfiguration.UserConfiguration;
 
 import java.util.*;
@@ -14,6 +17,26 @@ import java.util.stream.Collectors;
 public class TransportMap implements Model {
     /** Graph of stops and routes */
     private final Graph<Stop, Route> graph;
+    /** Index of the graph vertices by stop code */
+    private final Map<String, Vertex<Stop>> stopIndex;
+    /** Index of the graph edges by the codes of both stops, stored in both directions so the pair is unordered */
+    private final Map<String, Map<String, Edge<Route, Stop>>> edgeIndex;
+    /** Number of routes of each stop */
+    private final Map<Vertex<Stop>, Integer> degrees;
+    /** Stops ordered by centrality, desc by number of routes and then asc by name */
+    private final NavigableSet<Vertex<Stop>> centralityRanking;
+    /** Number of stops without routes */
+    private int isolatedStops;
+    /** Number of routes with each transport type */
+    private final Map<TransportType, Integer> routesByTransportType;
+    /** Structural version, incremented when stops or routes are inserted or removed */
+    private long version;
+    /** Compiled routing snapshot, rebuilt lazily when the version changes */
+    private RoutingSnapshot routingSnapshot;
+    /** Minimum edge costs of the routing snapshot with the user configuration, rebuilt when either changes */
+    private MinimumCostTable minimumCostTable;
+    /** Shortest path trees of the recent queries, for the current version and user configuration */
+    private final ShortestPathTreeCache shortestPathTreeCache;
     /** Path finding strategy */
     private PathStrategy pathStrategy;
     /** List of observers */
@@ -22,7 +45,14 @@ public class TransportMap implements Model {
     private UserConfiguration userConfiguration;
 
     /**
-     * Constructor for TransportMap
+     * Constructor for TransportMap, backed by an adjacency list graph
+     */
+    public TransportMap() {
+        this(new GraphAdjacencyList<>());
+    }
+
+    /**
+     * Constructor for TransportMap. After this, the graph must only be changed through the model, to keep its indexes updated.
      * @param graph Graph<Stop, Route> the graph of stops and routes
      * @throws IllegalArgumentException if the graph is null
      */
@@ -31,6 +61,36 @@ public class TransportMap implements Model {
             throw new IllegalArgumentException("Graph cannot be null.");
         }
         this.graph = graph;
+        stopIndex = new HashMap<>();
+        for (Vertex<Stop> vertex : graph.vertices()) {
+            stopIndex.put(vertex.element().getCode(), vertex);
+        }
+        edgeIndex = new HashMap<>();
+        for (Edge<Route, Stop> edge : graph.edges()) {
+            indexEdge(edge);
+        }
+        // metrics, kept updated on insert and remove
+        degrees = new HashMap<>();
+        centralityRanking = new TreeSet<>(
+                Comparator.comparingInt((Vertex<Stop> v) -> degrees.get(v)).reversed()
+                        .thenComparing(v -> v.element().getName(), String::compareToIgnoreCase)
+                        .thenComparing(v -> v.element().getCode())
+        );
+        isolatedStops = 0;
+        for (Vertex<Stop> vertex : graph.vertices()) {
+            setDegree(vertex, graph.incidentEdges(vertex).size());
+        }
+        routesByTransportType = new EnumMap<>(TransportType.class);
+        for (TransportType type : TransportType.values()) {
+            routesByTransportType.put(type, 0);
+        }
+        for (Edge<Route, Stop> edge : graph.edges()) {
+            countTransportTypes(edge, 1);
+        }
+        version = 0;
+        routingSnapshot = null;
+        minimumCostTable = null;
+        shortestPathTreeCache = new ShortestPathTreeCache();
         pathStrategy = null;
         observers = new ArrayList<>();
         userConfiguration = null;
@@ -88,24 +148,12 @@ public class TransportMap implements Model {
 
     @Override
     public int getNumberOfIsolatedStops() {
-        int count = 0;
-        for (Vertex<Stop> vertex : graph.vertices()) {
-            if (graph.incidentEdges(vertex).isEmpty()) {
-                count++;
-            }
-        }
-        return count;
+        return isolatedStops;
     }
 
     @Override
     public int getNumberOfNotIsolatedStops() {
-        int count = 0;
-        for (Vertex<Stop> vertex : graph.vertices()) {
-            if (!graph.incidentEdges(vertex).isEmpty()) {
-                count++;
-            }
-        }
-        return count;
+        return graph.numVertices() - isolatedStops;
     }
 
     @Override
@@ -115,43 +163,75 @@ public class TransportMap implements Model {
 
     @Override
     public Map<TransportType, Integer> getNumberOfRoutesByTransportType() {
-        // Initialize a map with the TransportType as Key and the count as Value
-        Map<TransportType, Integer> map = new EnumMap<>(TransportType.class);
-        // Set counter as 0 for each type
-        for (TransportType type : TransportType.values()) {
-            map.put(type, 0);
-        }
-        // Increment the count of each type found
-        for (Edge<Route, Stop> edge : graph.edges()) {
-            for (TransportType type : edge.element().getTransportList()) {
-                map.put(type, map.get(type) + 1);
-            }
-        }
-        return map;
+        return new EnumMap<>(routesByTransportType);
     }
 
     @Override
     public List<Map.Entry<Stop, Integer>> getStopCentrality() {
-        Map<Stop, Integer> centralityMap = new HashMap<>();
+        return getStopCentrality(centralityRanking.size());
+    }
 
-        List<Vertex<Stop>> stopList = (List<Vertex<Stop>>) graph.vertices();
-        for (Vertex<Stop> vertex : stopList) {
-            try {
-                centralityMap.put(vertex.element(), graph.incidentEdges(vertex).size());
-            }
-            catch(InvalidVertexException e){
-                // continue;
+    @Override
+    public List<Map.Entry<Stop, Integer>> getStopCentrality(int limit) {
+        List<Map.Entry<Stop, Integer>> centralityList = new ArrayList<>();
+        Iterator<Vertex<Stop>> iterator = centralityRanking.iterator();
+        while (centralityList.size() < limit && iterator.hasNext()) {
+            Vertex<Stop> vertex = iterator.next();
+            centralityList.add(new AbstractMap.SimpleImmutableEntry<>(vertex.element(), degrees.get(vertex)));
+        }
+        return centralityList;
+    }
+
+    /**
+     * Get the graph of stops and routes, to bind to the map view
+     * @return Graph<Stop, Route> the graph of stops and routes
+     */
+    public Graph<Stop, Route> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Get the structural version of the map, incremented on every insertion or removal of stops and routes
+     * @return long the map version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the compiled routing snapshot of the map, rebuilding it if the map changed since the last call
+     * @return RoutingSnapshot the routing snapshot for the current version
+     */
+    public synchronized RoutingSnapshot getRoutingSnapshot() {
+        if(routingSnapshot == null || routingSnapshot.getVersion() != version) {
+            routingSnapshot = new RoutingSnapshot(this, version);
+        }
+        return routingSnapshot;
+    }
+
+    /**
+     * Get the minimum edge costs of the routing snapshot with the user configuration, rebuilding the table if the map
+     * changed or another user configuration was loaded since the last call. Changes to the same user configuration
+     * are applied by the table itself.
+     * @return MinimumCostTable the minimum cost table for the current version and user configuration
+     */
+    public synchronized MinimumCostTable getMinimumCostTable() {
+        RoutingSnapshot snapshot = getRoutingSnapshot();
+        if(minimumCostTable == null || minimumCostTable.getSnapshot() != snapshot || minimumCostTable.getUserConfiguration() != userConfiguration) {
+            if(minimumCostTable != null) {
+                minimumCostTable.detach();
             }
+            minimumCostTable = new MinimumCostTable(snapshot, userConfiguration);
         }
+        return minimumCostTable;
+    }
 
-        List<Map.Entry<Stop, Integer>> centralityList = new ArrayList<>(centralityMap.entrySet());
-        centralityList.sort(
-                (Map.Entry<Stop, Integer> m1, Map.Entry<Stop, Integer> m2) ->
-                        m2.getValue() - m1.getValue() == 0 ?
-                                m1.getKey().getName().compareToIgnoreCase(m2.getKey().getName())
-                                : m2.getValue() - m1.getValue()
-        );
-        return centralityList;
+    /**
+     * Get the cache of the shortest path trees of the recent queries, see CachedPathStrategy
+     * @return ShortestPathTreeCache the shortest path tree cache
+     */
+    public ShortestPathTreeCache getShortestPathTreeCache() {
+        return shortestPathTreeCache;
     }
 
     @Override
@@ -162,22 +242,13 @@ public class TransportMap implements Model {
     @Override
     public Vertex<Stop> getVertex(Stop stop) {
         if(stop == null) { return null; }
-        for (Vertex<Stop> vertex : graph.vertices()) {
-            if (vertex.element().equals(stop)) {
-                return vertex;
-            }
-        }
-        return null;
+        return stopIndex.get(stop.getCode()); // stops are equal by code
     }
 
     @Override
     public Vertex<Stop> getVertex(String code) {
-        try{
-            return getVertex(new Stop(code, "temp", 0, 0));
-        }
-        catch (IllegalArgumentException e){
-            return null;
-        }
+        if(code == null) { return null; }
+        return stopIndex.get(code);
     }
 
     @Override
@@ -193,12 +264,14 @@ public class TransportMap implements Model {
 
     @Override
     public boolean hasStop(String code) {
-        try{
-            return hasStop(new Stop(code, "temp", 0, 0));
-        }
-        catch (IllegalArgumentException e){
-            return false;
-        }
+        if(code == null) { return false; }
+        return stopIndex.containsKey(code);
+    }
+
+    @Override
+    public boolean hasVertex(Vertex<Stop> vertex) {
+        if(vertex == null || vertex.element() == null) { return false; }
+        return stopIndex.get(vertex.element().getCode()) == vertex;
     }
 
     @Override
@@ -213,14 +286,10 @@ public class TransportMap implements Model {
 
     @Override
     public boolean areAdjacent(String firstStopCode, String secondStopCode) {
-        try{
-            Stop firstStop = new Stop(firstStopCode, "temp", 0, 0);
-            Stop secondStop = new Stop(secondStopCode, "temp", 0, 0);
-            return areAdjacent(firstStop, secondStop);
-        }
-        catch (IllegalArgumentException e){
-            return false;
-        }
+        Vertex<Stop> vertex1 = getVertex(firstStopCode);
+        Vertex<Stop> vertex2 = getVertex(secondStopCode);
+        if(vertex1 == null || vertex2 == null) { return false; }
+        return areAdjacent(vertex1, vertex2);
     }
 
     @Override
@@ -241,16 +310,11 @@ public class TransportMap implements Model {
         if(vertex1 == null || vertex2 == null) {
             throw new InvalidVertexException("Vertex cannot be null.");
         }
-        Collection<Vertex<Stop>> vertices = graph.vertices();
-        if (!vertices.contains(vertex1) || !vertices.contains(vertex2)) {
+        if (!hasVertex(vertex1) || !hasVertex(vertex2)) {
             throw new InvalidVertexException("Vertex not in graph.");
         }
-        for (Edge<Route, Stop> edge : graph.incidentEdges(vertex1)) {
-            if (graph.opposite(vertex1, edge).equals(vertex2)) {
-                return edge;
-            }
-        }
-        return null;
+        Map<String, Edge<Route, Stop>> neighbours = edgeIndex.get(vertex1.element().getCode());
+        return neighbours == null ? null : neighbours.get(vertex2.element().getCode());
     }
 
     @Override
@@ -260,11 +324,8 @@ public class TransportMap implements Model {
 
     @Override
     public boolean areAdjacent(Vertex<Stop> vertex1, Vertex<Stop> vertex2) throws InvalidVertexException {
-        try {
-            return graph.areAdjacent(vertex1, vertex2);
-        } catch (InvalidVertexException e) {
-            return false;
-        }
+        if(!hasVertex(vertex1) || !hasVertex(vertex2)) { return false; }
+        return getEdge(vertex1, vertex2) != null;
     }
 
     @Override
@@ -276,7 +337,11 @@ public class TransportMap implements Model {
     public Vertex<Stop> insertVertex(Stop vElement) {
         if(vElement == null) { return null; }
         try {
-            return graph.insertVertex(vElement);
+            Vertex<Stop> vertex = graph.insertVertex(vElement);
+            stopIndex.put(vElement.getCode(), vertex);
+            setDegree(vertex, 0);
+            changed();
+            return vertex;
         } catch (InvalidVertexException e) {
             return getVertex(vElement);
         }
@@ -286,7 +351,17 @@ public class TransportMap implements Model {
     public Edge<Route, Stop> insertEdge(Stop vElement1, Stop vElement2, Route edgeElement) throws InvalidVertexException {
         if(edgeElement == null) { return null; }
         try {
-            return graph.insertEdge(vElement1, vElement2, edgeElement);
+            Edge<Route, Stop> edge = graph.insertEdge(vElement1, vElement2, edgeElement);
+            indexEdge(edge);
+            Vertex<Stop> vertex1 = edge.vertices()[0];
+            Vertex<Stop> vertex2 = edge.vertices()[1];
+            setDegree(vertex1, degrees.get(vertex1) + 1);
+            if(vertex2 != vertex1) {
+                setDegree(vertex2, degrees.get(vertex2) + 1);
+            }
+            countTransportTypes(edge, 1);
+            changed();
+            return edge;
         } catch (InvalidVertexException e) {
             throw new InvalidVertexException(e.getMessage());
         } catch (InvalidEdgeException e) {
@@ -296,7 +371,77 @@ public class TransportMap implements Model {
 
     @Override
     public Stop removeVertex(Vertex<Stop> v) throws InvalidVertexException {
-        return graph.removeVertex(v);
+        // the graph removes the incident edges too, update the metrics of the opposite stops
+        for (Edge<Route, Stop> edge : graph.incidentEdges(v)) {
+            Vertex<Stop> opposite = graph.opposite(v, edge);
+            if(opposite != v) {
+                setDegree(opposite, degrees.get(opposite) - 1);
+            }
+            countTransportTypes(edge, -1);
+        }
+        Stop stop = graph.removeVertex(v);
+        centralityRanking.remove(v);
+        if(degrees.remove(v) == 0) {
+            isolatedStops--;
+        }
+        stopIndex.remove(stop.getCode());
+        // the graph removed the incident edges too
+        Map<String, Edge<Route, Stop>> neighbours = edgeIndex.remove(stop.getCode());
+        if(neighbours != null) {
+            for (String code : neighbours.keySet()) {
+                Map<String, Edge<Route, Stop>> oppositeNeighbours = edgeIndex.get(code);
+                if(oppositeNeighbours != null) {
+                    oppositeNeighbours.remove(stop.getCode());
+                }
+            }
+        }
+        changed();
+        return stop;
+    }
+
+    /**
+     * Set the number of routes of a stop, updating the centrality ranking and the isolated stops count
+     * @param vertex Vertex<Stop> the stop vertex
+     * @param degree int the number of routes of the stop
+     */
+    private void setDegree(Vertex<Stop> vertex, int degree) {
+        Integer oldDegree = degrees.get(vertex);
+        if(oldDegree != null) {
+            centralityRanking.remove(vertex); // must be removed before the order changes
+            if(oldDegree == 0) { isolatedStops--; }
+        }
+        degrees.put(vertex, degree);
+        centralityRanking.add(vertex);
+        if(degree == 0) { isolatedStops++; }
+    }
+
+    /**
+     * Add a value to the route count of each transport type in an edge
+     * @param edge Edge<Route, Stop> the edge
+     * @param value int 1 if the edge was inserted, -1 if it was removed
+     */
+    private void countTransportTypes(Edge<Route, Stop> edge, int value) {
+        for (TransportType type : edge.element().getTransportList()) {
+            routesByTransportType.merge(type, value, Integer::sum);
+        }
+    }
+
+    /**
+     * Add an edge to the stop pair index, keeping the first edge if there are parallel edges
+     * @param edge Edge<Route, Stop> the edge to index
+     */
+    private void indexEdge(Edge<Route, Stop> edge) {
+        String code1 = edge.vertices()[0].element().getCode();
+        String code2 = edge.vertices()[1].element().getCode();
+        edgeIndex.computeIfAbsent(code1, code -> new HashMap<>()).putIfAbsent(code2, edge);
+        edgeIndex.computeIfAbsent(code2, code -> new HashMap<>()).putIfAbsent(code1, edge);
+    }
+
+    /**
+     * Mark the map as changed, invalidating the routing snapshot
+     */
+    private synchronized void changed() {
+        version++;
     }
 
     @Override
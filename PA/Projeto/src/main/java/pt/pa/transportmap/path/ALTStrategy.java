@@ -0,0 +1,192 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ALT (A*, Landmarks and Triangle inequality) class to find the less cost path between two vertices.
+ * The costs from a set of landmark stops to every stop are computed once per transport mask (see LandmarkTable) and
+ * reused by the following queries, until the transport map or the user configuration changes.
+ * The landmark bounds need non-negative costs, with negative costs (sustainability) the query is done by LooplessStrategy.
+ */
+public class ALTStrategy implements PathStrategy {
+    /** Default number of landmarks */
+    public static final int DEFAULT_LANDMARKS = 4;
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+    /** Number of landmarks chosen by selectFarthestLandmarks, used if landmarkCodes is null */
+    private final int numLandmarks;
+    /** Codes of the landmark stops chosen by the user, null to choose them automatically */
+    private final List<String> landmarkCodes;
+    /** The pool to build the landmark tables */
+    private final ForkJoinPool pool;
+    /** Landmark tables by transport mask */
+    private final PreprocessingCache<LandmarkTable> tables;
+
+    /**
+     * Constructor for ALTStrategy with the default number of landmarks
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public ALTStrategy(CostStrategy costStrategy){
+        this(costStrategy, DEFAULT_LANDMARKS);
+    }
+
+    /**
+     * Constructor for ALTStrategy with landmarks chosen far from each other
+     * @param costStrategy CostStrategy the cost strategy to use
+     * @param numLandmarks int the number of landmarks
+     * @throws IllegalArgumentException if the number of landmarks is negative
+     */
+    public ALTStrategy(CostStrategy costStrategy, int numLandmarks) throws IllegalArgumentException {
+        this(costStrategy, numLandmarks, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for ALTStrategy with the landmark stops chosen by the user
+     * @param costStrategy CostStrategy the cost strategy to use
+     * @param landmarkCodes List<String> the codes of the landmark stops
+     * @param pool ForkJoinPool the pool to build the landmark tables
+     * @throws IllegalArgumentException if the codes or the pool are null
+     */
+    public ALTStrategy(CostStrategy costStrategy, List<String> landmarkCodes, ForkJoinPool pool) throws IllegalArgumentException {
+        this(costStrategy, 0, landmarkCodes, pool);
+        if(landmarkCodes == null){
+            throw new IllegalArgumentException("Landmark codes cannot be null.");
+        }
+    }
+
+    /**
+     * Constructor for ALTStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     * @param numLandmarks int the number of landmarks
+     * @param landmarkCodes List<String> the codes of the landmark stops, null to choose them automatically
+     * @param pool ForkJoinPool the pool to build the landmark tables
+     * @throws IllegalArgumentException if the number of landmarks is negative or the pool is null
+     */
+    private ALTStrategy(CostStrategy costStrategy, int numLandmarks, List<String> landmarkCodes, ForkJoinPool pool) throws IllegalArgumentException {
+        if(numLandmarks < 0){
+            throw new IllegalArgumentException("Number of landmarks must not be negative.");
+        }
+        if(pool == null){
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.costStrategy = costStrategy;
+        this.numLandmarks = numLandmarks;
+        this.landmarkCodes = landmarkCodes == null ? null : List.copyOf(landmarkCodes);
+        this.pool = pool;
+        this.tables = new PreprocessingCache<>();
+    }
+
+    /**
+     * Get the landmark table of a transport mask, building it if the snapshot or the user configuration changed
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @return LandmarkTable the landmark table
+     * @throws InvalidVertexException if a landmark code is not a stop of the graph
+     */
+    LandmarkTable getLandmarkTable(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int transportMask) throws InvalidVertexException {
+        return tables.get(snapshot, userConfiguration, transportMask,
+                mask -> new LandmarkTable(snapshot, userConfiguration, costStrategy.getPathCriteria(), mask, getLandmarks(snapshot), pool));
+    }
+
+    /**
+     * Get the landmark stop ids
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @return int[] the landmark stop ids
+     * @throws InvalidVertexException if a landmark code is not a stop of the graph
+     */
+    private int[] getLandmarks(RoutingSnapshot snapshot) throws InvalidVertexException {
+        if(landmarkCodes == null){
+            return LandmarkTable.selectFarthestLandmarks(snapshot, numLandmarks);
+        }
+        int[] landmarks = new int[landmarkCodes.size()];
+        Arrays.fill(landmarks, -1);
+        for(int v = 0; v < snapshot.numStops(); v++){
+            String code = snapshot.vertex(v).element().getCode();
+            for(int i = 0; i < landmarks.length; i++){
+                if(code.equals(landmarkCodes.get(i))){
+                    landmarks[i] = v;
+                }
+            }
+        }
+        for(int i = 0; i < landmarks.length; i++){
+            if(landmarks[i] == -1){
+                throw new InvalidVertexException("Landmark " + landmarkCodes.get(i) + " not in graph.");
+            }
+        }
+        return landmarks;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(graph, transportList, origin, destination);
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+
+        if(!graph.getMinimumCostTable().hasNonNegativeCosts(criteria, transportMask)){
+            return new LooplessStrategy(costStrategy).findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+        }
+        LandmarkTable table = getLandmarkTable(snapshot, userConfiguration, transportMask);
+        MinimumCostTable minimumCostTable = graph.getMinimumCostTable();
+        double[] edgeCosts = minimumCostTable.costs(criteria, transportMask);
+        byte[] edgeTypes = minimumCostTable.types(criteria, transportMask);
+
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            // vertices are ordered by cost + landmark lower bound to the destination
+            IndexedMinHeap unvisited = workspace.heap();
+            workspace.setOrigin(originId, 0.0);
+            unvisited.insert(originId, table.lowerBound(originId, destinationId));
+
+            while(!unvisited.isEmpty()){
+                int current = unvisited.poll();
+                if(current == destinationId){ break; } // the lower bound is consistent, the destination cost is final
+                workspace.settle(current);
+
+                for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                    int edge = snapshot.arcEdge(arc);
+                    int w = snapshot.arcTarget(arc);
+                    if(workspace.isSettled(w)){ continue; }
+
+                    // get minimum cost of transport types in list
+                    double edgeCost = edgeCosts[edge];
+                    if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                    double newCost = workspace.cost(current) + edgeCost;
+
+                    if(newCost < workspace.cost(w)){
+                        double lowerBound = table.lowerBound(w, destinationId);
+                        if(lowerBound == Double.POSITIVE_INFINITY){ continue; } // destination unreachable from w
+                        workspace.update(w, newCost, edge, edgeTypes[edge]);
+                        unvisited.insertOrDecreaseKey(w, newCost + lowerBound);
+                    }
+                }
+            }
+
+            return PathUtils.getPathResult(snapshot, userConfiguration, costStrategy, workspace, originId, destinationId);
+        }finally{
+            workspace.release();
+        }
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, graph, transportList, origin, destination, intermediaryVertices);
+    }
+}
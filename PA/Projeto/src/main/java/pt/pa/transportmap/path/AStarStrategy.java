@@ -0,0 +1,119 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+
+/**
+ * A* class to find the less cost path between two vertices using the stop coordinates.
+ * The lower bound of the cost from a stop to the destination is the great-circle distance between them divided by the
+ * fastest geodesic speed of the enabled transport types (see RoutingSnapshot.geodesicSpeed), which never overestimates
+ * the cost and is consistent, so each stop is settled at most once.
+ * Only the DISTANCE and DURATION criteria have a lower bound, with other criteria the search is a plain Dijkstra.
+ * The search needs non-negative costs, with negative costs (sustainability) the query is done by LooplessStrategy.
+ */
+public class AStarStrategy implements PathStrategy {
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+
+    /**
+     * Constructor for AStarStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public AStarStrategy(CostStrategy costStrategy){
+        this.costStrategy = costStrategy;
+    }
+
+    /**
+     * Get the fastest geodesic speed of the enabled transport types, with the user bicycle duration scale applied
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null for no scale
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @return double the fastest geodesic speed, 0 if there is no lower bound for the criteria
+     */
+    private double getGeodesicSpeed(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int transportMask) {
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        if(criteria != PathCriteria.DISTANCE && criteria != PathCriteria.DURATION){
+            return 0.0;
+        }
+        double speed = 0.0;
+        for(TransportType type : TransportType.values()){
+            if((transportMask & (1 << type.ordinal())) == 0){ continue; }
+            double typeSpeed = snapshot.geodesicSpeed(type, criteria);
+            if(userConfiguration != null && type == TransportType.BICYCLE && criteria == PathCriteria.DURATION){
+                typeSpeed /= userConfiguration.getBicycleDurationScale();
+            }
+            speed = Math.max(speed, typeSpeed);
+        }
+        return Double.isInfinite(speed) ? 0.0 : speed;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(graph, transportList, origin, destination);
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+
+        if(!graph.getMinimumCostTable().hasNonNegativeCosts(criteria, transportMask)){
+            return new LooplessStrategy(costStrategy).findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+        }
+        MinimumCostTable minimumCostTable = graph.getMinimumCostTable();
+        double[] edgeCosts = minimumCostTable.costs(criteria, transportMask);
+        byte[] edgeTypes = minimumCostTable.types(criteria, transportMask);
+
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+        double speed = getGeodesicSpeed(snapshot, userConfiguration, transportMask);
+
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            // vertices are ordered by cost + lower bound to the destination
+            IndexedMinHeap unvisited = workspace.heap();
+            workspace.setOrigin(originId, 0.0);
+            unvisited.insert(originId, 0.0);
+
+            while(!unvisited.isEmpty()){
+                int current = unvisited.poll();
+                if(current == destinationId){ break; } // the lower bound is consistent, the destination cost is final
+                workspace.settle(current);
+
+                for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                    int edge = snapshot.arcEdge(arc);
+                    int w = snapshot.arcTarget(arc);
+                    if(workspace.isSettled(w)){ continue; }
+
+                    // get minimum cost of transport types in list
+                    double edgeCost = edgeCosts[edge];
+                    if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                    double newCost = workspace.cost(current) + edgeCost;
+
+                    if(newCost < workspace.cost(w)){
+                        workspace.update(w, newCost, edge, edgeTypes[edge]);
+                        double lowerBound = speed == 0.0 ? 0.0 : snapshot.geodesicDistance(w, destinationId) / speed;
+                        unvisited.insertOrDecreaseKey(w, newCost + lowerBound);
+                    }
+                }
+            }
+
+            return PathUtils.getPathResult(snapshot, userConfiguration, costStrategy, workspace, originId, destinationId);
+        }finally{
+            workspace.release();
+        }
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, graph, transportList, origin, destination, intermediaryVertices);
+    }
+}
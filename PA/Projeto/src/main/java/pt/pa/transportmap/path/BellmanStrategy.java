@@ -1,20 +1,18 @@
 package pt.pa.transportmap.path;
 
-import com.brunomnsilva.smartgraph.graph.Edge;
 import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
 import com.brunomnsilva.smartgraph.graph.Vertex;
 import pt.pa.transportmap.path.cost.CostStrategy;
 import pt.pa.transportmap.*;
-import pt.pa.transportmap.userconfiguration.UserConfiguration;
 
 import java.util.*;
 
 /**
- * Bellman class to find the less cost path in a graph with negative edge values
+ * Bellman class to find the less cost path in a graph with negative edge values.
+ * Routes can be used in both directions, so a usable route with a negative cost is a negative cycle there and back
+ * and the search throws, the less cost path without repeated stops is found by LooplessStrategy.
  */
 public class BellmanStrategy implements PathStrategy {
-    /** The transport map graph */
-    TransportMap graph;
     /** The cost strategy to use */
     CostStrategy costStrategy;
 
@@ -24,178 +22,124 @@ public class BellmanStrategy implements PathStrategy {
      */
     public BellmanStrategy(CostStrategy costStrategy){
         this.costStrategy = costStrategy;
-        this.graph = null;
     }
 
     /**
      * Find the less cost path using Bellman-Ford algorithm
-     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
-     * @param origin Vertex<Stop> the origin vertex
-     * @return HashMap< Vertex<Stop>, PathSegmentInfo > a map with the less cost path to each vertex
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param minimumCostTable MinimumCostTable the minimum edge costs of the snapshot
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param origin int the origin stop id
+     * @param workspace SearchWorkspace the workspace, filled with the less cost path to each vertex
      * @throws IllegalStateException if graph contains negative-weight cycles
      */
-    private HashMap<Vertex<Stop>, PathSegmentInfo> lessCostPath(EnumSet<TransportType> transportList, Vertex<Stop> origin) throws IllegalStateException {
-        HashMap<Vertex<Stop>, PathSegmentInfo> result = new HashMap<>();
-
-        // for each vertex in the graph, assign infinite cost and null predecessor
-        for (Vertex<Stop> vertex : graph.vertices()) {
-            result.put(vertex, new PathSegmentInfo());
-        }
-        // set origin cost to 0
-        result.get(origin).getRouteInfo().setSustainability(0.0).setDuration(0.0).setDistance(0.0);
-
-        UserConfiguration userConfiguration = graph.getUserConfiguration();
-
-        // relax all edges |V| - 1 times
-        int vertexCount = graph.getNumberOfStops();
-        for (int i = 1; i < vertexCount; i++) {
-            for (Edge<Route, Stop> edge : graph.edges()) {
-                if(userConfiguration.isRouteDisabled(edge)){
-                    continue; // Skip edge
+    private void lessCostPath(RoutingSnapshot snapshot, MinimumCostTable minimumCostTable, int transportMask, int origin, SearchWorkspace workspace) throws IllegalStateException {
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        double[] edgeCosts = minimumCostTable.costs(criteria, transportMask);
+        byte[] edgeTypes = minimumCostTable.types(criteria, transportMask);
+
+        // every vertex not reached has infinite cost and no predecessor, set origin cost to 0
+        workspace.setOrigin(origin, 0.0);
+
+        // relax all edges |V| - 1 times, or until a pass changes nothing
+        int vertexCount = snapshot.numStops();
+        boolean changed = true;
+        for (int i = 1; i < vertexCount && changed; i++) {
+            changed = false;
+            for (int edge = 0; edge < snapshot.numEdges(); edge++) {
+                if(Double.isNaN(edgeCosts[edge])){
+                    continue; // Skip edge if disabled or no valid transport type
                 }
-                relaxEdge(edge, transportList, result);
+                changed |= relaxEdge(snapshot, edgeCosts, edgeTypes, edge, workspace);
             }
         }
 
         // check for negative-weight cycles
-        for (Edge<Route, Stop> edge : graph.edges()) {
-            if(userConfiguration.isRouteDisabled(edge)){
-                continue; // Skip edge
+        for (int edge = 0; edge < snapshot.numEdges(); edge++) {
+            if(Double.isNaN(edgeCosts[edge])){
+                continue; // Skip edge if disabled or no valid transport type
             }
-            if (isRelaxationPossible(edge, transportList, result)) {
+            if (isRelaxationPossible(snapshot, edgeCosts, edge, workspace)) {
                 throw new IllegalStateException("Graph contains a negative-weight cycle.");
             }
         }
-
-        return result;
     }
 
     /**
      * Relax an edge if a shorter path is found
-     * @param edge Edge<Route, Stop> a graph edge
-     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
-     * @param result HashMap< Vertex<Stop>, PathSegmentInfo > a map with the less cost path to each vertex
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the minimum cost of each edge, by edge id
+     * @param edgeTypes byte[] the ordinal of the minimum cost transport type of each edge, by edge id
+     * @param edge int the edge id
+     * @param workspace SearchWorkspace the workspace with the less cost path to each vertex
+     * @return true if the cost of a vertex changed
      */
-    private void relaxEdge(Edge<Route, Stop> edge, EnumSet<TransportType> transportList, HashMap<Vertex<Stop>, PathSegmentInfo> result) {
+    private static boolean relaxEdge(RoutingSnapshot snapshot, double[] edgeCosts, byte[] edgeTypes, int edge, SearchWorkspace workspace) {
         // Find minimum transport cost for the edge
-        Map.Entry<TransportType, Double> minimumTransportEntry = PathUtils.getMinimumTransportCost(graph, transportList, edge, costStrategy);
-        TransportType minType = minimumTransportEntry.getKey();
-        double minTransportCost = minimumTransportEntry.getValue();
-        if (minType == null){ return; } // Skip edge if no valid transport type
+        double minTransportCost = edgeCosts[edge];
 
-        for(Vertex<Stop> u : edge.vertices()){
-            Vertex<Stop> v = graph.opposite(u, edge);
-            RouteInfo uRouteInfo = result.get(u).getRouteInfo();
-            RouteInfo vRouteInfo = result.get(v).getRouteInfo();
+        boolean changed = false;
+        for(int u : new int[]{ snapshot.edgeSource(edge), snapshot.edgeTarget(edge) }){
+            int v = snapshot.opposite(u, edge);
 
             // if distance[u] + w < distance[v] then
             //      distance[v] := distance[u] + w
             //      predecessor[v] := u
-            if(costStrategy.getCost(uRouteInfo) == Double.MAX_VALUE){ continue; } // skip
-            double newCost = costStrategy.getCost(uRouteInfo) + minTransportCost + 1000; // fix for negative cycle in corroios-charneca
-
-            if (newCost < costStrategy.getCost(vRouteInfo)) {
-                costStrategy.setCost(vRouteInfo, newCost - 1000); // due to fix above
-                PathUtils.setOtherCosts(uRouteInfo, vRouteInfo, edge.element().getTransportInfo(minType), costStrategy);
-                result.get(v).setPredecessor(u);
-                result.get(v).setTransportType(minType);
+            if(!workspace.isReached(u)){ continue; } // skip
+            double newCost = workspace.cost(u) + minTransportCost;
+
+            if (newCost < workspace.cost(v)) {
+                workspace.update(v, newCost, edge, edgeTypes[edge]);
+                changed = true;
             }
         }
+        return changed;
     }
 
     /**
      * Check if relaxation is still possible (used for negative cycle detection)
      */
-    private boolean isRelaxationPossible(Edge<Route, Stop> edge, EnumSet<TransportType> transportList, HashMap<Vertex<Stop>, PathSegmentInfo> result) {
+    private static boolean isRelaxationPossible(RoutingSnapshot snapshot, double[] edgeCosts, int edge, SearchWorkspace workspace) {
         // Find minimum transport cost for the edge
-        Map.Entry<TransportType, Double> minimumTransportEntry = PathUtils.getMinimumTransportCost(graph, transportList, edge, costStrategy);
-        double minTransportCost = minimumTransportEntry.getValue();
-        if (minTransportCost == Double.MAX_VALUE){ return false; } // Skip edge if no valid transport type
+        double minTransportCost = edgeCosts[edge];
 
-        Vertex<Stop> u = edge.vertices()[0];
-        Vertex<Stop> v = edge.vertices()[1];
+        double uCost = workspace.cost(snapshot.edgeSource(edge));
+        double vCost = workspace.cost(snapshot.edgeTarget(edge));
 
-        double uCost = costStrategy.getCost(result.get(u).getRouteInfo());
-        double vCost = costStrategy.getCost(result.get(v).getRouteInfo());
-
-        if (uCost != Double.MAX_VALUE && uCost + minTransportCost + 1000 < vCost) {
+        if (uCost != Double.POSITIVE_INFINITY && uCost + minTransportCost < vCost) {
             return true;
         }
-        if (vCost != Double.MAX_VALUE && vCost + minTransportCost + 1000 < uCost) {
+        if (vCost != Double.POSITIVE_INFINITY && vCost + minTransportCost < uCost) {
             return true;
         }
         return false;
     }
 
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
     @Override
     public PathResult findLessCostPathBetweenTwoVertices(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
         PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
-        graph = model;
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
         // get bellman result
-        HashMap<Vertex<Stop>, PathSegmentInfo> result = lessCostPath(transportList, origin);
-
-        // Extract path and totals
-        List<Vertex<Stop>> path = new LinkedList<>();
-        List<TransportType> pathTransportList = new LinkedList<>();
-        List<RouteInfo> pathInfo = new LinkedList<>();
-
-        // get path
-        Vertex<Stop> current = destination;
-        while (current != null) {
-            path.add(0, current);
-            if (result.get(current).getPredecessor() != null) {
-                pathTransportList.add(0, result.get(current).getTransportType());
-                pathInfo.add(0, result.get(current).getRouteInfo());
-            }
-            current = result.get(current).getPredecessor();
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            lessCostPath(snapshot, minimumCostTable, RoutingSnapshot.transportMask(transportList), originId, workspace);
+            // Extract path and totals
+            return PathUtils.getPathResult(snapshot, minimumCostTable.getUserConfiguration(), costStrategy, workspace, originId, destinationId);
+        }finally{
+            workspace.release();
         }
-
-        // get totals
-        RouteInfo destinationInfo = result.get(destination).getRouteInfo();
-        return new PathResult(destinationInfo.getSustainability(),
-                destinationInfo.getDuration(),
-                destinationInfo.getDistance(),
-                path, pathTransportList, pathInfo);
     }
 
     @Override
     public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
-        if(intermediaryVertices == null || intermediaryVertices.length == 0){
-            return findLessCostPathBetweenTwoVertices(model, transportList, origin, destination);
-        }
-
-        PathUtils.validateLessCostPathBetweenTwoVerticesPersonalizedParameters(model, transportList, origin, destination, intermediaryVertices);
-        graph = model;
-        List<Vertex<Stop>> fullPath = new LinkedList<>();
-        List<TransportType> fullPathTransportList = new LinkedList<>();
-        List<RouteInfo> fullPathInfo = new LinkedList<>();
-
-        Vertex<Stop> u = origin;
-        // get best u-v path
-        for (Vertex<Stop> v : intermediaryVertices) {
-            PathResult partialResult = findLessCostPathBetweenTwoVertices(model, transportList, u, v);
-            // skip v in path, add in next iteration
-            fullPath.addAll(partialResult.getPath().subList(0, partialResult.getPath().size() - 1));
-            fullPathTransportList.addAll(partialResult.getTransportList());
-            fullPathInfo.addAll(partialResult.getPathInfo());
-            // set u as v for next iteration
-            u = v;
-        }
-
-        PathResult finalResult = findLessCostPathBetweenTwoVertices(model, transportList, u, destination);
-        fullPath.addAll(finalResult.getPath());
-        fullPathTransportList.addAll(finalResult.getTransportList());
-        fullPathInfo.addAll(finalResult.getPathInfo());
-
-        RouteInfo totalRouteInfo = new RouteInfo(
-                finalResult.getTotalSustainability(),
-                finalResult.getTotalDuration(),
-                finalResult.getTotalDistance()
-        );
-
-        return new PathResult(totalRouteInfo.getSustainability(),
-                totalRouteInfo.getDuration(),
-                totalRouteInfo.getDistance(),
-                fullPath, fullPathTransportList, fullPathInfo);
+        return PathUtils.findLessCostPathPersonalized(this, model, transportList, origin, destination, intermediaryVertices);
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+
+/**
+ * Bidirectional Dijkstra class to find the less cost path between two vertices in a graph with non-negative edge values.
+ * Routes are undirected, so a forward search from the origin and a backward search from the destination run on the
+ * same adjacency, alternating on the side with the smaller cost. The search stops when the sum of both minimum costs
+ * can no longer improve the best path through a vertex reached by both searches.
+ * The stop condition needs non-negative costs, with negative costs (sustainability) the query is done by LooplessStrategy.
+ */
+public class BidirectionalDijkstraStrategy implements PathStrategy {
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+
+    /**
+     * Constructor for BidirectionalDijkstraStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public BidirectionalDijkstraStrategy(CostStrategy costStrategy){
+        this.costStrategy = costStrategy;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(graph, transportList, origin, destination);
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+
+        if(!graph.getMinimumCostTable().hasNonNegativeCosts(criteria, transportMask)){
+            return new LooplessStrategy(costStrategy).findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+        }
+        double[] edgeCosts = graph.getMinimumCostTable().costs(criteria, transportMask);
+
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+        // a workspace for each direction, cost to reach each vertex from the search source and the edge used
+        SearchWorkspace forward = SearchWorkspace.acquire(snapshot.numStops());
+        SearchWorkspace backward = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            forward.setOrigin(originId, 0.0);
+            forward.heap().insert(originId, 0.0);
+            backward.setOrigin(destinationId, 0.0);
+            backward.heap().insert(destinationId, 0.0);
+
+            double bestCost = originId == destinationId ? 0.0 : Double.POSITIVE_INFINITY;
+            int meeting = originId == destinationId ? originId : -1;
+
+            while(!forward.heap().isEmpty() && !backward.heap().isEmpty()){
+                // no path through an unsettled vertex can be better than the best path found
+                if(forward.heap().peekKey() + backward.heap().peekKey() >= bestCost){ break; }
+
+                // expand the side with the smaller cost
+                boolean isForward = forward.heap().peekKey() <= backward.heap().peekKey();
+                SearchWorkspace search = isForward ? forward : backward;
+                SearchWorkspace other = isForward ? backward : forward;
+
+                int current = search.heap().poll();
+                search.settle(current);
+
+                for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                    int edge = snapshot.arcEdge(arc);
+                    int w = snapshot.arcTarget(arc);
+                    if(search.isSettled(w)){ continue; }
+
+                    // get minimum cost of transport types in list
+                    double edgeCost = edgeCosts[edge];
+                    if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                    double newCost = search.cost(current) + edgeCost;
+
+                    if(newCost < search.cost(w)){
+                        search.update(w, newCost, edge, -1);
+                        search.heap().insertOrDecreaseKey(w, newCost);
+                    }
+                    // w reached by both searches, join both paths
+                    if(search.cost(w) + other.cost(w) < bestCost){
+                        bestCost = search.cost(w) + other.cost(w);
+                        meeting = w;
+                    }
+                }
+            }
+
+            if(meeting == -1){
+                throw new IllegalStateException("Path and transport list can't be null or empty.");
+            }
+
+            // origin -> meeting from the forward search, then meeting -> destination from the backward search
+            List<Integer> stops = new ArrayList<>();
+            List<Integer> edges = new ArrayList<>();
+            for(int v = meeting; v != originId; v = snapshot.opposite(v, forward.predecessorEdge(v))){
+                stops.add(0, v);
+                edges.add(0, forward.predecessorEdge(v));
+            }
+            stops.add(0, originId);
+            for(int v = meeting; v != destinationId; ){
+                int edge = backward.predecessorEdge(v);
+                v = snapshot.opposite(v, edge);
+                edges.add(edge);
+                stops.add(v);
+            }
+
+            return PathUtils.getPathResult(snapshot, userConfiguration, costStrategy, transportMask,
+                    stops.stream().mapToInt(Integer::intValue).toArray(),
+                    edges.stream().mapToInt(Integer::intValue).toArray());
+        }finally{
+            backward.release();
+            forward.release();
+        }
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, graph, transportList, origin, destination, intermediaryVertices);
+    }
+}
@@ -0,0 +1,79 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path strategy decorator that answers the repeated less cost path queries from an origin with its shortest path tree,
+ * from a ShortestPathTreeCache, so they only walk the tree. The first query from an origin is a point-to-point search
+ * of the decorated strategy (e.g. A* or bidirectional Dijkstra), a tree is only built when the origin is asked again
+ * (see ShortestPathTreeCache.getIfRepeated).
+ * Queries with negative costs (no tree) and the other operations are done by the decorated strategy.
+ */
+public class CachedPathStrategy implements PathStrategy {
+    /** The decorated strategy */
+    private final PathStrategy pathStrategy;
+    /** The cache of shortest path trees */
+    private final ShortestPathTreeCache cache;
+
+    /**
+     * Constructor for CachedPathStrategy
+     * @param pathStrategy PathStrategy the decorated strategy
+     * @param cache ShortestPathTreeCache the cache of shortest path trees, usually the one of the transport map
+     * @throws IllegalArgumentException if the strategy or the cache are null
+     */
+    public CachedPathStrategy(PathStrategy pathStrategy, ShortestPathTreeCache cache) throws IllegalArgumentException {
+        if(pathStrategy == null || cache == null){
+            throw new IllegalArgumentException("Path strategy and cache cannot be null.");
+        }
+        this.pathStrategy = pathStrategy;
+        this.cache = cache;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return pathStrategy.getCostStrategy();
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        CostStrategy costStrategy = getCostStrategy();
+        ShortestPathTree tree = cache.getIfRepeated(model, costStrategy.getPathCriteria(), transportList, origin);
+        if(tree == null){
+            return pathStrategy.findLessCostPathBetweenTwoVertices(model, transportList, origin, destination);
+        }
+        return tree.getPathResult(model.getMinimumCostTable().getUserConfiguration(), costStrategy, tree.getSnapshot().id(destination));
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, model, transportList, origin, destination, intermediaryVertices);
+    }
+
+    @Override
+    public PathResult findLessCostPathWithBudgets(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Map<PathCriteria, Double> budgets) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        return pathStrategy.findLessCostPathWithBudgets(model, transportList, origin, destination, budgets);
+    }
+
+    @Override
+    public List<PathResult> findParetoPaths(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        return pathStrategy.findParetoPaths(model, transportList, origin, destination);
+    }
+
+    @Override
+    public List<PathResult> findKLessCostPaths(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, int k) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        return pathStrategy.findKLessCostPaths(model, transportList, origin, destination, k);
+    }
+
+    @Override
+    public double[][] findLessCostMatrix(TransportMap model, EnumSet<TransportType> transportList, List<Vertex<Stop>> origins, List<Vertex<Stop>> destinations) throws IllegalArgumentException, InvalidVertexException {
+        return pathStrategy.findLessCostMatrix(model, transportList, origins, destinations);
+    }
+}
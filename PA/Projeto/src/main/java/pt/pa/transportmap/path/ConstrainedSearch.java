@@ -0,0 +1,319 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+
+/**
+ * Resource constrained search: the path between two stops that minimizes the cost strategy criteria with an upper
+ * bound (budget) on other criteria, e.g. the most sustainable path that takes no more than 40 minutes.
+ * Each label is a path to a stop with its three costs, expanded by increasing cost plus lower bound of the remaining
+ * cost to the destination. The lower bound of each criteria is the less cost from every stop to the destination, with
+ * the minimum transport cost of each edge (a reverse Dijkstra), plus a lower bound of the negative costs of the rest of
+ * the path (see RemainingCosts). A label is discarded if a budget can't be met even at
+ * the lower bound, if its cost plus lower bound is not better than the best path found, or if it is dominated by a
+ * label of its stop in the optimized and budgeted criteria. The cost plus lower bound of a label is computed once, as
+ * its queue key.
+ * As in ParetoSearch, only paths without repeated stops are labeled, as sustainability costs may be negative. A
+ * dominated label may visit fewer stops than the label that dominates it and have extensions that one can't have.
+ * Without negative costs in the optimized and budgeted criteria this doesn't matter, a path with repeated stops can be
+ * shortened without a worse cost. With negative costs a label is only dominated by a label whose path visits no other
+ * stops (see PathLabels.isDominatedWithin), so the search stays exact.
+ */
+public class ConstrainedSearch {
+    /** The cost strategy to minimize */
+    private final CostStrategy costStrategy;
+
+    /**
+     * Constructor for ConstrainedSearch
+     * @param costStrategy CostStrategy the cost strategy to minimize
+     * @throws IllegalArgumentException if the cost strategy is null
+     */
+    public ConstrainedSearch(CostStrategy costStrategy) throws IllegalArgumentException {
+        if(costStrategy == null){
+            throw new IllegalArgumentException("Cost strategy cannot be null.");
+        }
+        this.costStrategy = costStrategy;
+    }
+
+    /**
+     * Find the path between two vertices that minimizes the cost, with the costs of other criteria within budgets
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @param budgets Map<PathCriteria, Double> the maximum cost of the path by criteria, criteria without budget are not bounded
+     * @return PathResult The path found and its associated information
+     * @throws IllegalArgumentException if a parameter is null, if no transports are provided or if a budget is NaN
+     * @throws InvalidVertexException if origin or destination are not in the graph
+     * @throws IllegalStateException if there is no path within the budgets
+     */
+    public PathResult findLessCostPathWithBudgets(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Map<PathCriteria, Double> budgets) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        if(budgets == null){
+            throw new IllegalArgumentException("Budgets cannot be null.");
+        }
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        double[] maxCosts = new double[PathCriteria.values().length];
+        Arrays.fill(maxCosts, Double.POSITIVE_INFINITY);
+        EnumSet<PathCriteria> dominanceCriteria = EnumSet.of(criteria);
+        for(Map.Entry<PathCriteria, Double> budget : budgets.entrySet()){
+            if(budget.getKey() == null || budget.getValue() == null || budget.getValue().isNaN()){
+                throw new IllegalArgumentException("Budgets must have a criteria and a value.");
+            }
+            maxCosts[budget.getKey().ordinal()] = budget.getValue();
+            dominanceCriteria.add(budget.getKey());
+        }
+
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        UserConfiguration userConfiguration = minimumCostTable.getUserConfiguration();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+
+        TransportChoices choices = new TransportChoices(snapshot, userConfiguration, transportMask);
+        // lower bounds of the remaining cost of the optimized and budgeted criteria
+        RemainingCosts remaining = new RemainingCosts(choices, maxCosts, destinationId);
+        for(PathCriteria boundCriteria : dominanceCriteria){
+            remaining.addCriteria(snapshot, boundCriteria, minimumCostTable.costs(boundCriteria, transportMask));
+        }
+
+        boolean nonNegativeCosts = true;
+        for(PathCriteria boundCriteria : dominanceCriteria){
+            nonNegativeCosts &= minimumCostTable.hasNonNegativeCosts(boundCriteria, transportMask);
+        }
+
+        PathLabels labels = new PathLabels(snapshot.numStops(), dominanceCriteria);
+        int best = search(snapshot, choices, labels, remaining, nonNegativeCosts, originId, destinationId);
+        if(best == -1){
+            throw new IllegalStateException("No path found within the budgets.");
+        }
+        return labels.getPathResult(snapshot, userConfiguration, best);
+    }
+
+    /**
+     * Label the stops from the origin until no label can improve the best path to the destination
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param choices TransportChoices the transport choices of each edge
+     * @param labels PathLabels the labels of the search
+     * @param remaining RemainingCosts the lower bounds of the remaining costs and the budgets
+     * @param nonNegativeCosts boolean true if the dominance criteria have no negative costs, any dominating label is used
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id
+     * @return int the label of the best path to the destination, -1 if none is within the budgets
+     */
+    private int search(RoutingSnapshot snapshot, TransportChoices choices, PathLabels labels, RemainingCosts remaining, boolean nonNegativeCosts, int origin, int destination) {
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        // the key of a label is its cost plus the lower bound of the remaining cost, stored when it is created
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Comparator.comparingDouble((Integer label) -> labels.keys[label]));
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        if(remaining.isFeasible(origin, 0.0, 0.0, 0.0)){
+            int label = labels.add(origin, -1, -1, -1, 0.0, 0.0, 0.0);
+            labels.keys[label] = remaining.lowerBound(criteria, origin, 0.0, 0.0);
+            queue.add(label);
+        }
+
+        while(!queue.isEmpty()){
+            int label = queue.poll();
+            if(labels.dead[label]){ continue; } // dominated after being queued
+            if(labels.keys[label] >= bestCost){ break; } // no label can improve the best path
+            int u = labels.stops[label];
+            labels.markPath(label);
+
+            for(int arc = snapshot.arcStart(u); arc < snapshot.arcEnd(u); arc++){
+                int w = snapshot.arcTarget(arc);
+                int edge = snapshot.arcEdge(arc);
+                if(choices.start[edge] == choices.start[edge + 1] || labels.visits(label, w)){ continue; }
+                for(int choice = choices.start[edge]; choice < choices.start[edge + 1]; choice++){
+                    double distance = labels.distances[label] + choices.distances[choice];
+                    double duration = labels.durations[label] + choices.durations[choice];
+                    double sustainability = labels.sustainabilities[label] + choices.sustainabilities[choice];
+                    if(!remaining.isFeasible(w, distance, duration, sustainability)){ continue; }
+                    double cost = criteria == PathCriteria.DISTANCE ? distance : criteria == PathCriteria.DURATION ? duration : sustainability;
+                    double key = cost + remaining.lowerBound(criteria, w, distance, duration);
+                    if(key >= bestCost){ continue; }
+                    if(nonNegativeCosts){
+                        if(labels.isDominated(w, distance, duration, sustainability)){ continue; }
+                        labels.removeDominated(w, distance, duration, sustainability);
+                    }else if(labels.isDominatedWithin(w, label, distance, duration, sustainability)){
+                        continue;
+                    }
+                    int added = labels.add(w, label, edge, choices.types[choice], distance, duration, sustainability);
+                    labels.keys[added] = key;
+                    if(w == destination){
+                        best = added;
+                        bestCost = cost;
+                    }else{
+                        queue.add(added);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Lower bounds of the remaining cost from a label to the destination, and the budgets they are checked against.
+     * The bound of a criteria is the less cost to the destination with the negative edge costs replaced by 0, plus a
+     * lower bound of the negative costs of the rest of the path. Only sustainability has negative costs (walking and
+     * cycling): the rest of a path without repeated stops can't cost less than the sum of all negative edge costs, and
+     * with a distance or duration budget it can't cost less than the remaining budget times the minimum sustainability
+     * per unit of that criteria of the choices with negative sustainability. The tightest of these bounds is used.
+     */
+    private static final class RemainingCosts {
+        /** Lower bound of the non-negative part of the remaining cost by criteria and stop, null if not needed */
+        private final double[][] stopBounds;
+        /** Sum of the negative edge costs by criteria */
+        private final double[] negativeCosts;
+        /** Minimum sustainability per unit of each criteria of the choices with negative sustainability */
+        private final double[] sustainabilityRates;
+        /** The budget of each criteria, infinity if not bounded */
+        private final double[] maxCosts;
+        /** The destination stop id */
+        private final int destination;
+
+        /**
+         * Constructor for RemainingCosts, without criteria
+         * @param choices TransportChoices the transport choices of each edge
+         * @param maxCosts double[] the budget of each criteria, infinity if not bounded
+         * @param destination int the destination stop id
+         */
+        RemainingCosts(TransportChoices choices, double[] maxCosts, int destination) {
+            int numCriteria = PathCriteria.values().length;
+            this.stopBounds = new double[numCriteria][];
+            this.negativeCosts = new double[numCriteria];
+            this.sustainabilityRates = new double[numCriteria];
+            this.maxCosts = maxCosts;
+            this.destination = destination;
+            for(int choice = 0; choice < choices.sustainabilities.length; choice++){
+                double sustainability = choices.sustainabilities[choice];
+                if(sustainability >= 0){ continue; }
+                sustainabilityRates[PathCriteria.DISTANCE.ordinal()] = Math.min(sustainabilityRates[PathCriteria.DISTANCE.ordinal()], rate(sustainability, choices.distances[choice]));
+                sustainabilityRates[PathCriteria.DURATION.ordinal()] = Math.min(sustainabilityRates[PathCriteria.DURATION.ordinal()], rate(sustainability, choices.durations[choice]));
+            }
+        }
+
+        /**
+         * Get the sustainability per unit of another criteria of a choice
+         * @param sustainability double the negative sustainability of the choice
+         * @param cost double the cost of the choice in the other criteria
+         * @return double the rate, minus infinity if the cost is not positive
+         */
+        private static double rate(double sustainability, double cost) {
+            return cost > 0 ? sustainability / cost : Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * Compute the lower bounds of a criteria
+         * @param snapshot RoutingSnapshot the routing snapshot
+         * @param criteria PathCriteria the criteria
+         * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+         */
+        void addCriteria(RoutingSnapshot snapshot, PathCriteria criteria, double[] edgeCosts) {
+            double negative = 0.0;
+            for(double edgeCost : edgeCosts){
+                if(edgeCost < 0){ negative += edgeCost; } // NaN is not negative
+            }
+            negativeCosts[criteria.ordinal()] = negative;
+            stopBounds[criteria.ordinal()] = lowerBounds(snapshot, edgeCosts, destination);
+        }
+
+        /**
+         * Get the lower bound of the remaining cost of a label in a criteria
+         * @param criteria PathCriteria the criteria, with its bounds computed
+         * @param stop int the stop of the label
+         * @param distance double the distance of the label
+         * @param duration double the duration of the label
+         * @return double the lower bound, infinity if the destination can't be reached
+         */
+        double lowerBound(PathCriteria criteria, int stop, double distance, double duration) {
+            double bound = stopBounds[criteria.ordinal()][stop];
+            double negative = negativeCosts[criteria.ordinal()];
+            if(stop == destination || negative == 0.0){ return bound; }
+            if(criteria == PathCriteria.SUSTAINABILITY){
+                negative = Math.max(negative, budgetBound(PathCriteria.DISTANCE, distance));
+                negative = Math.max(negative, budgetBound(PathCriteria.DURATION, duration));
+            }
+            return bound + negative;
+        }
+
+        /**
+         * Get the lower bound of the negative sustainability of the rest of a path from the remaining budget of a criteria
+         * @param budget PathCriteria the budgeted criteria, distance or duration
+         * @param cost double the cost of the label in that criteria
+         * @return double the lower bound, minus infinity if the criteria has no budget
+         */
+        private double budgetBound(PathCriteria budget, double cost) {
+            double maxCost = maxCosts[budget.ordinal()];
+            double rate = sustainabilityRates[budget.ordinal()];
+            if(maxCost == Double.POSITIVE_INFINITY || rate == Double.NEGATIVE_INFINITY){ return Double.NEGATIVE_INFINITY; }
+            return rate * Math.max(maxCost - cost, 0.0);
+        }
+
+        /**
+         * Check if a label can still meet every budget, with the lower bounds of the remaining costs
+         * @param stop int the stop of the label
+         * @param distance double the distance of the label
+         * @param duration double the duration of the label
+         * @param sustainability double the sustainability of the label
+         * @return true if the budgets can be met and the destination can be reached
+         */
+        boolean isFeasible(int stop, double distance, double duration, double sustainability) {
+            return isFeasible(PathCriteria.DISTANCE, stop, distance, distance, duration)
+                    && isFeasible(PathCriteria.DURATION, stop, duration, distance, duration)
+                    && isFeasible(PathCriteria.SUSTAINABILITY, stop, sustainability, distance, duration);
+        }
+
+        /**
+         * Check if a label can still meet the budget of a criteria, with the lower bound of the remaining cost
+         * @param criteria PathCriteria the criteria
+         * @param stop int the stop of the label
+         * @param cost double the cost of the label in the criteria
+         * @param distance double the distance of the label
+         * @param duration double the duration of the label
+         * @return true if the budget can be met and the destination can be reached
+         */
+        private boolean isFeasible(PathCriteria criteria, int stop, double cost, double distance, double duration) {
+            // false if the bound is infinite
+            return stopBounds[criteria.ordinal()] == null || cost + lowerBound(criteria, stop, distance, duration) <= maxCosts[criteria.ordinal()];
+        }
+    }
+
+    /**
+     * Compute the lower bound of the cost from every stop to the destination, with the negative edge costs replaced
+     * by 0 in a reverse Dijkstra (see RemainingCosts for the negative costs). The bound of the destination is 0.
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param destination int the destination stop id
+     * @return double[] the lower bound of each stop, infinity if the destination can't be reached
+     */
+    static double[] lowerBounds(RoutingSnapshot snapshot, double[] edgeCosts, int destination) {
+        double[] bounds = new double[snapshot.numStops()];
+        Arrays.fill(bounds, Double.POSITIVE_INFINITY);
+        IndexedMinHeap heap = new IndexedMinHeap(snapshot.numStops());
+        bounds[destination] = 0.0;
+        heap.insert(destination, 0.0);
+        while(!heap.isEmpty()){
+            int v = heap.poll();
+            for(int arc = snapshot.arcStart(v); arc < snapshot.arcEnd(v); arc++){
+                double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                if(Double.isNaN(edgeCost)){ continue; }
+                int w = snapshot.arcTarget(arc);
+                double cost = bounds[v] + Math.max(edgeCost, 0.0);
+                if(cost < bounds[w]){
+                    bounds[w] = cost;
+                    heap.insertOrDecreaseKey(w, cost);
+                }
+            }
+        }
+        return bounds;
+    }
+}
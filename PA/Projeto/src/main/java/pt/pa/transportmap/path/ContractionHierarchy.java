@@ -0,0 +1,530 @@
+package pt.pa.transportmap.path;
+
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Contraction hierarchy of a routing snapshot, for one criteria and transport mask.
+ * Stops are contracted in order of importance: contracting a stop removes it and adds a shortcut between two of its
+ * neighbours when the path through it is the only shortest one (no witness path is found). A query then only needs to
+ * search upward (to more important stops) from both the origin and the destination.
+ * Many-to-many matrices use the same upward searches, joined by buckets (see lessCostMatrix).
+ * Each round contracts in parallel an independent set of the remaining stops with the lowest priority, the edge
+ * difference (shortcuts added - routes removed) plus the number of contracted neighbours.
+ * Edge costs must not be negative, and are only valid for the user configuration used to build the hierarchy.
+ */
+public class ContractionHierarchy {
+    /** Maximum number of stops settled by a witness search, if reached the shortcut is added */
+    private static final int MAX_WITNESS_SETTLED = 64;
+    /** The routing snapshot */
+    private final RoutingSnapshot snapshot;
+    /** The user configuration, null if nothing is disabled */
+    private final UserConfiguration userConfiguration;
+    /** The mask of transport types that can be used in the path */
+    private final int transportMask;
+    /** Contraction order of each stop */
+    private final int[] rank;
+    /** Upward arcs of each stop (to stops with higher rank), from upOffsets[v] to upOffsets[v + 1] */
+    private final int[] upOffsets;
+    /** Source stop of each upward arc (the stop with the lower rank) */
+    private final int[] upSources;
+    /** Target stop of each upward arc */
+    private final int[] upTargets;
+    /** Cost of each upward arc */
+    private final double[] upCosts;
+    /** Snapshot edge of each upward arc, -1 for shortcuts */
+    private final int[] upEdges;
+    /** Contracted stop of each shortcut, -1 for snapshot edges */
+    private final int[] upMiddles;
+    /** Number of shortcuts added */
+    private final int numShortcuts;
+    /** Preprocessing time in nanoseconds */
+    private final long preprocessingTime;
+
+    /**
+     * Arc of the graph being contracted, shared by both of its stops
+     */
+    private static class Arc {
+        /** The arc cost */
+        final double cost;
+        /** The snapshot edge, -1 for shortcuts */
+        final int edge;
+        /** The contracted stop, -1 for snapshot edges */
+        final int middle;
+
+        Arc(double cost, int edge, int middle) {
+            this.cost = cost;
+            this.edge = edge;
+            this.middle = middle;
+        }
+    }
+
+    /**
+     * Shortcut found when simulating the contraction of a stop
+     */
+    private static class Shortcut {
+        final int from;
+        final int to;
+        final double cost;
+
+        Shortcut(int from, int to, double cost) {
+            this.from = from;
+            this.to = to;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * Constructor for ContractionHierarchy, contracts all the stops using the fork-join pool
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param criteria PathCriteria the path criteria, edge costs must not be negative
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param pool ForkJoinPool the pool to run the contraction
+     * @throws IllegalArgumentException if an argument is null or the costs are negative
+     */
+    public ContractionHierarchy(RoutingSnapshot snapshot, UserConfiguration userConfiguration, PathCriteria criteria, int transportMask, ForkJoinPool pool) throws IllegalArgumentException {
+        if(snapshot == null || criteria == null || pool == null){
+            throw new IllegalArgumentException("Snapshot, criteria and pool cannot be null.");
+        }
+        if(!PathUtils.hasNonNegativeCosts(MinimumCostTable.computeCosts(snapshot, userConfiguration, criteria, transportMask))){
+            throw new IllegalArgumentException("Contraction hierarchies need non-negative costs.");
+        }
+        long start = System.nanoTime();
+        this.snapshot = snapshot;
+        this.userConfiguration = userConfiguration;
+        this.transportMask = transportMask;
+
+        int numStops = snapshot.numStops();
+        List<Map<Integer, Arc>> adjacency = initAdjacency(criteria);
+        List<List<Map.Entry<Integer, Arc>>> upArcs = new ArrayList<>(Collections.nCopies(numStops, null));
+        rank = new int[numStops];
+        boolean[] contracted = new boolean[numStops];
+        boolean[] inRound = new boolean[numStops];
+        boolean[] stale = new boolean[numStops];
+        int[] contractedNeighbours = new int[numStops];
+        double[] priority = new double[numStops];
+        int shortcuts = 0;
+        int nextRank = 0;
+        Arrays.fill(stale, true);
+
+        while(nextRank < numStops){
+            int[] remaining = new int[numStops - nextRank];
+            for(int v = 0, i = 0; v < numStops; v++){
+                if(!contracted[v]){ remaining[i++] = v; }
+            }
+            // only the neighbours of the stops contracted in the last round have a different priority
+            pool.submit(() -> Arrays.stream(remaining).parallel().filter(v -> stale[v]).forEach(v -> {
+                priority[v] = findShortcuts(adjacency, inRound, v).size() - adjacency.get(v).size() + contractedNeighbours[v];
+                stale[v] = false;
+            })).join();
+
+            // independent set of stops with lower priority than all their neighbours, ties broken by id
+            List<Integer> round = new ArrayList<>();
+            for(int v : remaining){
+                boolean minimum = true;
+                for(int w : adjacency.get(v).keySet()){
+                    if(priority[w] < priority[v] || (priority[w] == priority[v] && w < v)){
+                        minimum = false;
+                        break;
+                    }
+                }
+                if(minimum){
+                    round.add(v);
+                    inRound[v] = true;
+                }
+            }
+
+            // the witness searches do not use stops of the round, so their shortcuts can be found in parallel
+            List<List<Shortcut>> roundShortcuts = pool.submit(() -> round.parallelStream()
+                    .map(v -> findShortcuts(adjacency, inRound, v))
+                    .toList()).join();
+
+            for(int i = 0; i < round.size(); i++){
+                int v = round.get(i);
+                rank[v] = nextRank++;
+                contracted[v] = true;
+                inRound[v] = false;
+                upArcs.set(v, new ArrayList<>(adjacency.get(v).entrySet()));
+                for(int w : adjacency.get(v).keySet()){
+                    adjacency.get(w).remove(v);
+                    contractedNeighbours[w]++;
+                    stale[w] = true;
+                }
+                for(Shortcut shortcut : roundShortcuts.get(i)){
+                    Arc arc = adjacency.get(shortcut.from).get(shortcut.to);
+                    if(arc != null && arc.cost <= shortcut.cost){ continue; } // an arc as good exists, maybe added by another stop of the round
+                    arc = new Arc(shortcut.cost, -1, v);
+                    adjacency.get(shortcut.from).put(shortcut.to, arc);
+                    adjacency.get(shortcut.to).put(shortcut.from, arc);
+                    shortcuts++;
+                }
+                adjacency.set(v, null);
+            }
+        }
+        numShortcuts = shortcuts;
+
+        // upward graph in compressed arrays
+        upOffsets = new int[numStops + 1];
+        for(int v = 0; v < numStops; v++){
+            upOffsets[v + 1] = upOffsets[v] + upArcs.get(v).size();
+        }
+        int numArcs = upOffsets[numStops];
+        upSources = new int[numArcs];
+        upTargets = new int[numArcs];
+        upCosts = new double[numArcs];
+        upEdges = new int[numArcs];
+        upMiddles = new int[numArcs];
+        for(int v = 0; v < numStops; v++){
+            int arc = upOffsets[v];
+            for(Map.Entry<Integer, Arc> entry : upArcs.get(v)){
+                upSources[arc] = v;
+                upTargets[arc] = entry.getKey();
+                upCosts[arc] = entry.getValue().cost;
+                upEdges[arc] = entry.getValue().edge;
+                upMiddles[arc] = entry.getValue().middle;
+                arc++;
+            }
+        }
+        preprocessingTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Create the graph to contract, with the minimum cost of the usable transport types of each route
+     * @param criteria PathCriteria the path criteria
+     * @return List<Map<Integer, Arc>> the arcs of each stop by neighbour
+     */
+    private List<Map<Integer, Arc>> initAdjacency(PathCriteria criteria) {
+        int numStops = snapshot.numStops();
+        List<Map<Integer, Arc>> adjacency = new ArrayList<>(numStops);
+        for(int v = 0; v < numStops; v++){
+            adjacency.add(new HashMap<>());
+        }
+        double[] edgeCosts = MinimumCostTable.computeCosts(snapshot, userConfiguration, criteria, transportMask);
+        for(int edge = 0; edge < snapshot.numEdges(); edge++){
+            double cost = edgeCosts[edge];
+            if(Double.isNaN(cost)){ continue; } // Skip edge, disabled or no usable transport type
+            int u = snapshot.edgeSource(edge);
+            int w = snapshot.edgeTarget(edge);
+            if(u == w){ continue; }
+            if(adjacency.get(u).containsKey(w) && adjacency.get(u).get(w).cost <= cost){ continue; }
+            Arc arc = new Arc(cost, edge, -1);
+            adjacency.get(u).put(w, arc);
+            adjacency.get(w).put(u, arc);
+        }
+        return adjacency;
+    }
+
+    /**
+     * Find the shortcuts needed to contract a stop, the graph is not changed
+     * @param adjacency List<Map<Integer, Arc>> the arcs of each remaining stop by neighbour
+     * @param excluded boolean[] the stops the witness paths cannot use
+     * @param v int the stop to contract
+     * @return List<Shortcut> the shortcuts between pairs of neighbours with no witness path
+     */
+    private static List<Shortcut> findShortcuts(List<Map<Integer, Arc>> adjacency, boolean[] excluded, int v) {
+        List<Shortcut> shortcuts = new ArrayList<>();
+        List<Map.Entry<Integer, Arc>> neighbours = new ArrayList<>(adjacency.get(v).entrySet());
+        for(int i = 0; i < neighbours.size(); i++){
+            int u = neighbours.get(i).getKey();
+            double toU = neighbours.get(i).getValue().cost;
+            double maxCost = 0.0;
+            for(int j = i + 1; j < neighbours.size(); j++){
+                maxCost = Math.max(maxCost, toU + neighbours.get(j).getValue().cost);
+            }
+            if(i + 1 == neighbours.size()){ break; }
+
+            Map<Integer, Double> witness = witnessSearch(adjacency, excluded, u, v, maxCost);
+            for(int j = i + 1; j < neighbours.size(); j++){
+                int w = neighbours.get(j).getKey();
+                double viaV = toU + neighbours.get(j).getValue().cost;
+                if(witness.getOrDefault(w, Double.POSITIVE_INFINITY) > viaV){
+                    shortcuts.add(new Shortcut(u, w, viaV));
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Dijkstra search from a stop without the contracted stop, limited by cost and number of settled stops
+     * @param adjacency List<Map<Integer, Arc>> the arcs of each remaining stop by neighbour
+     * @param excluded boolean[] the stops the search cannot use
+     * @param origin int the origin stop
+     * @param v int the stop being contracted
+     * @param maxCost double the search stops after this cost
+     * @return Map<Integer, Double> the cost of the stops reached
+     */
+    private static Map<Integer, Double> witnessSearch(List<Map<Integer, Arc>> adjacency, boolean[] excluded, int origin, int v, double maxCost) {
+        Map<Integer, Double> cost = new HashMap<>();
+        Set<Integer> settled = new HashSet<>();
+        PriorityQueue<Map.Entry<Integer, Double>> unvisited = new PriorityQueue<>(Map.Entry.comparingByValue());
+        cost.put(origin, 0.0);
+        unvisited.add(Map.entry(origin, 0.0));
+
+        while(!unvisited.isEmpty() && settled.size() < MAX_WITNESS_SETTLED){
+            Map.Entry<Integer, Double> current = unvisited.poll();
+            if(current.getValue() > maxCost){ break; }
+            if(!settled.add(current.getKey())){ continue; } // outdated entry
+            for(Map.Entry<Integer, Arc> arc : adjacency.get(current.getKey()).entrySet()){
+                int w = arc.getKey();
+                if(w == v || excluded[w]){ continue; }
+                double newCost = current.getValue() + arc.getValue().cost;
+                if(newCost < cost.getOrDefault(w, Double.POSITIVE_INFINITY)){
+                    cost.put(w, newCost);
+                    unvisited.add(Map.entry(w, newCost));
+                }
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Get the routing snapshot the hierarchy was built for
+     * @return RoutingSnapshot the routing snapshot
+     */
+    public RoutingSnapshot getSnapshot() { return snapshot; }
+
+    /**
+     * Get the number of shortcuts added by the contraction
+     * @return int the number of shortcuts
+     */
+    public int getNumShortcuts() { return numShortcuts; }
+
+    /**
+     * Get the preprocessing time
+     * @return long the preprocessing time in nanoseconds
+     */
+    public long getPreprocessingTime() { return preprocessingTime; }
+
+    /**
+     * Get the contraction order of a stop
+     * @param v int the stop id
+     * @return int the rank, stops contracted later have higher ranks
+     */
+    public int rank(int v) { return rank[v]; }
+
+    /**
+     * Find the less cost path between two stops with a bidirectional upward search, unpacking the shortcuts of the path
+     * @param costStrategy CostStrategy the cost strategy the hierarchy was built for
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id
+     * @return PathResult the path found and its associated information
+     * @throws IllegalStateException if there is no path to the destination
+     */
+    public PathResult findLessCostPath(CostStrategy costStrategy, int origin, int destination) throws IllegalStateException {
+        // a workspace for each direction, the predecessor edge of a stop is the upward arc that reached it
+        SearchWorkspace[] searches = { SearchWorkspace.acquire(snapshot.numStops()), SearchWorkspace.acquire(snapshot.numStops()) };
+        List<Integer> edges = new ArrayList<>();
+        try{
+            searches[0].setOrigin(origin, 0.0);
+            searches[1].setOrigin(destination, 0.0);
+            searches[0].heap().insert(origin, 0.0);
+            searches[1].heap().insert(destination, 0.0);
+
+            double best = Double.POSITIVE_INFINITY;
+            int meeting = -1;
+            while(true){
+                // each search stops when it cannot improve the best path
+                boolean forward = !searches[0].heap().isEmpty() && searches[0].heap().peekKey() < best;
+                boolean backward = !searches[1].heap().isEmpty() && searches[1].heap().peekKey() < best;
+                if(!forward && !backward){ break; }
+                int d = forward && (!backward || searches[0].heap().peekKey() <= searches[1].heap().peekKey()) ? 0 : 1;
+                SearchWorkspace search = searches[d];
+
+                int current = search.heap().poll();
+                if(search.cost(current) + searches[1 - d].cost(current) < best){
+                    best = search.cost(current) + searches[1 - d].cost(current);
+                    meeting = current;
+                }
+                for(int arc = upOffsets[current]; arc < upOffsets[current + 1]; arc++){
+                    int w = upTargets[arc];
+                    double newCost = search.cost(current) + upCosts[arc];
+                    if(newCost < search.cost(w)){
+                        search.update(w, newCost, arc, -1);
+                        search.heap().insertOrDecreaseKey(w, newCost);
+                    }
+                }
+            }
+            if(meeting == -1){
+                throw new IllegalStateException("No path found between the origin and the destination.");
+            }
+
+            // origin to meeting stop, the arcs go upward
+            Deque<Integer> forwardArcs = new ArrayDeque<>();
+            for(int v = meeting; v != origin; v = upSources[searches[0].predecessorEdge(v)]){
+                forwardArcs.push(searches[0].predecessorEdge(v));
+            }
+            while(!forwardArcs.isEmpty()){
+                int arc = forwardArcs.pop();
+                unpack(upSources[arc], arc, false, edges);
+            }
+            // meeting stop to destination, the arcs go downward
+            for(int v = meeting; v != destination; v = upSources[searches[1].predecessorEdge(v)]){
+                int arc = searches[1].predecessorEdge(v);
+                unpack(upSources[arc], arc, true, edges);
+            }
+        }finally{
+            searches[1].release();
+            searches[0].release();
+        }
+
+        int[] pathEdges = new int[edges.size()];
+        int[] pathStops = new int[edges.size() + 1];
+        pathStops[0] = origin;
+        for(int i = 0; i < pathEdges.length; i++){
+            pathEdges[i] = edges.get(i);
+            pathStops[i + 1] = snapshot.opposite(pathStops[i], pathEdges[i]);
+        }
+        return PathUtils.getPathResult(snapshot, userConfiguration, costStrategy, transportMask, pathStops, pathEdges);
+    }
+
+    /**
+     * Compute the less cost from every origin to every destination with buckets: the upward search from each
+     * destination leaves its cost in the bucket of every stop it reaches, then the upward search from each origin
+     * combines its cost to every reached stop with the bucket entries of that stop. The searches run in parallel.
+     * @param origins int[] the origin stop ids
+     * @param destinations int[] the destination stop ids
+     * @param pool ForkJoinPool the pool to run the searches
+     * @return double[][] the cost from origins[i] to destinations[j] in [i][j], infinity if there is no path
+     */
+    public double[][] lessCostMatrix(int[] origins, int[] destinations, ForkJoinPool pool) {
+        int numStops = snapshot.numStops();
+        // routes can be used in both directions, the backward upward search is the same as the forward one
+        UpwardSearchSpace[] destinationSpaces = pool.submit(() -> Arrays.stream(destinations).parallel()
+                .mapToObj(this::upwardSearch).toArray(UpwardSearchSpace[]::new)).join();
+
+        int[] bucketOffsets = new int[numStops + 1];
+        for(UpwardSearchSpace space : destinationSpaces){
+            for(int i = 0; i < space.size; i++){
+                bucketOffsets[space.stops[i] + 1]++;
+            }
+        }
+        for(int v = 0; v < numStops; v++){
+            bucketOffsets[v + 1] += bucketOffsets[v];
+        }
+        int[] bucketDestinations = new int[bucketOffsets[numStops]];
+        double[] bucketCosts = new double[bucketOffsets[numStops]];
+        int[] next = Arrays.copyOf(bucketOffsets, numStops);
+        for(int j = 0; j < destinationSpaces.length; j++){
+            UpwardSearchSpace space = destinationSpaces[j];
+            for(int i = 0; i < space.size; i++){
+                int entry = next[space.stops[i]]++;
+                bucketDestinations[entry] = j;
+                bucketCosts[entry] = space.costs[i];
+            }
+        }
+
+        return pool.submit(() -> Arrays.stream(origins).parallel().mapToObj(origin -> {
+            double[] costs = new double[destinations.length];
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+            UpwardSearchSpace space = upwardSearch(origin);
+            for(int i = 0; i < space.size; i++){
+                int v = space.stops[i];
+                for(int entry = bucketOffsets[v]; entry < bucketOffsets[v + 1]; entry++){
+                    double cost = space.costs[i] + bucketCosts[entry];
+                    if(cost < costs[bucketDestinations[entry]]){
+                        costs[bucketDestinations[entry]] = cost;
+                    }
+                }
+            }
+            return costs;
+        }).toArray(double[][]::new)).join();
+    }
+
+    /**
+     * Stops reached by an upward search and their costs
+     */
+    private static class UpwardSearchSpace {
+        /** The stops reached, in settle order */
+        final int[] stops;
+        /** The cost of each stop reached */
+        final double[] costs;
+        /** Number of stops reached */
+        final int size;
+
+        UpwardSearchSpace(int[] stops, double[] costs, int size) {
+            this.stops = stops;
+            this.costs = costs;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Search every stop reachable from a stop by upward arcs, with the search workspace of the thread
+     * @param source int the stop id
+     * @return UpwardSearchSpace the stops reached and their costs
+     */
+    private UpwardSearchSpace upwardSearch(int source) {
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            IndexedMinHeap heap = workspace.heap();
+            int[] stops = new int[16];
+            double[] costs = new double[16];
+            int size = 0;
+            workspace.setOrigin(source, 0.0);
+            heap.insert(source, 0.0);
+            while(!heap.isEmpty()){
+                int current = heap.poll();
+                if(size == stops.length){
+                    stops = Arrays.copyOf(stops, size * 2);
+                    costs = Arrays.copyOf(costs, size * 2);
+                }
+                stops[size] = current;
+                costs[size++] = workspace.cost(current);
+                for(int arc = upOffsets[current]; arc < upOffsets[current + 1]; arc++){
+                    int w = upTargets[arc];
+                    double newCost = workspace.cost(current) + upCosts[arc];
+                    if(newCost < workspace.cost(w)){
+                        workspace.update(w, newCost, -1, -1);
+                        heap.insertOrDecreaseKey(w, newCost);
+                    }
+                }
+            }
+            return new UpwardSearchSpace(stops, costs, size);
+        }finally{
+            workspace.release();
+        }
+    }
+
+    /**
+     * Add the snapshot edges of an upward arc to a path, replacing shortcuts by the arcs of their contracted stop
+     * @param from int the stop of the arc with the lower rank
+     * @param arc int the upward arc
+     * @param reversed boolean true to add the edges from the arc target down to the stop
+     * @param edges List<Integer> the path edges
+     */
+    private void unpack(int from, int arc, boolean reversed, List<Integer> edges) {
+        if(upEdges[arc] != -1){
+            edges.add(upEdges[arc]);
+            return;
+        }
+        int middle = upMiddles[arc];
+        int toFrom = findUpArc(middle, from);
+        int toTarget = findUpArc(middle, upTargets[arc]);
+        if(!reversed){
+            unpack(middle, toFrom, true, edges);
+            unpack(middle, toTarget, false, edges);
+        }else{
+            unpack(middle, toTarget, true, edges);
+            unpack(middle, toFrom, false, edges);
+        }
+    }
+
+    /**
+     * Find the upward arc between two stops
+     * @param v int the stop with the lower rank
+     * @param w int the stop with the higher rank
+     * @return int the upward arc
+     * @throws IllegalStateException if there is no arc
+     */
+    private int findUpArc(int v, int w) throws IllegalStateException {
+        for(int arc = upOffsets[v]; arc < upOffsets[v + 1]; arc++){
+            if(upTargets[arc] == w){ return arc; }
+        }
+        throw new IllegalStateException("Shortcut without the arcs of its contracted stop.");
+    }
+}
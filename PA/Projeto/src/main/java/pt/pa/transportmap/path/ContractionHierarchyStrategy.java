@@ -0,0 +1,113 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Contraction hierarchies class to find the less cost path between two vertices.
+ * A contraction hierarchy is built once per transport mask (see ContractionHierarchy) and reused by the following
+ * queries, until the transport map or the user configuration changes.
+ * Contraction needs non-negative costs, with negative costs (sustainability) the query is done by LooplessStrategy.
+ */
+public class ContractionHierarchyStrategy implements PathStrategy {
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+    /** The pool to build the contraction hierarchies */
+    private final ForkJoinPool pool;
+    /** Contraction hierarchies by transport mask */
+    private final PreprocessingCache<ContractionHierarchy> hierarchies;
+
+    /**
+     * Constructor for ContractionHierarchyStrategy, the hierarchies are built on the common fork-join pool
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public ContractionHierarchyStrategy(CostStrategy costStrategy){
+        this(costStrategy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for ContractionHierarchyStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     * @param pool ForkJoinPool the pool to build the contraction hierarchies
+     * @throws IllegalArgumentException if the pool is null
+     */
+    public ContractionHierarchyStrategy(CostStrategy costStrategy, ForkJoinPool pool) throws IllegalArgumentException {
+        if(pool == null){
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.costStrategy = costStrategy;
+        this.pool = pool;
+        this.hierarchies = new PreprocessingCache<>();
+    }
+
+    /**
+     * Get the contraction hierarchy of a graph and transport types, building it if the graph or the user configuration changed
+     * @param graph TransportMap the transport map
+     * @param transportList EnumSet<TransportType> the transport types that can be used in the path
+     * @return ContractionHierarchy the contraction hierarchy
+     * @throws IllegalArgumentException if the costs of the transport types are negative
+     */
+    public ContractionHierarchy getContractionHierarchy(TransportMap graph, EnumSet<TransportType> transportList) throws IllegalArgumentException {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+        return hierarchies.get(snapshot, userConfiguration, RoutingSnapshot.transportMask(transportList),
+                mask -> new ContractionHierarchy(snapshot, userConfiguration, costStrategy.getPathCriteria(), mask, pool));
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(graph, transportList, origin, destination);
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+
+        if(!graph.getMinimumCostTable().hasNonNegativeCosts(costStrategy.getPathCriteria(), RoutingSnapshot.transportMask(transportList))){
+            return new LooplessStrategy(costStrategy).findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+        }
+        ContractionHierarchy hierarchy = getContractionHierarchy(graph, transportList);
+        snapshot = hierarchy.getSnapshot(); // the graph may have changed meanwhile
+        return hierarchy.findLessCostPath(costStrategy, snapshot.id(origin), snapshot.id(destination));
+    }
+
+    /**
+     * Compute the less cost from every origin to every destination with the bucket based search of the contraction
+     * hierarchy, or the loopless searches of a TravelMatrix if the costs are negative
+     * @param graph TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origins List<Vertex<Stop>> the origin stops
+     * @param destinations List<Vertex<Stop>> the destination stops
+     * @return double[][] the cost from origins[i] to destinations[j] in [i][j], infinity if there is no path
+     * @throws IllegalArgumentException if a parameter or stop is null or if no transports are provided
+     * @throws InvalidVertexException if a stop is not in the graph
+     */
+    @Override
+    public double[][] findLessCostMatrix(TransportMap graph, EnumSet<TransportType> transportList, List<Vertex<Stop>> origins, List<Vertex<Stop>> destinations) throws IllegalArgumentException, InvalidVertexException {
+        if(graph == null){
+            throw new IllegalArgumentException("Graph must not be null.");
+        }
+        if(transportList == null || transportList.isEmpty()){
+            throw new IllegalArgumentException("No transports selected.");
+        }
+        if(!graph.getMinimumCostTable().hasNonNegativeCosts(costStrategy.getPathCriteria(), RoutingSnapshot.transportMask(transportList))){
+            return new TravelMatrix(pool).computeCosts(graph, costStrategy.getPathCriteria(), transportList, origins, destinations);
+        }
+        ContractionHierarchy hierarchy = getContractionHierarchy(graph, transportList);
+        RoutingSnapshot snapshot = hierarchy.getSnapshot(); // the graph may have changed meanwhile
+        return hierarchy.lessCostMatrix(TravelMatrix.stopIds(snapshot, origins), TravelMatrix.stopIds(snapshot, destinations), pool);
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, graph, transportList, origin, destination, intermediaryVertices);
+    }
+}
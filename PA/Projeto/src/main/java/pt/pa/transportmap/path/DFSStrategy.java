@@ -1,17 +1,18 @@
 package pt.pa.transportmap.path;
 
-import com.brunomnsilva.smartgraph.graph.Edge;
 import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
 import com.brunomnsilva.smartgraph.graph.Vertex;
 import pt.pa.transportmap.path.cost.CostStrategy;
 import pt.pa.transportmap.*;
-import pt.pa.transportmap.userconfiguration.UserConfiguration;
 
 import java.util.*;
 
+/**
+ * DFS class to find a low cost path in a graph, each edge is relaxed in both directions when one of its stops is visited.
+ * It is not exact, a stop is never visited again after its cost decreases. The predecessors are kept a tree: a stop
+ * is never relaxed from one of its successors, so a route with a negative cost is not used there and back.
+ */
 public class DFSStrategy implements PathStrategy {
-    /** The transport map graph */
-    TransportMap graph;
     /** The cost strategy to use */
     CostStrategy costStrategy;
 
@@ -21,143 +22,97 @@ public class DFSStrategy implements PathStrategy {
      */
     public DFSStrategy(CostStrategy costStrategy){
         this.costStrategy = costStrategy;
-        this.graph = null;
     }
 
     /**
      * Find the less cost path using a modified DFS algorithm
-     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
-     * @param origin Vertex<Stop> the origin vertex
-     * @return HashMap< Vertex<Stop>, PathSegmentInfo > a map with the less cost path to each vertex
-     * @throws IllegalStateException if graph contains negative-weight cycles
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param minimumCostTable MinimumCostTable the minimum edge costs of the snapshot
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param origin int the origin stop id
+     * @param workspace SearchWorkspace the workspace, filled with the less cost path to each vertex
      */
-    private HashMap<Vertex<Stop>, PathSegmentInfo> lessCostPath (EnumSet<TransportType> transportList, Vertex<Stop> origin) throws IllegalStateException {
-        HashMap<Vertex<Stop>, PathSegmentInfo> result = new HashMap<>();
+    private void lessCostPath (RoutingSnapshot snapshot, MinimumCostTable minimumCostTable, int transportMask, int origin, SearchWorkspace workspace) {
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        double[] edgeCosts = minimumCostTable.costs(criteria, transportMask);
+        byte[] edgeTypes = minimumCostTable.types(criteria, transportMask);
 
-        // for each vertex in the graph, assign infinite cost and null predecessor
-        for (Vertex<Stop> vertex : graph.vertices()) {
-            result.put(vertex, new PathSegmentInfo());
-        }
-        // set origin cost to 0
-        result.get(origin).getRouteInfo().setSustainability(0.0).setDuration(0.0).setDistance(0.0);
+        // every vertex not reached has infinite cost and no predecessor, set origin cost to 0
+        workspace.setOrigin(origin, 0.0);
 
-        // dfs
-        Set<Vertex<Stop>> visited = new HashSet<>();
-        Stack<Vertex<Stop>> stack = new Stack<>();
+        // dfs, the settled marks of the workspace are the visited vertices
+        Deque<Integer> stack = new ArrayDeque<>();
 
-        visited.add(origin); // mark as visited
+        workspace.settle(origin); // mark as visited
         stack.push(origin);
 
-        UserConfiguration userConfiguration = graph.getUserConfiguration();
-
         while(!stack.isEmpty()){
-            Vertex<Stop> w = stack.pop();
-            for(Edge<Route, Stop> edge : graph.incidentEdges(w)){
-                if(userConfiguration.isRouteDisabled(edge)){
-                    continue; // Skip edge
-                }
-
+            int w = stack.pop();
+            for(int arc = snapshot.arcStart(w); arc < snapshot.arcEnd(w); arc++){
+                int edge = snapshot.arcEdge(arc);
                 // Find minimum transport cost for the edge
-                Map.Entry<TransportType, Double> minimumTransportEntry = PathUtils.getMinimumTransportCost(graph, transportList, edge, costStrategy);
-                TransportType minType = minimumTransportEntry.getKey();
-                double minTransportCost = minimumTransportEntry.getValue();
-                if (minType == null){ continue; } // Skip edge if no valid transport type
+                double minTransportCost = edgeCosts[edge];
+                if (Double.isNaN(minTransportCost)){ continue; } // Skip edge if disabled or no valid transport type
 
-                for(Vertex<Stop> u : edge.vertices()) {
+                for(int u : new int[]{ snapshot.edgeSource(edge), snapshot.edgeTarget(edge) }) {
                     // get opposite
-                    Vertex<Stop> v = graph.opposite(u, edge);
-                    RouteInfo uRouteInfo = result.get(u).getRouteInfo();
-                    RouteInfo vRouteInfo = result.get(v).getRouteInfo();
+                    int v = snapshot.opposite(u, edge);
 
-                    double newCost = costStrategy.getCost(uRouteInfo) + minTransportCost + 1000; // fix for negative cycle in corroios-charneca
+                    double newCost = workspace.cost(u) + minTransportCost;
 
-                    if (newCost < costStrategy.getCost(vRouteInfo)) {
-                        costStrategy.setCost(vRouteInfo, newCost - 1000); // due to fix above
-                        PathUtils.setOtherCosts(uRouteInfo, vRouteInfo, edge.element().getTransportInfo(minType), costStrategy);
-                        result.get(v).setPredecessor(u);
-                        result.get(v).setTransportType(minType);
+                    if (newCost < workspace.cost(v) && !isPredecessor(snapshot, workspace, v, u)) {
+                        workspace.update(v, newCost, edge, edgeTypes[edge]);
                     }
 
-                    if (!visited.contains(v)) {
-                        visited.add(v);
+                    if (!workspace.isSettled(v)) {
+                        workspace.settle(v);
                         stack.push(v);
                     }
                 }
             }
         }
+    }
 
-        return result;
+    /**
+     * Check if a stop is in the path from the origin to another stop
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param workspace SearchWorkspace the workspace with the predecessor of each vertex
+     * @param v int the stop id to find
+     * @param u int the stop id where the path ends
+     * @return true if v is u or one of its predecessors
+     */
+    private static boolean isPredecessor(RoutingSnapshot snapshot, SearchWorkspace workspace, int v, int u) {
+        for (int stop = u; stop != v; stop = snapshot.opposite(stop, workspace.predecessorEdge(stop))) {
+            if (workspace.predecessorEdge(stop) == -1) { return false; } // the origin or not reached
+        }
+        return true;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
     }
 
     @Override
     public PathResult findLessCostPathBetweenTwoVertices(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
         PathUtils.validateLessCostPathBetweenTwoVerticesParameters(graph, transportList, origin, destination);
-        this.graph = graph;
+        MinimumCostTable minimumCostTable = graph.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
         // get DFS result
-        HashMap<Vertex<Stop>, PathSegmentInfo> result = lessCostPath(transportList, origin);
-
-        // Extract path and totals
-        List<Vertex<Stop>> path = new LinkedList<>();
-        List<TransportType> pathTransportList = new LinkedList<>();
-        List<RouteInfo> pathInfo = new LinkedList<>();
-
-        // get path
-        Vertex<Stop> current = destination;
-        while (current != null) {
-            path.add(0, current);
-            if (result.get(current).getPredecessor() != null) {
-                pathTransportList.add(0, result.get(current).getTransportType());
-                pathInfo.add(0, result.get(current).getRouteInfo());
-            }
-            current = result.get(current).getPredecessor();
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            lessCostPath(snapshot, minimumCostTable, RoutingSnapshot.transportMask(transportList), originId, workspace);
+            // Extract path and totals
+            return PathUtils.getPathResult(snapshot, minimumCostTable.getUserConfiguration(), costStrategy, workspace, originId, destinationId);
+        }finally{
+            workspace.release();
         }
-
-        // get totals
-        RouteInfo destinationInfo = result.get(destination).getRouteInfo();
-        return new PathResult(destinationInfo.getSustainability(),
-                destinationInfo.getDuration(),
-                destinationInfo.getDistance(),
-                path, pathTransportList, pathInfo);
     }
 
     @Override
     public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
-        if(intermediaryVertices == null || intermediaryVertices.length == 0){
-            return findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
-        }
-
-        PathUtils.validateLessCostPathBetweenTwoVerticesPersonalizedParameters(graph, transportList, origin, destination, intermediaryVertices);
-        this.graph = graph;
-        List<Vertex<Stop>> fullPath = new LinkedList<>();
-        List<TransportType> fullPathTransportList = new LinkedList<>();
-        List<RouteInfo> fullPathInfo = new LinkedList<>();
-
-        Vertex<Stop> u = origin;
-        // get best u-v path
-        for (Vertex<Stop> v : intermediaryVertices) {
-            PathResult partialResult = findLessCostPathBetweenTwoVertices(graph, transportList, u, v);
-            // skip v in path, add in next iteration
-            fullPath.addAll(partialResult.getPath().subList(0, partialResult.getPath().size() - 1));
-            fullPathTransportList.addAll(partialResult.getTransportList());
-            fullPathInfo.addAll(partialResult.getPathInfo());
-            // set u as v for next iteration
-            u = v;
-        }
-
-        PathResult finalResult = findLessCostPathBetweenTwoVertices(graph, transportList, u, destination);
-        fullPath.addAll(finalResult.getPath());
-        fullPathTransportList.addAll(finalResult.getTransportList());
-        fullPathInfo.addAll(finalResult.getPathInfo());
-
-        RouteInfo totalRouteInfo = new RouteInfo(
-                finalResult.getTotalSustainability(),
-                finalResult.getTotalDuration(),
-                finalResult.getTotalDistance()
-        );
-
-        return new PathResult(totalRouteInfo.getSustainability(),
-                totalRouteInfo.getDuration(),
-                totalRouteInfo.getDistance(),
-                fullPath, fullPathTransportList, fullPathInfo);
+        return PathUtils.findLessCostPathPersonalized(this, graph, transportList, origin, destination, intermediaryVertices);
     }
 }
@@ -0,0 +1,370 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Delta-stepping class to find the less cost path in a graph with non-negative edge values, relaxing edges in parallel.
+ * Vertices are kept in buckets of width delta by cost. The vertices of the lowest bucket relax their light edges
+ * (cost up to delta) in parallel until the bucket stays empty, then relax their heavy edges in parallel once.
+ * Costs are updated with compare-and-set, without locks, and each parallel task keeps the vertices it lowers in its
+ * own int buffer, merged into cyclic int buckets (a vertex is never more than the maximum edge cost above the current
+ * bucket). The predecessor edges are chosen after the search, among the
+ * edges whose cost matches the final costs.
+ * Routes and transport types are filtered as in DijkstraStrategy. With negative costs the query is done by LooplessStrategy.
+ */
+public class DeltaSteppingStrategy implements PathStrategy {
+    /** Minimum number of vertices relaxed in parallel, smaller sets are relaxed by the calling thread */
+    private static final int PARALLEL_THRESHOLD = 256;
+    /** Minimum number of vertices relaxed by each parallel task */
+    private static final int MIN_TASK_VERTICES = 64;
+    /** Maximum number of buckets, the bucket width is widened for larger edge costs */
+    private static final int MAX_BUCKETS = 1 << 16;
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+    /** The bucket width, 0 to use the mean edge cost */
+    private final double delta;
+    /** The pool to relax the edges */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for DeltaSteppingStrategy, with the mean edge cost as bucket width, on the common fork-join pool
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public DeltaSteppingStrategy(CostStrategy costStrategy){
+        this(costStrategy, 0.0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for DeltaSteppingStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     * @param delta double the bucket width, 0 to use the mean edge cost
+     * @param pool ForkJoinPool the pool to relax the edges
+     * @throws IllegalArgumentException if delta is negative or the pool is null
+     */
+    public DeltaSteppingStrategy(CostStrategy costStrategy, double delta, ForkJoinPool pool) throws IllegalArgumentException {
+        if(delta < 0 || Double.isNaN(delta)){
+            throw new IllegalArgumentException("Delta must not be negative.");
+        }
+        if(pool == null){
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.costStrategy = costStrategy;
+        this.delta = delta;
+        this.pool = pool;
+    }
+
+    /**
+     * Lower the cost of a vertex if the new cost is lower, without locks
+     * @param cost AtomicLongArray the cost of each vertex, as double bits
+     * @param v int the vertex
+     * @param newCost double the new cost
+     * @return true if the cost was lowered
+     */
+    private static boolean lowerCost(AtomicLongArray cost, int v, double newCost) {
+        long current = cost.get(v);
+        while(newCost < Double.longBitsToDouble(current)){
+            if(cost.compareAndSet(v, current, Double.doubleToRawLongBits(newCost))){
+                return true;
+            }
+            current = cost.get(v);
+        }
+        return false;
+    }
+
+    /**
+     * Vertices found by one worker, in a growing int array
+     */
+    private static class VertexBuffer {
+        /** The vertices, maybe repeated */
+        int[] vertices;
+        /** Number of vertices */
+        int size;
+
+        VertexBuffer(int capacity) {
+            vertices = new int[Math.max(capacity, 16)];
+        }
+
+        /**
+         * Add a vertex at the end
+         * @param v int the vertex
+         */
+        void add(int v) {
+            if(size == vertices.length){
+                vertices = Arrays.copyOf(vertices, size * 2);
+            }
+            vertices[size++] = v;
+        }
+    }
+
+    /**
+     * Relax the light or heavy edges of a range of vertices, keeping the vertices whose cost was lowered in a buffer
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the cost of each edge, NaN if the edge cannot be used
+     * @param cost AtomicLongArray the cost of each vertex, as double bits
+     * @param vertices int[] the vertices
+     * @param from int the first vertex index, inclusive
+     * @param to int the last vertex index, exclusive
+     * @param light boolean true to relax the edges with cost up to delta, false for the others
+     * @param bucketWidth double the bucket width
+     * @return VertexBuffer the vertices whose cost was lowered, maybe repeated
+     */
+    private static VertexBuffer relaxRange(RoutingSnapshot snapshot, double[] edgeCosts, AtomicLongArray cost, int[] vertices, int from, int to, boolean light, double bucketWidth) {
+        VertexBuffer lowered = new VertexBuffer(to - from);
+        for(int i = from; i < to; i++){
+            int v = vertices[i];
+            double vCost = Double.longBitsToDouble(cost.get(v));
+            for(int arc = snapshot.arcStart(v); arc < snapshot.arcEnd(v); arc++){
+                double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                if(Double.isNaN(edgeCost) || (edgeCost <= bucketWidth) != light){ continue; }
+                int w = snapshot.arcTarget(arc);
+                if(lowerCost(cost, w, vCost + edgeCost)){
+                    lowered.add(w);
+                }
+            }
+        }
+        return lowered;
+    }
+
+    /**
+     * Relax the light or heavy edges of a set of vertices, in parallel if the set is large. Each task keeps the
+     * vertices it lowers in its own buffer, so no vertex is boxed or shared between threads.
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the cost of each edge, NaN if the edge cannot be used
+     * @param cost AtomicLongArray the cost of each vertex, as double bits
+     * @param vertices int[] the vertices
+     * @param size int the number of vertices
+     * @param light boolean true to relax the edges with cost up to delta, false for the others
+     * @param bucketWidth double the bucket width
+     * @return VertexBuffer[] the vertices whose cost was lowered by each task, maybe repeated
+     */
+    private VertexBuffer[] relax(RoutingSnapshot snapshot, double[] edgeCosts, AtomicLongArray cost, int[] vertices, int size, boolean light, double bucketWidth) {
+        if(size < PARALLEL_THRESHOLD){
+            return new VertexBuffer[]{ relaxRange(snapshot, edgeCosts, cost, vertices, 0, size, light, bucketWidth) };
+        }
+        int tasks = Math.min(4 * pool.getParallelism(), size / MIN_TASK_VERTICES);
+        return pool.submit(() -> IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> relaxRange(snapshot, edgeCosts, cost, vertices, (int) ((long) size * task / tasks), (int) ((long) size * (task + 1) / tasks), light, bucketWidth))
+                .toArray(VertexBuffer[]::new)).join();
+    }
+
+    /**
+     * Find the less cost to every vertex (or until the destination cost is final)
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the cost of each edge, NaN if the edge cannot be used, not negative
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id, the search stops when its cost is final, or -1 to reach every vertex
+     * @return double[] the less cost to each stop, infinity if not reached
+     */
+    private double[] lessCostPath(RoutingSnapshot snapshot, double[] edgeCosts, int origin, int destination) {
+        int numStops = snapshot.numStops();
+        double sum = 0;
+        double maxEdgeCost = 0;
+        int count = 0;
+        for(double edgeCost : edgeCosts){
+            if(!Double.isNaN(edgeCost)){
+                sum += edgeCost;
+                maxEdgeCost = Math.max(maxEdgeCost, edgeCost);
+                count++;
+            }
+        }
+        double bucketWidth = delta != 0 ? delta : count == 0 || sum == 0 ? 1.0 : sum / count;
+        // a vertex is never queued more than the maximum edge cost above the current bucket, so the buckets are cyclic
+        bucketWidth = Math.max(bucketWidth, maxEdgeCost / MAX_BUCKETS);
+        int numBuckets = (int) Math.ceil(maxEdgeCost / bucketWidth) + 1;
+
+        AtomicLongArray cost = new AtomicLongArray(numStops);
+        for(int v = 0; v < numStops; v++){
+            cost.set(v, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+        }
+        cost.set(origin, Double.doubleToRawLongBits(0.0));
+        int[][] buckets = new int[numBuckets][];
+        int[] bucketSizes = new int[numBuckets];
+        for(int i = 0; i < numBuckets; i++){
+            buckets[i] = new int[4];
+        }
+        buckets[0][bucketSizes[0]++] = origin;
+        int queued = 1; // vertices in all buckets, maybe repeated
+        int[] spare = new int[4]; // replaces the bucket being relaxed
+        VertexBuffer settled = new VertexBuffer(16);
+        int[] seen = new int[numStops]; // last phase each vertex was taken from the bucket
+        int[] settledIn = new int[numStops]; // last bucket (+1) each vertex was settled in
+        int phase = 0;
+        long index = 0;
+
+        while(queued > 0){
+            while(bucketSizes[(int) (index % numBuckets)] == 0){ index++; }
+            int slot = (int) (index % numBuckets);
+            settled.size = 0;
+            while(bucketSizes[slot] > 0){
+                // vertices still in this bucket, once per phase
+                phase++;
+                int[] current = buckets[slot];
+                int size = 0;
+                for(int i = 0; i < bucketSizes[slot]; i++){
+                    int v = current[i];
+                    if(seen[v] != phase && bucketIndex(cost, v, bucketWidth) == index){
+                        seen[v] = phase;
+                        current[size++] = v;
+                        if(settledIn[v] != (int) (index + 1)){
+                            settledIn[v] = (int) (index + 1);
+                            settled.add(v);
+                        }
+                    }
+                }
+                queued -= bucketSizes[slot];
+                buckets[slot] = spare;
+                bucketSizes[slot] = 0;
+                queued += addToBuckets(buckets, bucketSizes, cost, relax(snapshot, edgeCosts, cost, current, size, true, bucketWidth), bucketWidth);
+                spare = current;
+            }
+            queued += addToBuckets(buckets, bucketSizes, cost, relax(snapshot, edgeCosts, cost, settled.vertices, settled.size, false, bucketWidth), bucketWidth);
+
+            // the next buckets only have higher costs
+            if(destination != -1 && Double.longBitsToDouble(cost.get(destination)) < (index + 1) * bucketWidth){ break; }
+            index++;
+        }
+
+        double[] result = new double[numStops];
+        for(int v = 0; v < numStops; v++){
+            result[v] = Double.longBitsToDouble(cost.get(v));
+        }
+        return result;
+    }
+
+    /**
+     * Get the index of the bucket of a vertex cost
+     * @param cost AtomicLongArray the cost of each vertex, as double bits
+     * @param v int the vertex
+     * @param bucketWidth double the bucket width
+     * @return long the bucket index
+     */
+    private static long bucketIndex(AtomicLongArray cost, int v, double bucketWidth) {
+        return (long) Math.floor(Double.longBitsToDouble(cost.get(v)) / bucketWidth);
+    }
+
+    /**
+     * Add the vertices whose cost was lowered to the bucket of their cost
+     * @param buckets int[][] the cyclic buckets, by bucket index modulo their number
+     * @param bucketSizes int[] the number of vertices in each bucket
+     * @param cost AtomicLongArray the cost of each vertex, as double bits
+     * @param lowered VertexBuffer[] the vertices whose cost was lowered by each task
+     * @param bucketWidth double the bucket width
+     * @return int the number of vertices added
+     */
+    private static int addToBuckets(int[][] buckets, int[] bucketSizes, AtomicLongArray cost, VertexBuffer[] lowered, double bucketWidth) {
+        int added = 0;
+        for(VertexBuffer buffer : lowered){
+            for(int i = 0; i < buffer.size; i++){
+                int w = buffer.vertices[i];
+                int slot = (int) (bucketIndex(cost, w, bucketWidth) % buckets.length);
+                if(bucketSizes[slot] == buckets[slot].length){
+                    buckets[slot] = Arrays.copyOf(buckets[slot], bucketSizes[slot] * 2);
+                }
+                buckets[slot][bucketSizes[slot]++] = w;
+            }
+            added += buffer.size;
+        }
+        return added;
+    }
+
+    /**
+     * Choose the predecessor edge of each vertex, following from the origin the edges whose cost matches the final costs
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the cost of each edge, NaN if the edge cannot be used
+     * @param cost double[] the less cost to each stop
+     * @param origin int the origin stop id
+     * @return int[] the predecessor edge of each vertex, -1 if not reached
+     */
+    private static int[] predecessorEdges(RoutingSnapshot snapshot, double[] edgeCosts, double[] cost, int origin) {
+        int[] predecessorEdges = new int[snapshot.numStops()];
+        boolean[] reached = new boolean[snapshot.numStops()];
+        Arrays.fill(predecessorEdges, -1);
+        // breadth first, each vertex is queued once so the queue has room for every vertex
+        int[] queue = new int[snapshot.numStops()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = origin;
+        reached[origin] = true;
+        while(head < tail){
+            int v = queue[head++];
+            for(int arc = snapshot.arcStart(v); arc < snapshot.arcEnd(v); arc++){
+                int edge = snapshot.arcEdge(arc);
+                int w = snapshot.arcTarget(arc);
+                // the final cost of w was set as cost[v] + edge cost for some v
+                if(!reached[w] && !Double.isNaN(edgeCosts[edge]) && cost[v] + edgeCosts[edge] == cost[w]){
+                    predecessorEdges[w] = edge;
+                    reached[w] = true;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return predecessorEdges;
+    }
+
+    /**
+     * Find the less cost to every vertex reachable from the origin
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> the transport types that can be used in the paths
+     * @param origin Vertex<Stop> the origin vertex
+     * @return Map<Vertex<Stop>, Double> the less cost to each reachable vertex, including the origin
+     * @throws IllegalArgumentException if a parameter is null or the costs are negative
+     * @throws InvalidVertexException if the origin is not in the graph
+     */
+    public Map<Vertex<Stop>, Double> findLessCostToAllVertices(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin) throws IllegalArgumentException, InvalidVertexException {
+        if(model == null || transportList == null || origin == null){
+            throw new IllegalArgumentException("Graph, transport list and origin cannot be null.");
+        }
+        if(!model.hasVertex(origin)){
+            throw new InvalidVertexException("Origin vertex not in graph.");
+        }
+        RoutingSnapshot snapshot = model.getRoutingSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        if(!model.getMinimumCostTable().hasNonNegativeCosts(costStrategy.getPathCriteria(), transportMask)){
+            throw new IllegalArgumentException("Delta-stepping needs non-negative costs.");
+        }
+        double[] cost = lessCostPath(snapshot, model.getMinimumCostTable().costs(costStrategy.getPathCriteria(), transportMask), snapshot.id(origin), -1);
+        Map<Vertex<Stop>, Double> result = new HashMap<>();
+        for(int v = 0; v < cost.length; v++){
+            if(cost[v] != Double.POSITIVE_INFINITY){
+                result.put(snapshot.vertex(v), cost[v]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        RoutingSnapshot snapshot = model.getRoutingSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        UserConfiguration userConfiguration = model.getUserConfiguration();
+
+        if(!model.getMinimumCostTable().hasNonNegativeCosts(costStrategy.getPathCriteria(), transportMask)){
+            return new LooplessStrategy(costStrategy).findLessCostPathBetweenTwoVertices(model, transportList, origin, destination);
+        }
+        int originId = snapshot.id(origin);
+        double[] edgeCosts = model.getMinimumCostTable().costs(costStrategy.getPathCriteria(), transportMask);
+        double[] cost = lessCostPath(snapshot, edgeCosts, originId, snapshot.id(destination));
+        int[] predecessorEdges = predecessorEdges(snapshot, edgeCosts, cost, originId);
+        return PathUtils.getPathResult(snapshot, userConfiguration, costStrategy, transportMask, predecessorEdges, originId, snapshot.id(destination));
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, model, transportList, origin, destination, intermediaryVertices);
+    }
+}
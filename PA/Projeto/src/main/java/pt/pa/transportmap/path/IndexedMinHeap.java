@@ -0,0 +1,195 @@
+package pt.pa.transportmap.path;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min heap of dense int ids (0 to capacity - 1) ordered by a double key, with decrease-key.
+ * The heap position of each id is kept in an array, so contains and decreaseKey do not need to search the heap.
+ */
+public class IndexedMinHeap {
+    /** Heap of ids */
+    private final int[] heap;
+    /** Position of each id in the heap, -1 if the id is not in the heap */
+    private final int[] positions;
+    /** Key of each id */
+    private final double[] keys;
+    /** Number of ids in the heap */
+    private int size;
+
+    /**
+     * Constructor for IndexedMinHeap
+     * @param capacity int the number of ids, ids must be in [0, capacity)
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public IndexedMinHeap(int capacity) throws IllegalArgumentException {
+        if(capacity < 0){
+            throw new IllegalArgumentException("Capacity must not be negative.");
+        }
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+        size = 0;
+    }
+
+    /**
+     * Check if the heap is empty
+     * @return true if the heap is empty
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Get the number of ids in the heap
+     * @return int the number of ids in the heap
+     */
+    public int size() { return size; }
+
+    /**
+     * Check if an id is in the heap
+     * @param id int the id
+     * @return true if the id is in the heap
+     */
+    public boolean contains(int id) { return positions[id] != -1; }
+
+    /**
+     * Get the key of an id in the heap
+     * @param id int the id
+     * @return double the key
+     * @throws NoSuchElementException if the id is not in the heap
+     */
+    public double getKey(int id) throws NoSuchElementException {
+        if(!contains(id)){
+            throw new NoSuchElementException("Id not in heap.");
+        }
+        return keys[id];
+    }
+
+    /**
+     * Get the minimum key
+     * @return double the minimum key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double peekKey() throws NoSuchElementException {
+        if(isEmpty()){
+            throw new NoSuchElementException("Heap is empty.");
+        }
+        return keys[heap[0]];
+    }
+
+    /**
+     * Insert an id
+     * @param id int the id
+     * @param key double the key
+     * @throws IllegalArgumentException if the id is already in the heap
+     */
+    public void insert(int id, double key) throws IllegalArgumentException {
+        if(contains(id)){
+            throw new IllegalArgumentException("Id already in heap.");
+        }
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Decrease the key of an id in the heap
+     * @param id int the id
+     * @param key double the new key, not greater than the current one
+     * @throws IllegalArgumentException if the id is not in the heap or the key is greater than the current one
+     */
+    public void decreaseKey(int id, double key) throws IllegalArgumentException {
+        if(!contains(id)){
+            throw new IllegalArgumentException("Id not in heap.");
+        }
+        if(key > keys[id]){
+            throw new IllegalArgumentException("Key must not be greater than the current key.");
+        }
+        keys[id] = key;
+        siftUp(positions[id]);
+    }
+
+    /**
+     * Insert an id, or decrease its key if it is already in the heap
+     * @param id int the id
+     * @param key double the key
+     * @throws IllegalArgumentException if the id is in the heap and the key is greater than the current one
+     */
+    public void insertOrDecreaseKey(int id, double key) throws IllegalArgumentException {
+        if(contains(id)){
+            decreaseKey(id, key);
+        }else{
+            insert(id, key);
+        }
+    }
+
+    /**
+     * Remove and return the id with the minimum key
+     * @return int the id with the minimum key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() throws NoSuchElementException {
+        if(isEmpty()){
+            throw new NoSuchElementException("Heap is empty.");
+        }
+        int min = heap[0];
+        positions[min] = -1;
+        if(--size > 0){
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Remove all ids from the heap
+     */
+    public void clear() {
+        for(int i = 0; i < size; i++){
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Move the id at a heap position up until its parent key is not greater
+     * @param position int the heap position
+     */
+    private void siftUp(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        while(position > 0){
+            int parent = (position - 1) >>> 1;
+            if(keys[heap[parent]] <= key){ break; }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    /**
+     * Move the id at a heap position down until its children keys are not smaller
+     * @param position int the heap position
+     */
+    private void siftDown(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        int half = size >>> 1; // positions with children
+        while(position < half){
+            int child = 2 * position + 1;
+            if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]){
+                child++;
+            }
+            if(key <= keys[heap[child]]){ break; }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,326 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.path.cost.CostStrategy;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The k less cost paths without repeated stops between two stops, by Yen's algorithm.
+ * Each new path deviates from the previous one at a spur stop: the path keeps the previous one up to the spur stop
+ * (the root) and continues by the less cost spur path that avoids the root stops and the edges used after the same
+ * root by the paths already found.
+ * A single shortest path tree to the destination is computed. Its costs are exact lower bounds for the A* spur searches
+ * and the tree path of a spur stop is the spur path when it avoids the blocked stops and edges, without a search.
+ * The spur searches of each path run in parallel. The number of paths and the runtime are bounded, when the runtime
+ * is exceeded the paths found so far are returned.
+ * The costs must be non-negative, as in the label setting searches.
+ */
+public class KShortestPaths {
+    /** Maximum number of paths of a query */
+    public static final int MAX_PATHS = 20;
+    /** Default maximum runtime of a query, in milliseconds */
+    public static final long DEFAULT_MAX_RUNTIME_MILLIS = 500;
+
+    /** The cost strategy */
+    private final CostStrategy costStrategy;
+    /** Maximum runtime of a query, in milliseconds */
+    private final long maxRuntimeMillis;
+    /** The pool to run the spur searches */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for KShortestPaths, with the default runtime bound and the common fork-join pool
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public KShortestPaths(CostStrategy costStrategy) {
+        this(costStrategy, DEFAULT_MAX_RUNTIME_MILLIS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for KShortestPaths
+     * @param costStrategy CostStrategy the cost strategy to use
+     * @param maxRuntimeMillis long the maximum runtime of a query, in milliseconds
+     * @param pool ForkJoinPool the pool to run the spur searches
+     * @throws IllegalArgumentException if the cost strategy or the pool are null or the runtime is not positive
+     */
+    public KShortestPaths(CostStrategy costStrategy, long maxRuntimeMillis, ForkJoinPool pool) throws IllegalArgumentException {
+        if(costStrategy == null || pool == null){
+            throw new IllegalArgumentException("Cost strategy and pool cannot be null.");
+        }
+        if(maxRuntimeMillis <= 0){
+            throw new IllegalArgumentException("The maximum runtime must be positive.");
+        }
+        this.costStrategy = costStrategy;
+        this.maxRuntimeMillis = maxRuntimeMillis;
+        this.pool = pool;
+    }
+
+    /**
+     * Find the k less cost paths without repeated stops between two vertices
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @param k int the number of paths, at most MAX_PATHS
+     * @return List<PathResult> the paths found by increasing cost, fewer than k if there are no more paths or the
+     * runtime was exceeded
+     * @throws IllegalArgumentException if a parameter is null, if no transports are provided, if k is out of bounds or
+     * if a usable edge has a negative cost
+     * @throws InvalidVertexException if origin or destination are not in the graph
+     * @throws IllegalStateException if there is no path, or the origin is the destination
+     */
+    public List<PathResult> findKLessCostPaths(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, int k) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        if(k < 1 || k > MAX_PATHS){
+            throw new IllegalArgumentException("The number of paths must be between 1 and " + MAX_PATHS + ".");
+        }
+        long deadline = System.nanoTime() + maxRuntimeMillis * 1_000_000;
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        if(!minimumCostTable.hasNonNegativeCosts(costStrategy.getPathCriteria(), transportMask)){
+            throw new IllegalArgumentException("The k less cost paths need non-negative costs.");
+        }
+        double[] edgeCosts = minimumCostTable.costs(costStrategy.getPathCriteria(), transportMask);
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+
+        ShortestPathTree tree = new ShortestPathTree(snapshot, edgeCosts, transportMask, destinationId);
+        if(Double.isInfinite(tree.cost(originId)) || originId == destinationId){
+            throw new IllegalStateException("No path found between the origin and the destination.");
+        }
+
+        List<Path> found = new ArrayList<>();
+        found.add(treePath(snapshot, tree, originId));
+        PriorityQueue<Path> candidates = new PriorityQueue<>();
+        Set<Path> seen = new HashSet<>(found);
+        while(found.size() < k && System.nanoTime() < deadline){
+            Path previous = found.get(found.size() - 1);
+            List<Path> paths = List.copyOf(found);
+            List<Path> spurPaths = pool.submit(() -> IntStream.range(0, previous.edges.length).parallel()
+                    .mapToObj(i -> spurPath(snapshot, edgeCosts, tree, paths, previous, i, destinationId))
+                    .toList()).join();
+            for(Path path : spurPaths){
+                if(path != null && seen.add(path)){
+                    candidates.add(path);
+                }
+            }
+            if(candidates.isEmpty()){ break; } // no more paths
+            found.add(candidates.poll());
+        }
+
+        List<PathResult> results = new ArrayList<>(found.size());
+        for(Path path : found){
+            results.add(PathUtils.getPathResult(snapshot, minimumCostTable.getUserConfiguration(), costStrategy, transportMask, path.stops, path.edges));
+        }
+        return results;
+    }
+
+    /**
+     * Find the less cost path that deviates from a path at a spur stop, keeping the path up to the spur stop
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param tree ShortestPathTree the shortest path tree of the destination
+     * @param found List<Path> the paths already found
+     * @param previous Path the path to deviate from
+     * @param index int the position of the spur stop in the previous path
+     * @param destination int the destination stop id
+     * @return Path the path found or null if there is none
+     */
+    private static Path spurPath(RoutingSnapshot snapshot, double[] edgeCosts, ShortestPathTree tree, List<Path> found, Path previous, int index, int destination) {
+        int spur = previous.stops[index];
+        boolean[] blockedStops = new boolean[snapshot.numStops()];
+        double rootCost = 0.0;
+        for(int i = 0; i < index; i++){
+            blockedStops[previous.stops[i]] = true;
+            rootCost += edgeCosts[previous.edges[i]];
+        }
+        // the edges after the same root in the paths found
+        int[] blockedEdges = found.stream()
+                .filter(path -> path.edges.length > index && Arrays.equals(path.edges, 0, index, previous.edges, 0, index))
+                .mapToInt(path -> path.edges[index])
+                .toArray();
+
+        int[] spurEdges = isTreePathUsable(snapshot, tree, spur, blockedStops, blockedEdges) ? treeEdges(snapshot, tree, spur)
+                : search(snapshot, edgeCosts, tree, blockedStops, blockedEdges, spur, destination);
+        if(spurEdges == null){ return null; }
+
+        int[] stops = Arrays.copyOf(previous.stops, index + spurEdges.length + 1);
+        int[] edges = Arrays.copyOf(previous.edges, index + spurEdges.length);
+        double cost = rootCost;
+        for(int i = 0; i < spurEdges.length; i++){
+            edges[index + i] = spurEdges[i];
+            stops[index + i + 1] = snapshot.opposite(stops[index + i], spurEdges[i]);
+            cost += edgeCosts[spurEdges[i]];
+        }
+        return new Path(stops, edges, cost);
+    }
+
+    /**
+     * A* search of the spur path, with the tree costs as exact lower bounds of the remaining cost
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param tree ShortestPathTree the shortest path tree of the destination
+     * @param blockedStops boolean[] the stops that can't be used, by stop id
+     * @param blockedEdges int[] the edges that can't be used from the spur stop
+     * @param spur int the spur stop id
+     * @param destination int the destination stop id
+     * @return int[] the edges from the spur stop to the destination or null if there is no path
+     */
+    private static int[] search(RoutingSnapshot snapshot, double[] edgeCosts, ShortestPathTree tree, boolean[] blockedStops, int[] blockedEdges, int spur, int destination) {
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            IndexedMinHeap heap = workspace.heap();
+            workspace.setOrigin(spur, 0.0);
+            heap.insert(spur, tree.cost(spur));
+            while(!heap.isEmpty()){
+                int u = heap.poll();
+                if(u == destination){ break; }
+                workspace.settle(u);
+                for(int arc = snapshot.arcStart(u); arc < snapshot.arcEnd(u); arc++){
+                    int w = snapshot.arcTarget(arc);
+                    int edge = snapshot.arcEdge(arc);
+                    double edgeCost = edgeCosts[edge];
+                    if(Double.isNaN(edgeCost) || blockedStops[w] || workspace.isSettled(w) || Double.isInfinite(tree.cost(w))){ continue; }
+                    if(u == spur && contains(blockedEdges, edge)){ continue; }
+                    double cost = workspace.cost(u) + edgeCost;
+                    if(cost < workspace.cost(w)){
+                        workspace.update(w, cost, edge, -1);
+                        heap.insertOrDecreaseKey(w, cost + tree.cost(w));
+                    }
+                }
+            }
+            if(!workspace.isReached(destination)){ return null; }
+            int length = 0;
+            for(int v = destination; v != spur; v = snapshot.opposite(v, workspace.predecessorEdge(v))){
+                length++;
+            }
+            int[] edges = new int[length];
+            int v = destination;
+            for(int i = length - 1; i >= 0; i--){
+                edges[i] = workspace.predecessorEdge(v);
+                v = snapshot.opposite(v, edges[i]);
+            }
+            return edges;
+        }finally{
+            workspace.release();
+        }
+    }
+
+    /**
+     * Get the edges of the tree path from a stop to the destination, the source of the tree
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param tree ShortestPathTree the shortest path tree of the destination
+     * @param from int the stop id, reached by the tree
+     * @return int[] the edges of the path
+     */
+    private static int[] treeEdges(RoutingSnapshot snapshot, ShortestPathTree tree, int from) {
+        int length = 0;
+        for(int v = from; tree.predecessorEdge(v) != -1; v = snapshot.opposite(v, tree.predecessorEdge(v))){
+            length++;
+        }
+        int[] edges = new int[length];
+        int v = from;
+        for(int i = 0; i < length; i++){
+            edges[i] = tree.predecessorEdge(v);
+            v = snapshot.opposite(v, edges[i]);
+        }
+        return edges;
+    }
+
+    /**
+     * Get the tree path from a stop to the destination, the source of the tree
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param tree ShortestPathTree the shortest path tree of the destination
+     * @param from int the stop id, reached by the tree
+     * @return Path the tree path
+     */
+    private static Path treePath(RoutingSnapshot snapshot, ShortestPathTree tree, int from) {
+        int[] edges = treeEdges(snapshot, tree, from);
+        int[] stops = new int[edges.length + 1];
+        stops[0] = from;
+        for(int i = 0; i < edges.length; i++){
+            stops[i + 1] = snapshot.opposite(stops[i], edges[i]);
+        }
+        return new Path(stops, edges, tree.cost(from));
+    }
+
+    /**
+     * Check if the tree path from a stop avoids the blocked stops and edges, it is then the less cost spur path
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param tree ShortestPathTree the shortest path tree of the destination
+     * @param from int the spur stop id
+     * @param blockedStops boolean[] the stops that can't be used, by stop id
+     * @param blockedEdges int[] the edges that can't be used from the spur stop
+     * @return true if the tree path can be used
+     */
+    private static boolean isTreePathUsable(RoutingSnapshot snapshot, ShortestPathTree tree, int from, boolean[] blockedStops, int[] blockedEdges) {
+        if(Double.isInfinite(tree.cost(from)) || contains(blockedEdges, tree.predecessorEdge(from))){ return false; }
+        for(int v = from; tree.predecessorEdge(v) != -1; ){
+            v = snapshot.opposite(v, tree.predecessorEdge(v));
+            if(blockedStops[v]){ return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Check if an edge is in an array of edges
+     * @param edges int[] the edges
+     * @param edge int the edge id
+     * @return true if the edge is in the array
+     */
+    private static boolean contains(int[] edges, int edge) {
+        for(int e : edges){
+            if(e == edge){ return true; }
+        }
+        return false;
+    }
+
+    /**
+     * A path from the origin, given by its stops and edges, with its cost.
+     * Two paths are equal if they have the same edges.
+     */
+    private static final class Path implements Comparable<Path> {
+        /** The stop ids from the origin */
+        final int[] stops;
+        /** The edge ids between consecutive stops */
+        final int[] edges;
+        /** The cost of the path */
+        final double cost;
+
+        /**
+         * Constructor for Path
+         * @param stops int[] the stop ids from the origin
+         * @param edges int[] the edge ids between consecutive stops
+         * @param cost double the cost of the path
+         */
+        Path(int[] stops, int[] edges, double cost) {
+            this.stops = stops;
+            this.edges = edges;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Path other) {
+            int result = Double.compare(cost, other.cost);
+            return result != 0 ? result : Integer.compare(edges.length, other.edges.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path && Arrays.equals(edges, ((Path) o).edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package pt.pa.transportmap.path;
+
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Shortest path costs from a set of landmark stops to every stop of a routing snapshot, for one criteria and transport mask.
+ * As routes can be used in both directions, the triangle inequality gives |d(L, t) - d(L, v)| <= d(v, t) for every
+ * landmark L, which is used as the A* lower bound by the ALTStrategy.
+ * The costs are only valid for non-negative edge costs and for the user configuration used to build the table.
+ */
+public class LandmarkTable {
+    /** Number of landmarks searched by a single fork-join task */
+    private static final int SEQUENTIAL_THRESHOLD = 1;
+    /** The landmark stop ids */
+    private final int[] landmarks;
+    /** The cost from each landmark to each stop, infinity if unreachable */
+    private final double[][] distances;
+
+    /**
+     * Constructor for LandmarkTable, runs one Dijkstra search per landmark on the fork-join pool
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param criteria PathCriteria the path criteria, edge costs must not be negative
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param landmarks int[] the landmark stop ids
+     * @param pool ForkJoinPool the pool to run the searches
+     * @throws IllegalArgumentException if an argument is null or a landmark is not a stop id
+     */
+    public LandmarkTable(RoutingSnapshot snapshot, UserConfiguration userConfiguration, PathCriteria criteria, int transportMask, int[] landmarks, ForkJoinPool pool) throws IllegalArgumentException {
+        if(snapshot == null || criteria == null || landmarks == null || pool == null){
+            throw new IllegalArgumentException("Snapshot, criteria, landmarks and pool cannot be null.");
+        }
+        for(int landmark : landmarks){
+            if(landmark < 0 || landmark >= snapshot.numStops()){
+                throw new IllegalArgumentException("Landmark is not a stop of the snapshot.");
+            }
+        }
+        this.landmarks = landmarks.clone();
+        this.distances = new double[landmarks.length][];
+        pool.invoke(new LandmarkTask(this, snapshot, MinimumCostTable.computeCosts(snapshot, userConfiguration, criteria, transportMask), 0, landmarks.length));
+    }
+
+    /**
+     * Get the number of landmarks
+     * @return int the number of landmarks
+     */
+    public int numLandmarks() { return landmarks.length; }
+
+    /**
+     * Get the stop id of a landmark
+     * @param i int the landmark index
+     * @return int the landmark stop id
+     */
+    public int landmark(int i) { return landmarks[i]; }
+
+    /**
+     * Get the cost from a landmark to a stop
+     * @param i int the landmark index
+     * @param v int the stop id
+     * @return double the cost, infinity if the stop is unreachable from the landmark
+     */
+    public double distance(int i, int v) { return distances[i][v]; }
+
+    /**
+     * Get the lower bound of the cost from a stop to a destination
+     * @param v int the stop id
+     * @param destination int the destination stop id
+     * @return double the lower bound, infinity if a landmark reaches only one of the stops (the destination is unreachable)
+     */
+    public double lowerBound(int v, int destination) {
+        double bound = 0.0;
+        for(double[] distance : distances){
+            double dv = distance[v];
+            double dt = distance[destination];
+            if(dv == Double.POSITIVE_INFINITY && dt == Double.POSITIVE_INFINITY){ continue; } // other component
+            if(dv == Double.POSITIVE_INFINITY || dt == Double.POSITIVE_INFINITY){ return Double.POSITIVE_INFINITY; }
+            bound = Math.max(bound, Math.abs(dt - dv));
+        }
+        return bound;
+    }
+
+    /**
+     * Choose landmarks far from each other, each is the stop with the greatest great-circle distance to the closest
+     * landmark already chosen (the first is the farthest from stop 0). Stops on the border of the map give the best bounds.
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param count int the number of landmarks, at most the number of stops
+     * @return int[] the landmark stop ids
+     * @throws IllegalArgumentException if count is negative
+     */
+    public static int[] selectFarthestLandmarks(RoutingSnapshot snapshot, int count) throws IllegalArgumentException {
+        if(count < 0){
+            throw new IllegalArgumentException("Number of landmarks must not be negative.");
+        }
+        int numStops = snapshot.numStops();
+        count = Math.min(count, numStops);
+        int[] landmarks = new int[count];
+        if(count == 0){ return landmarks; }
+
+        double[] closest = new double[numStops];
+        for(int v = 0; v < numStops; v++){
+            closest[v] = snapshot.geodesicDistance(0, v);
+        }
+        for(int i = 0; i < count; i++){
+            int farthest = 0;
+            for(int v = 1; v < numStops; v++){
+                if(closest[v] > closest[farthest]){ farthest = v; }
+            }
+            landmarks[i] = farthest;
+            for(int v = 0; v < numStops; v++){
+                closest[v] = i == 0 ? snapshot.geodesicDistance(farthest, v) : Math.min(closest[v], snapshot.geodesicDistance(farthest, v));
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * Fork-join task computing the distances of a range of landmarks, split in halves until the threshold
+     */
+    private static class LandmarkTask extends RecursiveAction {
+        /** Serial version UID */
+        @Serial
+        private static final long serialVersionUID = 1L;
+        /** The table whose distances are computed */
+        private final LandmarkTable table;
+        /** The routing snapshot */
+        private final RoutingSnapshot snapshot;
+        /** Minimum cost of each edge, NaN if the edge can't be used */
+        private final double[] edgeCosts;
+        /** First landmark index, inclusive */
+        private final int from;
+        /** Last landmark index, exclusive */
+        private final int to;
+
+        LandmarkTask(LandmarkTable table, RoutingSnapshot snapshot, double[] edgeCosts, int from, int to) {
+            this.table = table;
+            this.snapshot = snapshot;
+            this.edgeCosts = edgeCosts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= SEQUENTIAL_THRESHOLD){
+                for(int i = from; i < to; i++){
+                    table.distances[i] = search(table.landmarks[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LandmarkTask(table, snapshot, edgeCosts, from, middle),
+                    new LandmarkTask(table, snapshot, edgeCosts, middle, to));
+        }
+
+        /**
+         * Dijkstra search of the cost from a landmark to every stop
+         * @param landmark int the landmark stop id
+         * @return double[] the cost to every stop
+         */
+        private double[] search(int landmark) {
+            int numStops = snapshot.numStops();
+            double[] cost = new double[numStops];
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            IndexedMinHeap unvisited = new IndexedMinHeap(numStops);
+            cost[landmark] = 0.0;
+            unvisited.insert(landmark, 0.0);
+
+            while(!unvisited.isEmpty()){
+                int current = unvisited.poll();
+                for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                    int edge = snapshot.arcEdge(arc);
+                    double edgeCost = edgeCosts[edge];
+                    if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                    int w = snapshot.arcTarget(arc);
+                    double newCost = cost[current] + edgeCost;
+                    if(newCost < cost[w]){
+                        cost[w] = newCost;
+                        unvisited.insertOrDecreaseKey(w, newCost);
+                    }
+                }
+            }
+            return cost;
+        }
+    }
+}
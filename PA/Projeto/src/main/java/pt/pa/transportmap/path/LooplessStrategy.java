@@ -0,0 +1,154 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+/**
+ * Loopless class to find the less cost path that visits each stop at most once, in a graph with negative edge values.
+ * Routes can be used in both directions, so a usable route with a negative cost (sustainability by walk or bicycle)
+ * is a negative cycle there and back and the less cost walk is not defined, the path is the less cost simple path.
+ * Finding it is NP-hard in general, the search is a depth-first branch and bound: a partial path is pruned when its
+ * cost, plus the reverse Dijkstra bound of the non-negative costs to the destination (see ConstrainedSearch), plus the
+ * negative costs not used yet, can't improve the best path found. On sparse transit maps few paths are expanded.
+ * With non-negative costs the query is done by DijkstraStrategy.
+ */
+public class LooplessStrategy implements PathStrategy {
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+
+    /**
+     * Constructor for LooplessStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public LooplessStrategy(CostStrategy costStrategy){
+        this.costStrategy = costStrategy;
+    }
+
+    /**
+     * Find the less cost path without repeated stops using a depth-first branch and bound
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id, different from the origin
+     * @return int[][] the stop ids of the path from origin to destination and the edge ids between them, null if the
+     * destination can't be reached from the origin
+     */
+    static int[][] lessCostPath(RoutingSnapshot snapshot, double[] edgeCosts, int origin, int destination) {
+        int numStops = snapshot.numStops();
+        double[] bounds = ConstrainedSearch.lowerBounds(snapshot, edgeCosts, destination);
+        double negativeCosts = 0.0;
+        for (double edgeCost : edgeCosts) {
+            if (edgeCost < 0.0) { negativeCosts += edgeCost; } // NaN is not negative
+        }
+
+        // the current path by depth, stops[depth] is reached by edges[depth - 1], nextArc[depth] is the next arc to try
+        int[] stops = new int[numStops];
+        int[] edges = new int[numStops];
+        int[] nextArc = new int[numStops];
+        double[] costs = new double[numStops];
+        // the sum of the negative costs of the edges not in the path, a lower bound of what is left to gain
+        double[] negatives = new double[numStops];
+        boolean[] onPath = new boolean[numStops];
+
+        double best = Double.POSITIVE_INFINITY;
+        int[] bestStops = null;
+        int[] bestEdges = null;
+
+        int depth = 0;
+        stops[0] = origin;
+        nextArc[0] = snapshot.arcStart(origin);
+        negatives[0] = negativeCosts;
+        onPath[origin] = true;
+        while (depth >= 0) {
+            int v = stops[depth];
+            if (nextArc[depth] == snapshot.arcEnd(v)) {
+                // backtrack
+                onPath[v] = false;
+                depth--;
+                continue;
+            }
+            int arc = nextArc[depth]++;
+            int edge = snapshot.arcEdge(arc);
+            double edgeCost = edgeCosts[edge];
+            int w = snapshot.arcTarget(arc);
+            if (Double.isNaN(edgeCost) || onPath[w]) { continue; } // Skip edge, disabled, no usable transport type or a loop
+
+            double cost = costs[depth] + edgeCost;
+            edges[depth] = edge;
+            if (w == destination) {
+                // the path ends at the destination
+                if (cost < best) {
+                    best = cost;
+                    stops[depth + 1] = w;
+                    bestStops = Arrays.copyOf(stops, depth + 2);
+                    bestEdges = Arrays.copyOf(edges, depth + 1);
+                }
+                continue;
+            }
+            double remainingNegatives = negatives[depth] - Math.min(edgeCost, 0.0);
+            if (cost + bounds[w] + remainingNegatives >= best) { continue; } // can't improve, also if w can't reach the destination
+
+            depth++;
+            stops[depth] = w;
+            nextArc[depth] = snapshot.arcStart(w);
+            costs[depth] = cost;
+            negatives[depth] = remainingNegatives;
+            onPath[w] = true;
+        }
+
+        return bestStops == null ? null : new int[][]{ bestStops, bestEdges };
+    }
+
+    /**
+     * Find the less cost of the paths without repeated stops
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id
+     * @return double the less cost, 0 if the origin is the destination, infinity if the destination can't be reached
+     */
+    static double lessCost(RoutingSnapshot snapshot, double[] edgeCosts, int origin, int destination) {
+        if (origin == destination) { return 0.0; }
+        int[][] path = lessCostPath(snapshot, edgeCosts, origin, destination);
+        if (path == null) { return Double.POSITIVE_INFINITY; }
+        double cost = 0.0;
+        for (int edge : path[1]) {
+            cost += edgeCosts[edge];
+        }
+        return cost;
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(graph, transportList, origin, destination);
+        MinimumCostTable minimumCostTable = graph.getMinimumCostTable();
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        if(minimumCostTable.hasNonNegativeCosts(criteria, transportMask)){
+            // without negative costs the less cost path has no loops
+            return new DijkstraStrategy(costStrategy).findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+        }
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+        int[][] path = originId == destinationId ? null : lessCostPath(snapshot, minimumCostTable.costs(criteria, transportMask), originId, destinationId);
+        if (path == null) {
+            throw new IllegalStateException("No path found between the origin and the destination.");
+        }
+        return PathUtils.getPathResult(snapshot, minimumCostTable.getUserConfiguration(), costStrategy, transportMask, path[0], path[1]);
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap graph, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        return PathUtils.findLessCostPathPersonalized(this, graph, transportList, origin, destination, intermediaryVertices);
+    }
+}
@@ -0,0 +1,215 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import pt.pa.observerpattern.Observable;
+import pt.pa.observerpattern.Observer;
+import pt.pa.transportmap.Route;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.Arrays;
+
+/**
+ * Minimum cost of every edge of a routing snapshot, by path criteria and transport mask, with the user configuration
+ * applied (disabled routes and transport types, bicycle duration scale).
+ * The searches read one primitive array per query instead of choosing the transport type on every relaxation.
+ * The arrays of a (criteria, mask) pair are built on first use, with whether a usable edge has a negative cost. The
+ * table observes the user configuration and updates only the changed route of the built arrays, the whole arrays are
+ * rebuilt if the change can affect every route.
+ * The arrays are copy-on-write: an update fills new arrays and swaps them in, so the searches that read an array
+ * without the lock (parallel legs, travel matrices, delta-stepping) never see a partially updated array.
+ * A table is bound to a snapshot and a user configuration (see TransportMap.getMinimumCostTable).
+ */
+public class MinimumCostTable implements Observer {
+    /** Transport types, cached to avoid copying the values array */
+    private static final TransportType[] TRANSPORT_TYPES = TransportType.values();
+    /** Type value of an edge without usable transport type */
+    private static final byte NO_TYPE = -1;
+
+    /** The routing snapshot */
+    private final RoutingSnapshot snapshot;
+    /** The user configuration, null if nothing is disabled */
+    private final UserConfiguration userConfiguration;
+    /** Minimum cost of each edge by [criteria][mask], NaN if the edge can't be used, null if not built */
+    private final double[][][] costs;
+    /** Ordinal of the transport type with the minimum cost of each edge by [criteria][mask], -1 if the edge can't be used */
+    private final byte[][][] types;
+    /** True if no usable edge has a negative cost by [criteria][mask], valid if the arrays are built */
+    private final boolean[][] nonNegative;
+
+    /**
+     * Constructor for MinimumCostTable, observes the user configuration until detach is called
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @throws IllegalArgumentException if the snapshot is null
+     */
+    public MinimumCostTable(RoutingSnapshot snapshot, UserConfiguration userConfiguration) throws IllegalArgumentException {
+        if(snapshot == null){
+            throw new IllegalArgumentException("Snapshot cannot be null.");
+        }
+        this.snapshot = snapshot;
+        this.userConfiguration = userConfiguration;
+        this.costs = new double[PathCriteria.values().length][RoutingSnapshot.ALL_TRANSPORTS + 1][];
+        this.types = new byte[PathCriteria.values().length][RoutingSnapshot.ALL_TRANSPORTS + 1][];
+        this.nonNegative = new boolean[PathCriteria.values().length][RoutingSnapshot.ALL_TRANSPORTS + 1];
+        if(userConfiguration != null){
+            userConfiguration.addObserver(this);
+        }
+    }
+
+    /**
+     * Compute the minimum cost of every edge, for the searches that only read the costs once
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @return double[] the minimum cost of each edge, NaN if the edge can't be used
+     */
+    public static double[] computeCosts(RoutingSnapshot snapshot, UserConfiguration userConfiguration, PathCriteria criteria, int transportMask) {
+        double[] edgeCosts = new double[snapshot.numEdges()];
+        for(int edge = 0; edge < edgeCosts.length; edge++){
+            TransportType minType = minimumType(snapshot, userConfiguration, criteria, transportMask, edge);
+            edgeCosts[edge] = minType == null ? Double.NaN : PathUtils.getTransportCost(snapshot, userConfiguration, edge, minType, criteria);
+        }
+        return edgeCosts;
+    }
+
+    /**
+     * Get the minimum cost of every edge, building the arrays on first use
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @return double[] the minimum cost of each edge by edge id, NaN if the edge can't be used, must not be changed
+     */
+    public synchronized double[] costs(PathCriteria criteria, int transportMask) {
+        build(criteria, transportMask);
+        return costs[criteria.ordinal()][transportMask];
+    }
+
+    /**
+     * Check if no usable edge has a negative cost, as required by the label setting searches. The check is done once
+     * when the arrays are built or updated, so disabled routes and transport types are not counted
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @return true if no usable edge cost is negative
+     */
+    public synchronized boolean hasNonNegativeCosts(PathCriteria criteria, int transportMask) {
+        build(criteria, transportMask);
+        return nonNegative[criteria.ordinal()][transportMask];
+    }
+
+    /**
+     * Get the transport type with the minimum cost of every edge, building the arrays on first use
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @return byte[] the ordinal of the transport type with the minimum cost of each edge by edge id, -1 if the edge
+     * can't be used, must not be changed
+     */
+    public synchronized byte[] types(PathCriteria criteria, int transportMask) {
+        build(criteria, transportMask);
+        return types[criteria.ordinal()][transportMask];
+    }
+
+    /**
+     * Get the transport type with the minimum cost of an edge
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param edge int the edge id
+     * @return TransportType the transport type with the minimum cost or null if the edge can't be used
+     */
+    public synchronized TransportType type(PathCriteria criteria, int transportMask, int edge) {
+        build(criteria, transportMask);
+        byte type = types[criteria.ordinal()][transportMask][edge];
+        return type == NO_TYPE ? null : TRANSPORT_TYPES[type];
+    }
+
+    /**
+     * Get the routing snapshot of the table
+     * @return RoutingSnapshot the routing snapshot
+     */
+    public RoutingSnapshot getSnapshot() { return snapshot; }
+
+    /**
+     * Get the user configuration of the table
+     * @return UserConfiguration the user configuration, null if nothing is disabled
+     */
+    public UserConfiguration getUserConfiguration() { return userConfiguration; }
+
+    /**
+     * Stop observing the user configuration, the table is no longer updated
+     */
+    public void detach() {
+        if(userConfiguration != null){
+            userConfiguration.removeObserver(this);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void update(Observable subject, Object arg) {
+        int edge = arg instanceof Edge<?, ?> ? snapshot.edgeId((Edge<Route, Stop>) arg) : -1;
+        if(arg != null && edge == -1){ return; } // route not in this snapshot
+        for(PathCriteria criteria : PathCriteria.values()){
+            for(int mask = 0; mask <= RoutingSnapshot.ALL_TRANSPORTS; mask++){
+                if(costs[criteria.ordinal()][mask] == null){ continue; } // not built
+                if(arg == null){
+                    fill(criteria, mask, 0, snapshot.numEdges());
+                }else{
+                    fill(criteria, mask, edge, edge + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the arrays of a criteria and transport mask, if not built yet
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     */
+    private void build(PathCriteria criteria, int transportMask) {
+        if(costs[criteria.ordinal()][transportMask] != null){ return; }
+        fill(criteria, transportMask, 0, snapshot.numEdges());
+    }
+
+    /**
+     * Compute the minimum cost and transport type of a range of edges in copies of the arrays, then replace the arrays
+     * by the copies, the arrays already returned are not changed
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param from int the first edge id
+     * @param to int the edge id after the last
+     */
+    private void fill(PathCriteria criteria, int transportMask, int from, int to) {
+        double[] oldCosts = costs[criteria.ordinal()][transportMask];
+        byte[] oldTypes = types[criteria.ordinal()][transportMask];
+        double[] edgeCosts = oldCosts == null ? new double[snapshot.numEdges()] : oldCosts.clone();
+        byte[] edgeTypes = oldTypes == null ? new byte[snapshot.numEdges()] : oldTypes.clone();
+        Arrays.fill(edgeCosts, from, to, Double.NaN);
+        Arrays.fill(edgeTypes, from, to, NO_TYPE);
+        for(int edge = from; edge < to; edge++){
+            TransportType minType = minimumType(snapshot, userConfiguration, criteria, transportMask, edge);
+            if(minType == null){ continue; }
+            edgeCosts[edge] = PathUtils.getTransportCost(snapshot, userConfiguration, edge, minType, criteria);
+            edgeTypes[edge] = (byte) minType.ordinal();
+        }
+        costs[criteria.ordinal()][transportMask] = edgeCosts;
+        types[criteria.ordinal()][transportMask] = edgeTypes;
+        nonNegative[criteria.ordinal()][transportMask] = PathUtils.hasNonNegativeCosts(edgeCosts);
+    }
+
+    /**
+     * Get the transport type with the minimum cost of an edge, null if the route is disabled
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param edge int the edge id
+     * @return TransportType the transport type with the minimum cost or null if the edge can't be used
+     */
+    private static TransportType minimumType(RoutingSnapshot snapshot, UserConfiguration userConfiguration, PathCriteria criteria, int transportMask, int edge) {
+        if(userConfiguration != null && userConfiguration.isRouteDisabled(snapshot.edge(edge))){
+            return null;
+        }
+        return PathUtils.getMinimumTransportType(snapshot, userConfiguration, transportMask, edge, criteria);
+    }
+}
@@ -0,0 +1,56 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Route;
+import pt.pa.transportmap.Stop;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * Thrown when a path search finds a cycle with negative cost, so the less cost path is not defined.
+ * It keeps the cycle found to help finding the routes with bad cost data.
+ */
+public class NegativeCycleException extends IllegalStateException {
+    /** Serial version UID */
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /** The stops of the cycle, in order, the first is not repeated at the end, not serialized (graph vertices) */
+    private final transient List<Vertex<Stop>> cycle;
+    /** The routes of the cycle, cycleEdges[i] links cycle[i] to cycle[i + 1] (the last links to the first), not serialized (graph edges) */
+    private final transient List<Edge<Route, Stop>> cycleEdges;
+    /** The cost of the cycle */
+    private final double cost;
+
+    /**
+     * Constructor for NegativeCycleException
+     * @param cycle List<Vertex<Stop>> the stops of the cycle, in order
+     * @param cycleEdges List<Edge<Route, Stop>> the routes of the cycle, in order
+     * @param cost double the cost of the cycle
+     */
+    public NegativeCycleException(List<Vertex<Stop>> cycle, List<Edge<Route, Stop>> cycleEdges, double cost) {
+        super("Graph contains a negative-weight cycle: " + cycle.stream().map(vertex -> vertex.element().getCode()).toList() + " with cost " + cost + ".");
+        this.cycle = List.copyOf(cycle);
+        this.cycleEdges = List.copyOf(cycleEdges);
+        this.cost = cost;
+    }
+
+    /**
+     * Get the stops of the cycle
+     * @return List<Vertex<Stop>> the stops of the cycle, in order, the first is not repeated at the end, null if deserialized
+     */
+    public List<Vertex<Stop>> getCycle() { return cycle; }
+
+    /**
+     * Get the routes of the cycle
+     * @return List<Edge<Route, Stop>> the routes of the cycle, the route i links stop i to stop i + 1 (the last links to the first), null if deserialized
+     */
+    public List<Edge<Route, Stop>> getCycleEdges() { return cycleEdges; }
+
+    /**
+     * Get the cost of the cycle
+     * @return double the cost of the cycle, negative
+     */
+    public double getCost() { return cost; }
+}
@@ -0,0 +1,166 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.*;
+
+/**
+ * Multi-criteria label setting search for the Pareto front of the paths between two stops: the paths not dominated in
+ * distance, duration and sustainability by any other path (a path dominates another if it is not worse in any criteria).
+ * Each label is a path to a stop with its three costs. The labels are expanded by increasing distance and a new label
+ * is discarded if it is dominated by a label of its stop, the labels it dominates are discarded. It is also discarded if
+ * a label of the destination is not worse than its costs plus a lower bound of the rest of the path (0 for distance and
+ * duration, see remainingSustainabilityBound), so negative sustainability costs can't prune a path that would improve.
+ * Every transport type of an edge that is not dominated by another type of the same edge is a different choice.
+ * The sustainability costs of walking and cycling may be negative, so only paths without repeated stops are labeled
+ * (otherwise a path there and back would always improve sustainability).
+ * The labels of each stop and of the whole search are bounded to keep the search interactive. When a stop has too many
+ * labels the most crowded one is discarded (the one with the nearest neighbours in every criteria), so the labels with
+ * the minimum of each criteria are kept and the front stays spread. The front found may then miss some paths, but every
+ * path in it is not dominated by any other path found.
+ */
+public class ParetoSearch {
+    /** Default maximum number of labels kept by stop */
+    public static final int DEFAULT_MAX_LABELS_PER_STOP = 16;
+    /** Default maximum number of labels created by search, the search runs on the interface thread */
+    public static final int DEFAULT_MAX_LABELS = 20_000;
+
+    /** Maximum number of labels kept by stop */
+    private final int maxLabelsPerStop;
+    /** Maximum number of labels created by search */
+    private final int maxLabels;
+
+    /**
+     * Constructor for ParetoSearch, with the default label bounds
+     */
+    public ParetoSearch() {
+        this(DEFAULT_MAX_LABELS_PER_STOP, DEFAULT_MAX_LABELS);
+    }
+
+    /**
+     * Constructor for ParetoSearch
+     * @param maxLabelsPerStop int the maximum number of labels kept by stop
+     * @param maxLabels int the maximum number of labels created by search
+     * @throws IllegalArgumentException if a bound is not positive
+     */
+    public ParetoSearch(int maxLabelsPerStop, int maxLabels) throws IllegalArgumentException {
+        if(maxLabelsPerStop <= 0 || maxLabels <= 0){
+            throw new IllegalArgumentException("The label bounds must be positive.");
+        }
+        this.maxLabelsPerStop = maxLabelsPerStop;
+        this.maxLabels = maxLabels;
+    }
+
+    /**
+     * Find the Pareto front of the paths between two vertices
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @return List<PathResult> the non-dominated paths found, by increasing duration, empty if there is no path
+     * @throws IllegalArgumentException if graph, origin or destination are null or if no transports are provided
+     * @throws InvalidVertexException if origin or destination are not in the graph
+     */
+    public List<PathResult> findParetoPaths(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        RoutingSnapshot snapshot = model.getRoutingSnapshot();
+        UserConfiguration userConfiguration = model.getUserConfiguration();
+        int originId = snapshot.id(origin);
+        int destinationId = snapshot.id(destination);
+        if(originId == destinationId){
+            return new ArrayList<>();
+        }
+
+        TransportChoices choices = new TransportChoices(snapshot, userConfiguration, RoutingSnapshot.transportMask(transportList));
+        PathLabels labels = search(snapshot, choices, originId, destinationId);
+
+        List<PathResult> front = new ArrayList<>();
+        for(int i = 0; i < labels.bagSizes[destinationId]; i++){
+            front.add(labels.getPathResult(snapshot, userConfiguration, labels.bags[destinationId][i]));
+        }
+        front.sort(Comparator.comparingDouble(PathResult::getTotalDuration)
+                .thenComparingDouble(PathResult::getTotalDistance)
+                .thenComparingDouble(PathResult::getTotalSustainability));
+        return front;
+    }
+
+    /**
+     * Label every stop from the origin, the labels of the destination are the front
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param choices TransportChoices the transport choices of each edge
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id
+     * @return PathLabels the labels of the search
+     */
+    private PathLabels search(RoutingSnapshot snapshot, TransportChoices choices, int origin, int destination) {
+        PathLabels labels = new PathLabels(snapshot.numStops(), EnumSet.allOf(PathCriteria.class));
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> compare(labels, a, b));
+        queue.add(labels.add(origin, -1, -1, -1, 0.0, 0.0, 0.0));
+        double sustainabilityBound = remainingSustainabilityBound(snapshot, choices);
+
+        while(!queue.isEmpty()){
+            int label = queue.poll();
+            if(labels.dead[label]){ continue; } // dominated after being queued
+            int u = labels.stops[label];
+            if(u == destination){ continue; }
+            labels.markPath(label);
+
+            for(int arc = snapshot.arcStart(u); arc < snapshot.arcEnd(u); arc++){
+                int w = snapshot.arcTarget(arc);
+                int edge = snapshot.arcEdge(arc);
+                if(choices.start[edge] == choices.start[edge + 1] || labels.visits(label, w)){ continue; }
+                for(int choice = choices.start[edge]; choice < choices.start[edge + 1]; choice++){
+                    double distance = labels.distances[label] + choices.distances[choice];
+                    double duration = labels.durations[label] + choices.durations[choice];
+                    double sustainability = labels.sustainabilities[label] + choices.sustainabilities[choice];
+                    // a destination label only prunes if it is not worse than the best the rest of the path can reach
+                    if(labels.isDominated(destination, distance, duration, sustainability + sustainabilityBound)
+                            || labels.isDominated(w, distance, duration, sustainability)){
+                        continue;
+                    }
+                    if(labels.size == maxLabels){ continue; } // bounded, the labels of w are kept
+                    labels.removeDominated(w, distance, duration, sustainability);
+                    int added = labels.add(w, label, edge, choices.types[choice], distance, duration, sustainability);
+                    if(labels.bagSizes[w] > maxLabelsPerStop && labels.removeMostCrowded(w) == added){ continue; }
+                    queue.add(added);
+                }
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Lower bound of the sustainability of the rest of a path: distance and duration are never negative, so the rest
+     * of a path costs at least 0, but walking and cycling have negative sustainability and a path without repeated
+     * stops has at most one edge less than the stops, each at least the minimum sustainability of the choices
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param choices TransportChoices the transport choices of each edge
+     * @return double the lower bound, 0 if no choice has a negative sustainability
+     */
+    private static double remainingSustainabilityBound(RoutingSnapshot snapshot, TransportChoices choices) {
+        double minimum = 0.0;
+        for(double sustainability : choices.sustainabilities){
+            minimum = Math.min(minimum, sustainability);
+        }
+        return minimum * (snapshot.numStops() - 1);
+    }
+
+    /**
+     * Order of the labels in the queue, by distance, then duration and sustainability
+     * @param labels PathLabels the labels of the search
+     * @param a int the first label id
+     * @param b int the second label id
+     * @return int the comparison result
+     */
+    private static int compare(PathLabels labels, int a, int b) {
+        int result = Double.compare(labels.distances[a], labels.distances[b]);
+        if(result == 0){ result = Double.compare(labels.durations[a], labels.durations[b]); }
+        if(result == 0){ result = Double.compare(labels.sustainabilities[a], labels.sustainabilities[b]); }
+        return result;
+    }
+}
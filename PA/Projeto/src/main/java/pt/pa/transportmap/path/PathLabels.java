@@ -0,0 +1,306 @@
+package pt.pa.transportmap.path;
+
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * The labels of a multi-criteria search, as primitive arrays indexed by label id, and the non-dominated labels of each
+ * stop (its bag). Each label is a path from the origin to a stop, given by its predecessor label, with its costs in
+ * every criteria. Only the dominance criteria are compared, a label dominates another if it is not worse in any of them.
+ */
+final class PathLabels {
+    /** Transport types, cached to avoid copying the values array */
+    private static final TransportType[] TRANSPORT_TYPES = TransportType.values();
+
+    /** Stop of each label */
+    int[] stops;
+    /** Predecessor label of each label, -1 for the origin */
+    int[] predecessors;
+    /** Edge used to reach the stop of each label */
+    int[] edges;
+    /** Ordinal of the transport type used in the edge of each label */
+    byte[] types;
+    /** Distance of each label */
+    double[] distances;
+    /** Duration of each label */
+    double[] durations;
+    /** Sustainability of each label */
+    double[] sustainabilities;
+    /** True if the label was dominated and removed from its bag */
+    boolean[] dead;
+    /** Priority queue key of each label, set by the search that queues it */
+    double[] keys;
+    /** Number of labels */
+    int size;
+    /** Non-dominated labels of each stop */
+    final int[][] bags;
+    /** Number of labels in the bag of each stop */
+    final int[] bagSizes;
+    /** Label plus one whose path last marked each stop, see markPath */
+    private final int[] pathMarks;
+    /** True if the distance is a dominance criteria */
+    private final boolean compareDistance;
+    /** True if the duration is a dominance criteria */
+    private final boolean compareDuration;
+    /** True if the sustainability is a dominance criteria */
+    private final boolean compareSustainability;
+
+    /**
+     * Constructor for PathLabels
+     * @param numStops int the number of stops
+     * @param dominanceCriteria EnumSet<PathCriteria> the criteria compared by the dominance
+     */
+    PathLabels(int numStops, EnumSet<PathCriteria> dominanceCriteria) {
+        int capacity = Math.max(16, numStops);
+        stops = new int[capacity];
+        predecessors = new int[capacity];
+        edges = new int[capacity];
+        types = new byte[capacity];
+        distances = new double[capacity];
+        durations = new double[capacity];
+        sustainabilities = new double[capacity];
+        dead = new boolean[capacity];
+        keys = new double[capacity];
+        size = 0;
+        bags = new int[numStops][];
+        bagSizes = new int[numStops];
+        pathMarks = new int[numStops];
+        compareDistance = dominanceCriteria.contains(PathCriteria.DISTANCE);
+        compareDuration = dominanceCriteria.contains(PathCriteria.DURATION);
+        compareSustainability = dominanceCriteria.contains(PathCriteria.SUSTAINABILITY);
+    }
+
+    /**
+     * Create a label and add it to the bag of its stop
+     * @param stop int the stop id
+     * @param predecessor int the predecessor label id, -1 for the origin
+     * @param edge int the edge used to reach the stop, -1 for the origin
+     * @param type int the ordinal of the transport type used in the edge, -1 for the origin
+     * @param distance double the distance of the path
+     * @param duration double the duration of the path
+     * @param sustainability double the sustainability of the path
+     * @return int the label id
+     */
+    int add(int stop, int predecessor, int edge, int type, double distance, double duration, double sustainability) {
+        if(size == stops.length){
+            int capacity = size * 2;
+            stops = Arrays.copyOf(stops, capacity);
+            predecessors = Arrays.copyOf(predecessors, capacity);
+            edges = Arrays.copyOf(edges, capacity);
+            types = Arrays.copyOf(types, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            sustainabilities = Arrays.copyOf(sustainabilities, capacity);
+            dead = Arrays.copyOf(dead, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        int label = size++;
+        stops[label] = stop;
+        predecessors[label] = predecessor;
+        edges[label] = edge;
+        types[label] = (byte) type;
+        distances[label] = distance;
+        durations[label] = duration;
+        sustainabilities[label] = sustainability;
+        dead[label] = false;
+        if(bags[stop] == null){
+            bags[stop] = new int[4];
+        }else if(bagSizes[stop] == bags[stop].length){
+            bags[stop] = Arrays.copyOf(bags[stop], bagSizes[stop] * 2);
+        }
+        bags[stop][bagSizes[stop]++] = label;
+        return label;
+    }
+
+    /**
+     * Check if a cost vector is dominated by a label of a stop
+     * @param stop int the stop id
+     * @param distance double the distance
+     * @param duration double the duration
+     * @param sustainability double the sustainability
+     * @return true if a label of the stop dominates the costs
+     */
+    boolean isDominated(int stop, double distance, double duration, double sustainability) {
+        for(int i = 0; i < bagSizes[stop]; i++){
+            int label = bags[stop][i];
+            if(dominates(distances[label], durations[label], sustainabilities[label], distance, duration, sustainability)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the extension of a label to a stop is dominated by a label of the stop whose path only visits stops of
+     * the extended path. Every extension of the dominated path is then an extension of the dominating one, so the check
+     * is exact for paths without repeated stops, also with negative costs
+     * @param stop int the stop id
+     * @param label int the label extended to the stop, its path must be marked (see markPath)
+     * @param distance double the distance
+     * @param duration double the duration
+     * @param sustainability double the sustainability
+     * @return true if a label of the stop with a path within the extended path dominates the costs
+     */
+    boolean isDominatedWithin(int stop, int label, double distance, double duration, double sustainability) {
+        for(int i = 0; i < bagSizes[stop]; i++){
+            int other = bags[stop][i];
+            if(dominates(distances[other], durations[other], sustainabilities[other], distance, duration, sustainability)
+                    && pathWithin(predecessors[other], label)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if every stop of the path of a label is in the marked path of another label
+     * @param label int the label id, -1 for an empty path
+     * @param marked int the label whose path is marked (see markPath)
+     * @return true if the path of the label only visits stops of the marked path
+     */
+    private boolean pathWithin(int label, int marked) {
+        for(int l = label; l != -1; l = predecessors[l]){
+            if(!visits(marked, stops[l])){ return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Remove the labels of a stop dominated by a cost vector, they are no longer expanded
+     * @param stop int the stop id
+     * @param distance double the distance
+     * @param duration double the duration
+     * @param sustainability double the sustainability
+     */
+    void removeDominated(int stop, double distance, double duration, double sustainability) {
+        int kept = 0;
+        for(int i = 0; i < bagSizes[stop]; i++){
+            int label = bags[stop][i];
+            if(dominates(distance, duration, sustainability, distances[label], durations[label], sustainabilities[label])){
+                dead[label] = true;
+            }else{
+                bags[stop][kept++] = label;
+            }
+        }
+        bagSizes[stop] = kept;
+    }
+
+    /**
+     * Remove the most crowded label of a stop, the one with the smallest sum, over the criteria, of the cost
+     * difference between its neighbours in the bag ordered by that criteria (divided by the bag range).
+     * The labels with the minimum or maximum of a criteria are never the most crowded.
+     * @param stop int the stop id, with at least two labels
+     * @return int the removed label id
+     */
+    int removeMostCrowded(int stop) {
+        int[] bag = bags[stop];
+        int n = bagSizes[stop];
+        double[] crowding = new double[n];
+        int[] order = new int[n];
+        for(double[] costs : new double[][]{distances, durations, sustainabilities}){
+            // order the bag positions by the cost, by insertion as the bags are small
+            for(int i = 0; i < n; i++){
+                int j = i;
+                while(j > 0 && costs[bag[order[j - 1]]] > costs[bag[i]]){
+                    order[j] = order[j - 1];
+                    j--;
+                }
+                order[j] = i;
+            }
+            double range = costs[bag[order[n - 1]]] - costs[bag[order[0]]];
+            crowding[order[0]] = Double.POSITIVE_INFINITY;
+            crowding[order[n - 1]] = Double.POSITIVE_INFINITY;
+            for(int i = 1; i < n - 1; i++){
+                crowding[order[i]] += range == 0 ? 0 : (costs[bag[order[i + 1]]] - costs[bag[order[i - 1]]]) / range;
+            }
+        }
+        int removed = 0;
+        for(int i = 1; i < n; i++){
+            if(crowding[i] < crowding[removed]){ removed = i; }
+        }
+        int label = bag[removed];
+        dead[label] = true;
+        bag[removed] = bag[--bagSizes[stop]];
+        return label;
+    }
+
+    /**
+     * Mark the stops of the path of a label, walking its predecessors once before the label is expanded
+     * @param label int the label id
+     */
+    void markPath(int label) {
+        for(int l = label; l != -1; l = predecessors[l]){
+            pathMarks[stops[l]] = label + 1;
+        }
+    }
+
+    /**
+     * Check if the path of a label visits a stop, the path must be marked (see markPath)
+     * @param label int the label id
+     * @param stop int the stop id
+     * @return true if the stop is in the path of the label
+     */
+    boolean visits(int label, int stop) {
+        return pathMarks[stop] == label + 1;
+    }
+
+    /**
+     * Get the cost of a label in a criteria
+     * @param label int the label id
+     * @param criteria PathCriteria the criteria
+     * @return double the cost of the label path
+     */
+    double cost(int label, PathCriteria criteria) {
+        switch(criteria){
+            case DISTANCE: return distances[label];
+            case DURATION: return durations[label];
+            default: return sustainabilities[label];
+        }
+    }
+
+    /**
+     * Build the path result of a label, from the origin to its stop
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param label int the label id
+     * @return PathResult the path of the label and its associated information
+     */
+    PathResult getPathResult(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int label) {
+        int length = 0;
+        for(int l = label; predecessors[l] != -1; l = predecessors[l]){
+            length++;
+        }
+        int[] pathStops = new int[length + 1];
+        int[] pathEdges = new int[length];
+        TransportType[] pathTypes = new TransportType[length];
+        int l = label;
+        for(int i = length; i > 0; i--){
+            pathStops[i] = stops[l];
+            pathEdges[i - 1] = edges[l];
+            pathTypes[i - 1] = TRANSPORT_TYPES[types[l]];
+            l = predecessors[l];
+        }
+        pathStops[0] = stops[l];
+        // the labels have the scaled bicycle duration (see TransportChoices)
+        return PathUtils.getPathResult(snapshot, userConfiguration, PathCriteria.DURATION, pathStops, pathEdges, pathTypes);
+    }
+
+    /**
+     * Check if a cost vector dominates another in the dominance criteria
+     * @param distance double the distance of the first vector
+     * @param duration double the duration of the first vector
+     * @param sustainability double the sustainability of the first vector
+     * @param otherDistance double the distance of the second vector
+     * @param otherDuration double the duration of the second vector
+     * @param otherSustainability double the sustainability of the second vector
+     * @return true if the first vector is not worse than the second in any dominance criteria
+     */
+    private boolean dominates(double distance, double duration, double sustainability, double otherDistance, double otherDuration, double otherSustainability) {
+        return (!compareDistance || distance <= otherDistance)
+                && (!compareDuration || duration <= otherDuration)
+                && (!compareSustainability || sustainability <= otherSustainability);
+    }
+}
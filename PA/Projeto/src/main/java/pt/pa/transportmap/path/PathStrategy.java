@@ -3,14 +3,24 @@ package pt.pa.transportmap.path;
 import com.brunomnsilva.smartgraph.graph.Vertex;
 import pt.pa.transportmap.TransportMap;
 import pt.pa.transportmap.TransportType;
+import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import pt.pa.transportmap.Stop;
 import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import pt.pa.transportmap.path.cost.CostStrategy;
 
 /**
  * Define a strategy for finding a path in the transport map
  */
 public interface PathStrategy {
+    /**
+     * Get the cost strategy of the path strategy
+     * @return CostStrategy the cost strategy used to compare the paths
+     */
+    CostStrategy getCostStrategy();
+
     /**
      * Find the path between two vertices that minimizes the cost
      * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
@@ -34,4 +44,86 @@ public interface PathStrategy {
      * @throws InvalidVertexException if origin, destination and intermediaryVertices are not in the graph
      */
     PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException;
+
+    /**
+     * Find the path between two vertices that minimizes the cost, with the costs of other criteria within budgets
+     * (e.g. the most sustainable path that takes no more than 40 minutes). The default uses a ConstrainedSearch.
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @param budgets Map<PathCriteria, Double> the maximum cost of the path by criteria, criteria without budget are not bounded
+     * @return PathResult The path found and its associated information
+     * @throws IllegalArgumentException if a parameter is null, if no transports are provided or if a budget is NaN
+     * @throws InvalidVertexException if origin or destination are not in the graph
+     * @throws IllegalStateException if there is no path within the budgets
+     */
+    default PathResult findLessCostPathWithBudgets(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Map<PathCriteria, Double> budgets) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        return new ConstrainedSearch(getCostStrategy()).findLessCostPathWithBudgets(model, transportList, origin, destination, budgets);
+    }
+
+    /**
+     * Find the Pareto front of the paths between two vertices, the paths not dominated in distance, duration and
+     * sustainability by any other path. The default uses a ParetoSearch with its default label bounds.
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @return List<PathResult> the non-dominated paths found, by increasing duration, empty if there is no path
+     * @throws IllegalArgumentException if graph, origin or destination are null or if no transports are provided
+     * @throws InvalidVertexException if origin or destination are not in the graph
+     */
+    default List<PathResult> findParetoPaths(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException {
+        return new ParetoSearch().findParetoPaths(model, transportList, origin, destination);
+    }
+
+    /**
+     * Find the k less cost paths without repeated stops between two vertices, as alternatives to the less cost path.
+     * The default uses a KShortestPaths with the cost strategy, its default runtime bound and the common pool.
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @param k int the number of paths, at most KShortestPaths.MAX_PATHS
+     * @return List<PathResult> the paths found by increasing cost
+     * @throws IllegalArgumentException if graph, origin or destination are null, if no transports are provided, if k
+     * is out of bounds or if a usable edge has a negative cost
+     * @throws InvalidVertexException if origin or destination are not in the graph
+     * @throws IllegalStateException if there is no path
+     */
+    default List<PathResult> findKLessCostPaths(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, int k) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        return new KShortestPaths(getCostStrategy()).findKLessCostPaths(model, transportList, origin, destination, k);
+    }
+
+    /**
+     * Compute the less cost from every origin to every destination, in the criteria of the cost strategy.
+     * The default uses a TravelMatrix with the common pool, one search per origin.
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origins List<Vertex<Stop>> the origin stops
+     * @param destinations List<Vertex<Stop>> the destination stops
+     * @return double[][] the cost from origins[i] to destinations[j] in [i][j], infinity if there is no path
+     * @throws IllegalArgumentException if a parameter or stop is null or if no transports are provided
+     * @throws InvalidVertexException if a stop is not in the graph
+     */
+    default double[][] findLessCostMatrix(TransportMap model, EnumSet<TransportType> transportList, List<Vertex<Stop>> origins, List<Vertex<Stop>> destinations) throws IllegalArgumentException, InvalidVertexException {
+        return new TravelMatrix().computeCosts(model, getCostStrategy().getPathCriteria(), transportList, origins, destinations);
+    }
+
+    /**
+     * Find the less cost path from the origin to the destination that visits every waypoint, in the order of less cost.
+     * The default uses a WaypointOptimizer with this strategy, exact up to its default number of waypoints.
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @param waypoints Collection<Vertex<Stop>> the stops to visit, in any order
+     * @return PathResult The path found and its associated information
+     * @throws IllegalArgumentException if a parameter or waypoint is null or if no transports are provided
+     * @throws InvalidVertexException if origin, destination or a waypoint are not in the graph
+     * @throws IllegalStateException if a waypoint or the destination can't be reached
+     */
+    default PathResult findLessCostPathVisitingAll(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Collection<Vertex<Stop>> waypoints) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        return new WaypointOptimizer(this).findLessCostPathVisitingAll(model, transportList, origin, destination, waypoints);
+    }
 }
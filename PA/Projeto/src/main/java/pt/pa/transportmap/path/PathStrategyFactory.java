@@ -22,13 +22,17 @@ public class PathStrategyFactory {
         }
         switch(criteria) {
             case DISTANCE:
-                return new DijkstraStrategy(new DistanceCostStrategy());
-                // or DFSStrategy
+                return new AStarStrategy(new DistanceCostStrategy());
+                // or ContractionHierarchyStrategy, ALTStrategy (preprocessed, for many queries on an unchanged map),
+                // BidirectionalDijkstraStrategy, DijkstraStrategy, DFSStrategy
             case DURATION:
-                return new DijkstraStrategy(new DurationCostStrategy());
+                return new BidirectionalDijkstraStrategy(new DurationCostStrategy());
+                // or ContractionHierarchyStrategy, ALTStrategy (preprocessed, for many queries on an unchanged map),
+                // AStarStrategy, its lower bound uses the fastest transport and is loose for slower ones
             case SUSTAINABILITY:
-                return new BellmanStrategy(new SustainabilityCostStrategy());
-                // or DijkstraNegativeFixStrategy
+                return new LooplessStrategy(new SustainabilityCostStrategy());
+                // a usable route with a negative cost is a negative cycle there and back, so the path visits each stop once,
+                // BellmanStrategy and SPFAStrategy throw on it, DijkstraNegativeFixStrategy minimizes the number of stops first
             default:
                 throw new IllegalStateException("PathCriteria is not implemented.");
         }
@@ -8,11 +8,16 @@ import pt.pa.transportmap.*;
 import pt.pa.transportmap.userconfiguration.UserConfiguration;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Utility methods for path strategies
  */
 public class PathUtils {
+    /** Transport types, cached to avoid copying the values array in the relaxation loops */
+    private static final TransportType[] TRANSPORT_TYPES = TransportType.values();
+
     /**
      * Return the minimum transport cost for an edge
      * @param graph TransportMap the graph
@@ -28,11 +33,11 @@ public class PathUtils {
 
         for (TransportType type : transportList) {
             if (edge.element().hasTransport(type)) {
-                if(userConfiguration.isTransportTypeDisabled(edge, type)){
+                if(userConfiguration != null && userConfiguration.isTransportTypeDisabled(edge, type)){
                     continue; // Skip transport type
                 }
                 double transportCost = costStrategy.getCost(edge.element().getTransportInfo(type));
-                if(type == TransportType.BICYCLE && costStrategy.getPathCriteria() == PathCriteria.DURATION){
+                if(userConfiguration != null && type == TransportType.BICYCLE && costStrategy.getPathCriteria() == PathCriteria.DURATION){
                     transportCost = userConfiguration.applyBicycleDurationScale(transportCost);
                 }
                 if (transportCost < minTransportCost) {
@@ -44,6 +49,291 @@ public class PathUtils {
         return new AbstractMap.SimpleEntry<>(minType, minTransportCost);
     }
 
+    /**
+     * Return the transport type with the minimum cost for an edge of a routing snapshot
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param transportMask int the mask of transport types that can be used in the path (see RoutingSnapshot.transportMask)
+     * @param edge int the edge id
+     * @param criteria PathCriteria the path criteria
+     * @return TransportType the transport type with the minimum cost or null if no transport type can be used
+     */
+    public static TransportType getMinimumTransportType(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int transportMask, int edge, PathCriteria criteria) {
+        int available = snapshot.edgeTransports(edge) & transportMask;
+        TransportType minType = null;
+        double minTransportCost = Double.MAX_VALUE;
+
+        for (TransportType type : TRANSPORT_TYPES) {
+            if ((available & (1 << type.ordinal())) == 0) {
+                continue;
+            }
+            if (userConfiguration != null && userConfiguration.isTransportTypeDisabled(snapshot.edge(edge), type)) {
+                continue; // Skip transport type
+            }
+            double transportCost = getTransportCost(snapshot, userConfiguration, edge, type, criteria);
+            if (transportCost < minTransportCost) {
+                minType = type;
+                minTransportCost = transportCost;
+            }
+        }
+        return minType;
+    }
+
+    /**
+     * Return the cost of a transport type in an edge of a routing snapshot, with the user bicycle duration scale applied
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null for no scale
+     * @param edge int the edge id
+     * @param type TransportType the transport type
+     * @param criteria PathCriteria the path criteria
+     * @return double the transport cost or NaN if the transport type is not available in the edge
+     */
+    public static double getTransportCost(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int edge, TransportType type, PathCriteria criteria) {
+        double transportCost = snapshot.cost(edge, type, criteria);
+        if (userConfiguration != null && type == TransportType.BICYCLE && criteria == PathCriteria.DURATION) {
+            transportCost = userConfiguration.applyBicycleDurationScale(transportCost);
+        }
+        return transportCost;
+    }
+
+    /**
+     * Check if all the usable edge costs are non-negative, as required by the label setting searches
+     * (see MinimumCostTable.hasNonNegativeCosts for the cached check of the table arrays)
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @return true if no edge cost is negative
+     */
+    public static boolean hasNonNegativeCosts(double[] edgeCosts) {
+        for(double cost : edgeCosts){
+            if(cost < 0){ return false; } // NaN (can't be used) is not negative
+        }
+        return true;
+    }
+
+    /**
+     * Build the path result of a path given by its stops and edges, choosing the minimum cost transport type of each edge
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param costStrategy CostStrategy the cost strategy
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param stops int[] the stop ids from origin to destination
+     * @param edges int[] the edge ids between consecutive stops (one less than the stops)
+     * @return PathResult the path found and its associated information
+     * @throws IllegalStateException if the path has no edges
+     */
+    public static PathResult getPathResult(RoutingSnapshot snapshot, UserConfiguration userConfiguration, CostStrategy costStrategy, int transportMask, int[] stops, int[] edges) throws IllegalStateException {
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        TransportType[] types = new TransportType[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            types[i] = getMinimumTransportType(snapshot, userConfiguration, transportMask, edges[i], criteria);
+        }
+        return getPathResult(snapshot, userConfiguration, costStrategy.getPathCriteria(), stops, edges, types);
+    }
+
+    /**
+     * Build the path result from the origin to the destination using the predecessor edges and transport types of a
+     * search workspace
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param costStrategy CostStrategy the cost strategy
+     * @param workspace SearchWorkspace the workspace of the search
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id
+     * @return PathResult the path found and its associated information
+     * @throws IllegalStateException if there is no path to the destination
+     */
+    public static PathResult getPathResult(RoutingSnapshot snapshot, UserConfiguration userConfiguration, CostStrategy costStrategy, SearchWorkspace workspace, int origin, int destination) throws IllegalStateException {
+        // count the path edges, from the destination to the origin
+        int length = 0;
+        for(int v = destination; v != origin && workspace.predecessorEdge(v) != -1; v = snapshot.opposite(v, workspace.predecessorEdge(v))){
+            length++;
+        }
+        int[] stops = new int[length + 1];
+        int[] edges = new int[length];
+        TransportType[] types = new TransportType[length];
+        stops[length] = destination;
+        for(int i = length - 1; i >= 0; i--){
+            edges[i] = workspace.predecessorEdge(stops[i + 1]);
+            types[i] = TRANSPORT_TYPES[workspace.transportType(stops[i + 1])];
+            stops[i] = snapshot.opposite(stops[i + 1], edges[i]);
+        }
+        if(stops[0] != origin){
+            throw new IllegalStateException("Path and transport list can't be null or empty.");
+        }
+        return getPathResult(snapshot, userConfiguration, costStrategy.getPathCriteria(), stops, edges, types);
+    }
+
+    /**
+     * Build the path result of a path given by its stops, edges and transport types
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param criteria PathCriteria the criteria of the search, the only one with the bicycle duration scale applied
+     * @param stops int[] the stop ids from origin to destination
+     * @param edges int[] the edge ids between consecutive stops (one less than the stops)
+     * @param types TransportType[] the transport type used in each edge
+     * @return PathResult the path found and its associated information
+     * @throws IllegalStateException if the path has no edges
+     */
+    static PathResult getPathResult(RoutingSnapshot snapshot, UserConfiguration userConfiguration, PathCriteria criteria, int[] stops, int[] edges, TransportType[] types) throws IllegalStateException {
+        // accumulated costs to each stop of the path, by criteria, RouteInfo objects are only created for the result
+        double[] distance = new double[stops.length];
+        double[] duration = new double[stops.length];
+        double[] sustainability = new double[stops.length];
+        for (int i = 0; i < edges.length; i++) {
+            distance[i + 1] = distance[i] + getPathEdgeCost(snapshot, userConfiguration, edges[i], types[i], PathCriteria.DISTANCE, criteria);
+            duration[i + 1] = duration[i] + getPathEdgeCost(snapshot, userConfiguration, edges[i], types[i], PathCriteria.DURATION, criteria);
+            sustainability[i + 1] = sustainability[i] + getPathEdgeCost(snapshot, userConfiguration, edges[i], types[i], PathCriteria.SUSTAINABILITY, criteria);
+        }
+
+        List<Vertex<Stop>> path = new ArrayList<>(stops.length);
+        List<TransportType> pathTransportList = new ArrayList<>(edges.length);
+        List<RouteInfo> pathInfo = new ArrayList<>(edges.length);
+        path.add(snapshot.vertex(stops[0]));
+        for (int i = 1; i < stops.length; i++) {
+            path.add(snapshot.vertex(stops[i]));
+            pathTransportList.add(types[i - 1]);
+            pathInfo.add(new RouteInfo(distance[i], duration[i], sustainability[i]));
+        }
+
+        int last = stops.length - 1;
+        return new PathResult(sustainability[last], duration[last], distance[last], path, pathTransportList, pathInfo);
+    }
+
+    /**
+     * Return the cost of an edge of a path in a criteria, the bicycle duration scale only applies to the path criteria
+     * as in the searches
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null for no scale
+     * @param edge int the edge id
+     * @param type TransportType the transport type used in the edge
+     * @param criteria PathCriteria the criteria of the cost
+     * @param pathCriteria PathCriteria the criteria of the path search
+     * @return double the edge cost
+     */
+    private static double getPathEdgeCost(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int edge, TransportType type, PathCriteria criteria, PathCriteria pathCriteria) {
+        if (criteria == pathCriteria) {
+            return getTransportCost(snapshot, userConfiguration, edge, type, criteria);
+        }
+        return snapshot.cost(edge, type, criteria);
+    }
+
+    /**
+     * Build the path result from the origin to the destination using the predecessor edges of a path search
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param costStrategy CostStrategy the cost strategy
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param predecessorEdges int[] the edge used to reach each stop, by stop id, -1 if not reached
+     * @param origin int the origin stop id
+     * @param destination int the destination stop id
+     * @return PathResult the path found and its associated information
+     * @throws IllegalStateException if there is no path to the destination
+     */
+    public static PathResult getPathResult(RoutingSnapshot snapshot, UserConfiguration userConfiguration, CostStrategy costStrategy, int transportMask, int[] predecessorEdges, int origin, int destination) throws IllegalStateException {
+        // count the path edges, from the destination to the origin
+        int length = 0;
+        for(int v = destination; v != origin && predecessorEdges[v] != -1; v = snapshot.opposite(v, predecessorEdges[v])){
+            length++;
+        }
+        int[] stops = new int[length + 1];
+        int[] edges = new int[length];
+        stops[length] = destination;
+        for(int i = length - 1; i >= 0; i--){
+            edges[i] = predecessorEdges[stops[i + 1]];
+            stops[i] = snapshot.opposite(stops[i + 1], edges[i]);
+        }
+        if(stops[0] != origin){
+            throw new IllegalStateException("Path and transport list can't be null or empty.");
+        }
+        return getPathResult(snapshot, userConfiguration, costStrategy, transportMask, stops, edges);
+    }
+
+    /**
+     * Find the less cost path with intermediary vertices, joining the less cost paths between each pair of consecutive vertices.
+     * The legs are independent, so they are searched in parallel on the common fork-join pool, and the totals are the
+     * sums of the totals of every leg. With a CachedPathStrategy a leg from a stop asked before walks the tree of that
+     * stop, so adding or removing one intermediary vertex searches from scratch only the legs that start at a new stop
+     * @param strategy PathStrategy the strategy used for each pair of consecutive vertices, must be safe to use from several threads
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> the origin vertex
+     * @param destination Vertex<Stop> the destination vertex
+     * @param intermediaryVertices Vertex<Stop>[] the intermediary vertices, in order from origin to destination (exclusive)
+     * @return PathResult the path found and its associated information
+     * @throws IllegalArgumentException if a parameter is null or the intermediary vertices are not in correct order
+     * @throws InvalidVertexException if origin, destination or any intermediary vertex are not in the graph
+     */
+    public static PathResult findLessCostPathPersonalized(PathStrategy strategy, TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
+        if(intermediaryVertices == null || intermediaryVertices.length == 0){
+            return strategy.findLessCostPathBetweenTwoVertices(model, transportList, origin, destination);
+        }
+
+        validateLessCostPathBetweenTwoVerticesPersonalizedParameters(model, transportList, origin, destination, intermediaryVertices);
+
+        List<Vertex<Stop>> stops = new ArrayList<>(intermediaryVertices.length + 2);
+        stops.add(origin);
+        stops.addAll(Arrays.asList(intermediaryVertices));
+        stops.add(destination);
+        return findLessCostPathThrough(strategy, model, transportList, stops);
+    }
+
+    /**
+     * Find the less cost path visiting stops in order, joining the less cost paths between each pair of consecutive
+     * stops (the legs), that don't need to be adjacent. The legs are searched in parallel on the common fork-join pool
+     * and the totals are the sums of the totals of every leg
+     * @param strategy PathStrategy the strategy used for each leg, must be safe to use from several threads
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param stops List<Vertex<Stop>> the stops to visit in order, at least two, consecutive stops must be different
+     * @return PathResult the path found and its associated information
+     * @throws IllegalArgumentException if a parameter is null or if there are less than two stops
+     * @throws InvalidVertexException if a stop is not in the graph
+     * @throws IllegalStateException if there is no path between two consecutive stops
+     */
+    public static PathResult findLessCostPathThrough(PathStrategy strategy, TransportMap model, EnumSet<TransportType> transportList, List<Vertex<Stop>> stops) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        if(strategy == null || stops == null || stops.size() < 2){
+            throw new IllegalArgumentException("Strategy must not be null and at least two stops are needed.");
+        }
+        PathResult[] legs = new PathResult[stops.size() - 1];
+        RuntimeException[] errors = new RuntimeException[legs.length];
+        ForkJoinPool.commonPool().submit(() -> IntStream.range(0, legs.length).parallel().forEach(i -> {
+            try{
+                legs[i] = strategy.findLessCostPathBetweenTwoVertices(model, transportList, stops.get(i), stops.get(i + 1));
+            }catch(RuntimeException e){
+                errors[i] = e;
+            }
+        })).join();
+        // the error of the first leg that failed, thrown as is, as a sequential search would
+        for(RuntimeException error : errors){
+            if(error != null){ throw error; }
+        }
+        return joinLegs(legs);
+    }
+
+    /**
+     * Join the paths of consecutive legs, each leg starts at the last stop of the previous one
+     * @param legs PathResult[] the legs, in order
+     * @return PathResult the joined path, with the sum of the totals of the legs
+     */
+    static PathResult joinLegs(PathResult[] legs) {
+        List<Vertex<Stop>> fullPath = new ArrayList<>();
+        List<TransportType> fullPathTransportList = new ArrayList<>();
+        List<RouteInfo> fullPathInfo = new ArrayList<>();
+        double totalSustainability = 0.0;
+        double totalDuration = 0.0;
+        double totalDistance = 0.0;
+        for(int i = 0; i < legs.length; i++){
+            List<Vertex<Stop>> path = legs[i].getPath();
+            // skip the last stop of a leg, it is the first of the next leg
+            fullPath.addAll(i < legs.length - 1 ? path.subList(0, path.size() - 1) : path);
+            fullPathTransportList.addAll(legs[i].getTransportList());
+            fullPathInfo.addAll(legs[i].getPathInfo());
+            totalSustainability += legs[i].getTotalSustainability();
+            totalDuration += legs[i].getTotalDuration();
+            totalDistance += legs[i].getTotalDistance();
+        }
+        return new PathResult(totalSustainability, totalDuration, totalDistance, fullPath, fullPathTransportList, fullPathInfo);
+    }
+
     /**
      * Update the other costs for a vertex w (adjacent of v/current) in the result map
      * @param vRouteInfo RouteInfo the current/v vertex route info object
@@ -103,7 +393,7 @@ public class PathUtils {
         if(transportList == null || transportList.isEmpty()){
             throw new IllegalArgumentException("No transports selected.");
         }
-        if(!graph.vertices().contains(origin) || !graph.vertices().contains(destination)){
+        if(!graph.hasVertex(origin) || !graph.hasVertex(destination)){
             throw new InvalidVertexException("Origin and destination vertices must be in the graph");
         }
     }
@@ -127,7 +417,7 @@ public class PathUtils {
             if(v == null){
                 throw new IllegalArgumentException("Intermediary vertices must not be null.");
             }
-            if(!graph.vertices().contains(v)){
+            if(!graph.hasVertex(v)){
                 throw new InvalidVertexException("Intermediary vertices must be in the graph.");
             }
 
@@ -157,7 +447,7 @@ public class PathUtils {
         if(graph == null || origin == null){
             throw new IllegalArgumentException("Graph and origin vertex must not be null");
         }
-        if(!graph.vertices().contains(origin)){
+        if(!graph.hasVertex(origin)){
             throw new InvalidVertexException("Origin vertex must be in the graph");
         }
         List<Vertex<Stop>> list = new ArrayList<>();
@@ -182,7 +472,8 @@ public class PathUtils {
     }
 
     /**
-     * Return a collection with the graph vertices that are maxRoutes apart from the origin, using breath first search
+     * Return a collection with the graph vertices that are at most maxRoutes apart from the origin, using breath first
+     * search by levels. See ReachabilitySearch for the stops within a duration, distance or sustainability budget
      * @param origin Vertex<Stop> the origin vertex
      * @param maxRoutes int the maximum number of routes apart
      * @return Collection<Vertex<Stop>> a collection with the graph vertices that are maxRoutes apart from the origin, using breath first search
@@ -193,7 +484,7 @@ public class PathUtils {
         if(graph == null || origin == null){
             throw new IllegalArgumentException("Graph and origin vertex must not be null");
         }
-        if(!graph.vertices().contains(origin)){
+        if(!graph.hasVertex(origin)){
             throw new InvalidVertexException("Origin vertex must be in the graph");
         }
         List<Vertex<Stop>> list = new LinkedList<>();
@@ -201,25 +492,25 @@ public class PathUtils {
         Set<Vertex<Stop>> visited = new HashSet<>();
         Queue<Vertex<Stop>> queue = new ArrayDeque<>();
 
-        int countRoutes = 0;
+        int countRoutes = 0; // routes from the origin to the stops in the queue, one BFS level per route
 
         visited.add(origin); // mark as visited
         queue.add(origin);
-        while(!queue.isEmpty()){
-            Vertex<Stop> v = queue.remove();
-            list.add(v);
-            if(countRoutes < maxRoutes) {
+        while(!queue.isEmpty() && countRoutes < maxRoutes){
+            // expand the whole level, its stops are countRoutes apart from the origin
+            for(int levelSize = queue.size(); levelSize > 0; levelSize--){
+                Vertex<Stop> v = queue.remove();
                 for (Edge<Route, Stop> edge : graph.incidentEdges(v)) {
                     Vertex<Stop> w = graph.opposite(v, edge);
                     if (!visited.contains(w)) {
                         visited.add(w);
                         queue.add(w);
+                        list.add(w);
                     }
                 }
-                countRoutes++;
             }
+            countRoutes++;
         }
-        list.remove(0); // remove origin
         return list;
     }
 
@@ -234,7 +525,7 @@ public class PathUtils {
         if(graph == null || origin == null){
             throw new IllegalArgumentException("Graph and origin vertex must not be null");
         }
-        if(!graph.vertices().contains(origin)){
+        if(!graph.hasVertex(origin)){
             throw new InvalidVertexException("Origin vertex must be in the graph");
         }
         List<Vertex<Stop>> list = new ArrayList<>();
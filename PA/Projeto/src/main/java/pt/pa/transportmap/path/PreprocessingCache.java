@@ -0,0 +1,64 @@
+package pt.pa.transportmap.path;
+
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Cache of data precomputed for a routing snapshot and user configuration, by transport mask.
+ * All entries are dropped when the snapshot is rebuilt (the transport map changed), the user configuration is
+ * replaced or its version changes.
+ * @param <T> the type of the precomputed data
+ */
+public class PreprocessingCache<T> {
+    /** The snapshot the entries were built for */
+    private RoutingSnapshot snapshot;
+    /** The user configuration the entries were built for */
+    private UserConfiguration userConfiguration;
+    /** The user configuration version the entries were built for */
+    private long userConfigurationVersion;
+    /** Entries by transport mask */
+    private final Map<Integer, T> entries;
+
+    /**
+     * Constructor for PreprocessingCache
+     */
+    public PreprocessingCache() {
+        entries = new HashMap<>();
+    }
+
+    /**
+     * Get the entry of a transport mask, building it if there is none for the snapshot and user configuration
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param transportMask int the mask of transport types that can be used in the path
+     * @param builder IntFunction<T> builds the entry of a transport mask
+     * @return T the entry
+     */
+    public synchronized T get(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int transportMask, IntFunction<T> builder) {
+        long version = userConfiguration == null ? 0 : userConfiguration.getVersion();
+        if(this.snapshot != snapshot || this.userConfiguration != userConfiguration || userConfigurationVersion != version){
+            entries.clear();
+            this.snapshot = snapshot;
+            this.userConfiguration = userConfiguration;
+            this.userConfigurationVersion = version;
+        }
+        T entry = entries.get(transportMask);
+        if(entry == null){
+            entry = builder.apply(transportMask);
+            entries.put(transportMask, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Drop all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+        snapshot = null;
+        userConfiguration = null;
+    }
+}
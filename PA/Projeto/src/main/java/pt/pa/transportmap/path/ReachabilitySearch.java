@@ -0,0 +1,95 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+
+import java.util.*;
+
+/**
+ * Reachability within a budget (isochrone): every stop whose less cost from an origin, for one criteria and transport
+ * mask, is within a budget, with that cost. The Dijkstra search never queues a stop over the budget, so it ends after
+ * the stops found and the work is proportional to them and their routes.
+ * The costs must not be negative: routes can be used in both directions, so a usable route with a negative cost
+ * (sustainability on foot or by bicycle) is a negative cycle and every stop it reaches has no less cost.
+ */
+public class ReachabilitySearch {
+
+    /**
+     * Find the stops reachable from the origin within the budget
+     * @param model TransportMap the transport map
+     * @param criteria PathCriteria the criteria of the budget
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origin Vertex<Stop> the origin stop
+     * @param budget double the maximum cost of the paths
+     * @return Map<Vertex<Stop>, Double> the less cost of each stop within the budget, by increasing cost, without the origin
+     * @throws IllegalArgumentException if a parameter is null, if no transports are provided, if the budget is NaN or
+     * if a usable edge has a negative cost
+     * @throws InvalidVertexException if the origin is not in the graph
+     */
+    public Map<Vertex<Stop>, Double> findReachableStops(TransportMap model, PathCriteria criteria, EnumSet<TransportType> transportList, Vertex<Stop> origin, double budget) throws IllegalArgumentException, InvalidVertexException {
+        if(model == null || criteria == null || origin == null){
+            throw new IllegalArgumentException("Graph, criteria and origin must not be null.");
+        }
+        if(transportList == null || transportList.isEmpty()){
+            throw new IllegalArgumentException("No transports selected.");
+        }
+        if(Double.isNaN(budget)){
+            throw new IllegalArgumentException("Budget must be a number.");
+        }
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int originId = snapshot.id(origin);
+        if(originId == -1){
+            throw new InvalidVertexException("Origin must be in the graph.");
+        }
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        if(!minimumCostTable.hasNonNegativeCosts(criteria, transportMask)){
+            throw new IllegalArgumentException("The reachable stops need non-negative costs.");
+        }
+        return reachableStops(snapshot, minimumCostTable.costs(criteria, transportMask), originId, budget);
+    }
+
+    /**
+     * Dijkstra search from the origin pruned at the budget
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param origin int the origin stop id
+     * @param budget double the maximum cost of the paths
+     * @return Map<Vertex<Stop>, Double> the less cost of each stop within the budget, by increasing cost, without the origin
+     */
+    private static Map<Vertex<Stop>, Double> reachableStops(RoutingSnapshot snapshot, double[] edgeCosts, int origin, double budget) {
+        Map<Vertex<Stop>, Double> reachable = new LinkedHashMap<>();
+        if(budget < 0){ return reachable; }
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            IndexedMinHeap heap = workspace.heap();
+            workspace.setOrigin(origin, 0.0);
+            heap.insert(origin, 0.0);
+            while(!heap.isEmpty()){
+                int current = heap.poll();
+                workspace.settle(current);
+                if(current != origin){
+                    reachable.put(snapshot.vertex(current), workspace.cost(current));
+                }
+
+                for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                    double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                    if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                    int w = snapshot.arcTarget(arc);
+                    if(workspace.isSettled(w)){ continue; }
+                    double newCost = workspace.cost(current) + edgeCost;
+                    if(newCost <= budget && newCost < workspace.cost(w)){ // stops over the budget are never queued
+                        workspace.update(w, newCost, snapshot.arcEdge(arc), -1);
+                        heap.insertOrDecreaseKey(w, newCost);
+                    }
+                }
+            }
+            return reachable;
+        }finally{
+            workspace.release();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+/**
+ * Immutable, compiled view of a TransportMap for path finding.
+ * Stops get dense int ids, adjacency is stored in compressed sparse row (CSR) arrays and the route costs are
+ * kept in one primitive array per (TransportType, PathCriteria) pair, indexed by a dense edge id.
+ * Every route is undirected, so it is stored as two arcs, one in each direction.
+ * A snapshot is bound to a model version and must be rebuilt when the model changes (see TransportMap.getRoutingSnapshot).
+ */
+public class RoutingSnapshot {
+    /** Number of transport types */
+    private static final int TRANSPORT_TYPES = TransportType.values().length;
+    /** Mask with all transport types */
+    public static final int ALL_TRANSPORTS = (1 << TRANSPORT_TYPES) - 1;
+
+    /** Model version used to build the snapshot */
+    private final long version;
+    /** Vertices by stop id */
+    private final Vertex<Stop>[] vertices;
+    /** Stop id by vertex */
+    private final Map<Vertex<Stop>, Integer> ids;
+    /** Edges by edge id */
+    private final Edge<Route, Stop>[] edges;
+    /** Edge id by edge */
+    private final Map<Edge<Route, Stop>, Integer> edgeIds;
+    /** First stop id of each edge */
+    private final int[] edgeSource;
+    /** Second stop id of each edge */
+    private final int[] edgeTarget;
+    /** Mask of the transport types available in each edge */
+    private final int[] edgeTransports;
+    /** First arc of each stop, arcs of stop v are in [arcOffsets[v], arcOffsets[v + 1]) */
+    private final int[] arcOffsets;
+    /** Target stop id of each arc */
+    private final int[] arcTargets;
+    /** Edge id of each arc */
+    private final int[] arcEdges;
+    /** Cost of each edge by [criteria][transport type], NaN if the transport is not available in the edge */
+    private final double[][][] costs;
+    /** Latitude of each stop */
+    private final double[] latitudes;
+    /** Longitude of each stop */
+    private final double[] longitudes;
+    /** Maximum ratio between the great-circle distance of the stops of an edge and its cost, by [criteria][transport type] */
+    private final double[][] geodesicSpeeds;
+
+    /**
+     * Compile a snapshot of the model
+     * @param model TransportMap the model
+     * @param version long the model version
+     * @throws IllegalArgumentException if the model is null
+     */
+    public RoutingSnapshot(TransportMap model, long version) throws IllegalArgumentException {
+        if(model == null){
+            throw new IllegalArgumentException("Model must not be null.");
+        }
+        this.version = version;
+
+        // dense stop ids
+        Collection<Vertex<Stop>> vertexList = model.vertices();
+        int numStops = vertexList.size();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Vertex<Stop>[] stopVertices = new Vertex[numStops];
+        vertices = stopVertices;
+        ids = new HashMap<>(numStops * 2);
+        latitudes = new double[numStops];
+        longitudes = new double[numStops];
+        int id = 0;
+        for(Vertex<Stop> vertex : vertexList){
+            vertices[id] = vertex;
+            latitudes[id] = vertex.element().getLatitude();
+            longitudes[id] = vertex.element().getLongitude();
+            ids.put(vertex, id++);
+        }
+
+        // dense edge ids and costs
+        Collection<Edge<Route, Stop>> edgeList = model.edges();
+        int numEdges = edgeList.size();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Edge<Route, Stop>[] routeEdges = new Edge[numEdges];
+        edges = routeEdges;
+        edgeIds = new HashMap<>(numEdges * 2);
+        edgeSource = new int[numEdges];
+        edgeTarget = new int[numEdges];
+        edgeTransports = new int[numEdges];
+        costs = new double[PathCriteria.values().length][TRANSPORT_TYPES][numEdges];
+        for(double[][] criteriaCosts : costs){
+            for(double[] typeCosts : criteriaCosts){
+                Arrays.fill(typeCosts, Double.NaN);
+            }
+        }
+        int[] degree = new int[numStops];
+        id = 0;
+        for(Edge<Route, Stop> edge : edgeList){
+            edges[id] = edge;
+            edgeIds.put(edge, id);
+            edgeSource[id] = ids.get(edge.vertices()[0]);
+            edgeTarget[id] = ids.get(edge.vertices()[1]);
+            degree[edgeSource[id]]++;
+            degree[edgeTarget[id]]++;
+            for(Map.Entry<TransportType, RouteInfo> entry : edge.element().getTransportMap().entrySet()){
+                int type = entry.getKey().ordinal();
+                RouteInfo info = entry.getValue();
+                edgeTransports[id] |= 1 << type;
+                costs[PathCriteria.DISTANCE.ordinal()][type][id] = info.getDistance();
+                costs[PathCriteria.DURATION.ordinal()][type][id] = info.getDuration();
+                costs[PathCriteria.SUSTAINABILITY.ordinal()][type][id] = info.getSustainability();
+            }
+            id++;
+        }
+
+        // geodesic speeds, for lower bounds of distance and duration
+        geodesicSpeeds = new double[PathCriteria.values().length][TRANSPORT_TYPES];
+        for(int e = 0; e < numEdges; e++){
+            double geodesicDistance = geodesicDistance(edgeSource[e], edgeTarget[e]);
+            if(geodesicDistance == 0.0){ continue; }
+            for(PathCriteria criteria : new PathCriteria[]{ PathCriteria.DISTANCE, PathCriteria.DURATION }){
+                for(int type = 0; type < TRANSPORT_TYPES; type++){
+                    double cost = costs[criteria.ordinal()][type][e];
+                    if(Double.isNaN(cost)){ continue; }
+                    double speed = cost > 0.0 ? geodesicDistance / cost : Double.POSITIVE_INFINITY;
+                    geodesicSpeeds[criteria.ordinal()][type] = Math.max(geodesicSpeeds[criteria.ordinal()][type], speed);
+                }
+            }
+        }
+
+        // compressed sparse row adjacency, prefix sums of degrees
+        arcOffsets = new int[numStops + 1];
+        for(int v = 0; v < numStops; v++){
+            arcOffsets[v + 1] = arcOffsets[v] + degree[v];
+        }
+        arcTargets = new int[arcOffsets[numStops]];
+        arcEdges = new int[arcOffsets[numStops]];
+        int[] next = Arrays.copyOf(arcOffsets, numStops);
+        for(int e = 0; e < numEdges; e++){
+            int u = edgeSource[e];
+            int v = edgeTarget[e];
+            arcTargets[next[u]] = v;
+            arcEdges[next[u]++] = e;
+            if(u != v){ // self loops are stored once
+                arcTargets[next[v]] = u;
+                arcEdges[next[v]++] = e;
+            }
+        }
+    }
+
+    /**
+     * Return a bit mask of the transport types, with bit i set for the transport type with ordinal i
+     * @param transportList Collection<TransportType> the transport types
+     * @return int the transport mask
+     */
+    public static int transportMask(Collection<TransportType> transportList) {
+        int mask = 0;
+        for(TransportType type : transportList){
+            mask |= 1 << type.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Get the model version used to build the snapshot
+     * @return long the model version
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Get the number of stops
+     * @return int the number of stops
+     */
+    public int numStops() { return vertices.length; }
+
+    /**
+     * Get the number of edges (routes)
+     * @return int the number of edges
+     */
+    public int numEdges() { return edges.length; }
+
+    /**
+     * Get the dense id of a vertex
+     * @param vertex Vertex<Stop> the vertex
+     * @return int the vertex id or -1 if the vertex is not in the snapshot
+     */
+    public int id(Vertex<Stop> vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Get the vertex with a dense id
+     * @param id int the vertex id
+     * @return Vertex<Stop> the vertex
+     */
+    public Vertex<Stop> vertex(int id) { return vertices[id]; }
+
+    /**
+     * Get the edge with a dense id
+     * @param edge int the edge id
+     * @return Edge<Route, Stop> the edge
+     */
+    public Edge<Route, Stop> edge(int edge) { return edges[edge]; }
+
+    /**
+     * Get the dense id of an edge
+     * @param edge Edge<Route, Stop> the edge
+     * @return int the edge id or -1 if the edge is not in the snapshot
+     */
+    public int edgeId(Edge<Route, Stop> edge) {
+        Integer id = edgeIds.get(edge);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Get the first stop id of an edge
+     * @param edge int the edge id
+     * @return int the first stop id
+     */
+    public int edgeSource(int edge) { return edgeSource[edge]; }
+
+    /**
+     * Get the second stop id of an edge
+     * @param edge int the edge id
+     * @return int the second stop id
+     */
+    public int edgeTarget(int edge) { return edgeTarget[edge]; }
+
+    /**
+     * Get the mask of transport types available in an edge
+     * @param edge int the edge id
+     * @return int the transport mask
+     */
+    public int edgeTransports(int edge) { return edgeTransports[edge]; }
+
+    /**
+     * Check if a transport type is available in an edge
+     * @param edge int the edge id
+     * @param type TransportType the transport type
+     * @return true if the transport type is available in the edge
+     */
+    public boolean hasTransport(int edge, TransportType type) {
+        return (edgeTransports[edge] & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * Get the first arc of a stop
+     * @param v int the stop id
+     * @return int the first arc index
+     */
+    public int arcStart(int v) { return arcOffsets[v]; }
+
+    /**
+     * Get the end of the arcs of a stop (exclusive)
+     * @param v int the stop id
+     * @return int the arc index after the last arc of the stop
+     */
+    public int arcEnd(int v) { return arcOffsets[v + 1]; }
+
+    /**
+     * Get the target stop of an arc
+     * @param arc int the arc index
+     * @return int the target stop id
+     */
+    public int arcTarget(int arc) { return arcTargets[arc]; }
+
+    /**
+     * Get the edge of an arc
+     * @param arc int the arc index
+     * @return int the edge id
+     */
+    public int arcEdge(int arc) { return arcEdges[arc]; }
+
+    /**
+     * Get the opposite stop of an edge
+     * @param v int the stop id
+     * @param edge int the edge id
+     * @return int the opposite stop id
+     */
+    public int opposite(int v, int edge) {
+        return edgeSource[edge] == v ? edgeTarget[edge] : edgeSource[edge];
+    }
+
+    /**
+     * Get the cost of an edge for a transport type and criteria
+     * @param edge int the edge id
+     * @param type TransportType the transport type
+     * @param criteria PathCriteria the criteria
+     * @return double the cost or NaN if the transport type is not available in the edge
+     */
+    public double cost(int edge, TransportType type, PathCriteria criteria) {
+        return costs[criteria.ordinal()][type.ordinal()][edge];
+    }
+
+    /**
+     * Get the great-circle distance between two stops
+     * @param u int the first stop id
+     * @param v int the second stop id
+     * @return double the great-circle distance in km
+     */
+    public double geodesicDistance(int u, int v) {
+        return Stop.greatCircleDistance(latitudes[u], longitudes[u], latitudes[v], longitudes[v]);
+    }
+
+    /**
+     * Get the maximum ratio between the great-circle distance of the stops of an edge and its cost, over all edges with a transport type.
+     * Any path with that transport type costs at least the great-circle distance divided by this speed.
+     * Only defined for the DISTANCE and DURATION criteria, as sustainability costs may be negative.
+     * @param type TransportType the transport type
+     * @param criteria PathCriteria the criteria
+     * @return double the geodesic speed, 0 if no edge has the transport type or infinity if an edge has no cost
+     */
+    public double geodesicSpeed(TransportType type, PathCriteria criteria) {
+        return geodesicSpeeds[criteria.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * Get the costs of all edges for a transport type and criteria. The array must not be changed.
+     * @param type TransportType the transport type
+     * @param criteria PathCriteria the criteria
+     * @return double[] the costs by edge id, NaN if the transport type is not available in the edge
+     */
+    public double[] costs(TransportType type, PathCriteria criteria) {
+        return costs[criteria.ordinal()][type.ordinal()];
+    }
+}
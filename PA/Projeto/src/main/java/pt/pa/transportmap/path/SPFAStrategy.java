@@ -0,0 +1,181 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+/**
+ * Queue based Bellman-Ford class (Shortest Path Faster Algorithm), a negative cycle detection strategy.
+ * Only the neighbours of improved vertices are relaxed again, and the search ends when the queue is empty (no cost
+ * changed), so on sparse graphs it is close to linear instead of the O(V.E) of BellmanStrategy.
+ * A vertex reached by a path of |V| or more edges shows a negative cycle, which is found in the predecessors and
+ * reported with a NegativeCycleException. As routes can be used in both directions, a usable route with a negative
+ * cost is such a cycle, so it is not a sustainability search: it finds the routes with negative costs (see
+ * findNegativeCycle) and the less cost paths of non-negative costs. Sustainability paths are found by LooplessStrategy.
+ */
+public class SPFAStrategy implements PathStrategy {
+    /** The cost strategy to use */
+    CostStrategy costStrategy;
+
+    /**
+     * Constructor for SPFAStrategy
+     * @param costStrategy CostStrategy the cost strategy to use
+     */
+    public SPFAStrategy(CostStrategy costStrategy){
+        this.costStrategy = costStrategy;
+    }
+
+    /**
+     * Find the less cost path from the origins to every vertex
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param edgeTypes byte[] the ordinal of the minimum cost transport type of each edge, by edge id
+     * @param origins int[] the origin stop ids, all with cost 0
+     * @param workspace SearchWorkspace the workspace, filled with the less cost path to each vertex
+     * @throws NegativeCycleException if a negative cycle is reachable from the origins
+     */
+    private static void lessCostPath(RoutingSnapshot snapshot, double[] edgeCosts, byte[] edgeTypes, int[] origins, SearchWorkspace workspace) throws NegativeCycleException {
+        int numStops = snapshot.numStops();
+        // first in first out queue, the heap keys are the order of insertion and a vertex is only queued once
+        IndexedMinHeap queue = workspace.heap();
+        long insertions = 0;
+        for(int origin : origins){
+            workspace.setOrigin(origin, 0.0);
+            workspace.setPathLength(origin, 0);
+            queue.insert(origin, insertions++);
+        }
+
+        // relax the neighbours of the improved vertices until no cost changes
+        while(!queue.isEmpty()){
+            int current = queue.poll();
+            double currentCost = workspace.cost(current);
+            for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                int edge = snapshot.arcEdge(arc);
+                double edgeCost = edgeCosts[edge];
+                if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                int w = snapshot.arcTarget(arc);
+                double newCost = currentCost + edgeCost;
+
+                if(newCost < workspace.cost(w)){
+                    int pathLength = workspace.pathLength(current) + 1;
+                    workspace.update(w, newCost, edge, edgeTypes[edge]);
+                    workspace.setPathLength(w, pathLength);
+                    if(pathLength >= numStops){
+                        // a path with |V| edges repeats a vertex, so there is a negative cycle, look for it in the predecessors
+                        int inCycle = findPredecessorCycle(snapshot, workspace, w);
+                        if(inCycle != -1){
+                            throw negativeCycle(snapshot, edgeCosts, workspace, inCycle);
+                        }
+                    }
+                    if(!queue.contains(w)){
+                        queue.insert(w, insertions++);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find a cycle in the predecessors of a stop, any such cycle has a negative cost
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param workspace SearchWorkspace the workspace with the edge used to reach each stop
+     * @param v int the stop id where the walk starts
+     * @return int a stop of the cycle, -1 if the predecessors of v reach an origin
+     */
+    private static int findPredecessorCycle(RoutingSnapshot snapshot, SearchWorkspace workspace, int v) {
+        // a walk of |V| predecessors that doesn't reach an origin is in a cycle
+        for(int i = 0; i < snapshot.numStops(); i++){
+            int edge = workspace.predecessorEdge(v);
+            if(edge == -1){ return -1; }
+            v = snapshot.opposite(v, edge);
+        }
+        return v;
+    }
+
+    /**
+     * Build the exception with a negative cycle of the predecessor edges
+     * @param snapshot RoutingSnapshot the routing snapshot of the graph
+     * @param edgeCosts double[] the minimum cost of each edge
+     * @param workspace SearchWorkspace the workspace with the edge used to reach each stop
+     * @param v int a stop of the cycle
+     * @return NegativeCycleException the exception with the cycle
+     */
+    private static NegativeCycleException negativeCycle(RoutingSnapshot snapshot, double[] edgeCosts, SearchWorkspace workspace, int v) {
+        LinkedList<Vertex<Stop>> cycle = new LinkedList<>();
+        LinkedList<Edge<Route, Stop>> cycleEdges = new LinkedList<>();
+        double cycleCost = 0.0;
+        int current = v;
+        do{
+            // walk the predecessors backward, adding to the front keeps the cycle in order
+            int edge = workspace.predecessorEdge(current);
+            cycleCost += edgeCosts[edge];
+            cycle.addFirst(snapshot.vertex(current));
+            cycleEdges.addFirst(snapshot.edge(edge));
+            current = snapshot.opposite(current, edge);
+        }while(current != v);
+        // each edge arrives at its stop, move the first to the end so edge i leaves stop i
+        cycleEdges.addLast(cycleEdges.removeFirst());
+        return new NegativeCycleException(cycle, cycleEdges, cycleCost);
+    }
+
+    /**
+     * Find a negative cycle anywhere in the graph, starting the search from every vertex
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> the transport types that can be used in the cycle
+     * @return Optional<NegativeCycleException> the negative cycle found, empty if there is none
+     * @throws IllegalArgumentException if a parameter is null
+     */
+    public Optional<NegativeCycleException> findNegativeCycle(TransportMap model, EnumSet<TransportType> transportList) throws IllegalArgumentException {
+        if(model == null || transportList == null){
+            throw new IllegalArgumentException("Graph and transport list cannot be null.");
+        }
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int[] origins = new int[snapshot.numStops()];
+        for(int v = 0; v < origins.length; v++){
+            origins[v] = v;
+        }
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            lessCostPath(snapshot, minimumCostTable.costs(criteria, transportMask), minimumCostTable.types(criteria, transportMask), origins, workspace);
+            return Optional.empty();
+        }catch(NegativeCycleException e){
+            return Optional.of(e);
+        }finally{
+            workspace.release();
+        }
+    }
+
+    @Override
+    public CostStrategy getCostStrategy() {
+        return costStrategy;
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVertices(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) throws IllegalArgumentException, InvalidVertexException, NegativeCycleException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        PathCriteria criteria = costStrategy.getPathCriteria();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        int originId = snapshot.id(origin);
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            lessCostPath(snapshot, minimumCostTable.costs(criteria, transportMask), minimumCostTable.types(criteria, transportMask), new int[]{ originId }, workspace);
+            return PathUtils.getPathResult(snapshot, minimumCostTable.getUserConfiguration(), costStrategy, workspace, originId, snapshot.id(destination));
+        }finally{
+            workspace.release();
+        }
+    }
+
+    @Override
+    public PathResult findLessCostPathBetweenTwoVerticesPersonalized(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException, NegativeCycleException {
+        return PathUtils.findLessCostPathPersonalized(this, model, transportList, origin, destination, intermediaryVertices);
+    }
+}
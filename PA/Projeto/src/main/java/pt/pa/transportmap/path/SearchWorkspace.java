@@ -0,0 +1,183 @@
+package pt.pa.transportmap.path;
+
+import java.util.Arrays;
+
+/**
+ * Reusable arrays of a single source path search: cost, predecessor edge, transport type and path length of each stop,
+ * the settled stops and the heap.
+ * Each thread keeps two workspaces (see acquire), one per direction of a bidirectional search, so a strategy has no
+ * state of its own and the queries of different threads can run in parallel without allocating per stop data.
+ * The arrays are not cleared between searches, a stop value is only valid if its stamp is the current epoch, so reset
+ * is O(1) (the epoch is incremented).
+ */
+public class SearchWorkspace {
+    /** Number of workspaces kept by each thread, a bidirectional search uses two at the same time */
+    private static final int WORKSPACES_PER_THREAD = 2;
+    /** The workspaces of each thread */
+    private static final ThreadLocal<SearchWorkspace[]> WORKSPACES = ThreadLocal.withInitial(() -> new SearchWorkspace[WORKSPACES_PER_THREAD]);
+    /** Type value of a stop not reached by a route */
+    private static final byte NO_TYPE = -1;
+
+    /** Cost of each stop, valid if stamped */
+    private final double[] costs;
+    /** Edge used to reach each stop, valid if stamped */
+    private final int[] predecessorEdges;
+    /** Ordinal of the transport type used to reach each stop, valid if stamped */
+    private final byte[] transportTypes;
+    /** Number of edges of the path to each stop, valid if stamped, kept by the label correcting searches */
+    private final int[] pathLengths;
+    /** Epoch of the last cost update of each stop */
+    private final int[] stamps;
+    /** Epoch in which each stop was settled */
+    private final int[] settledStamps;
+    /** The heap of the search */
+    private final IndexedMinHeap heap;
+    /** The current epoch */
+    private int epoch;
+    /** True if the workspace is used by a search of its thread */
+    private boolean inUse;
+
+    /**
+     * Constructor for SearchWorkspace
+     * @param capacity int the number of stops
+     */
+    SearchWorkspace(int capacity) {
+        costs = new double[capacity];
+        predecessorEdges = new int[capacity];
+        transportTypes = new byte[capacity];
+        pathLengths = new int[capacity];
+        stamps = new int[capacity];
+        settledStamps = new int[capacity];
+        heap = new IndexedMinHeap(capacity);
+        epoch = 0;
+        inUse = false;
+    }
+
+    /**
+     * Get a free workspace of the current thread, reset and with room for the stops, it must be released after the search.
+     * If both thread workspaces are in use (a search inside a bidirectional search), a new workspace is returned.
+     * @param numStops int the number of stops of the search
+     * @return SearchWorkspace the workspace
+     */
+    public static SearchWorkspace acquire(int numStops) {
+        SearchWorkspace[] workspaces = WORKSPACES.get();
+        SearchWorkspace workspace = null;
+        for(int i = 0; i < workspaces.length && workspace == null; i++){
+            if(workspaces[i] == null || (!workspaces[i].inUse && workspaces[i].costs.length < numStops)){
+                workspaces[i] = new SearchWorkspace(numStops);
+            }
+            if(!workspaces[i].inUse){
+                workspace = workspaces[i];
+            }
+        }
+        if(workspace == null){
+            workspace = new SearchWorkspace(numStops);
+        }
+        workspace.inUse = true;
+        workspace.reset();
+        return workspace;
+    }
+
+    /**
+     * Release the workspace, so the next search of the thread can use it
+     */
+    public void release() {
+        inUse = false;
+    }
+
+    /**
+     * Forget every stop value, in O(1) unless the epoch overflows
+     */
+    public void reset() {
+        heap.clear();
+        if(++epoch == Integer.MAX_VALUE){
+            Arrays.fill(stamps, 0);
+            Arrays.fill(settledStamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Check if a stop was reached in this search
+     * @param v int the stop id
+     * @return true if the stop has a cost
+     */
+    public boolean isReached(int v) { return stamps[v] == epoch; }
+
+    /**
+     * Get the cost of a stop
+     * @param v int the stop id
+     * @return double the cost, infinity if not reached
+     */
+    public double cost(int v) { return stamps[v] == epoch ? costs[v] : Double.POSITIVE_INFINITY; }
+
+    /**
+     * Get the edge used to reach a stop
+     * @param v int the stop id
+     * @return int the edge id, -1 if not reached or the origin
+     */
+    public int predecessorEdge(int v) { return stamps[v] == epoch ? predecessorEdges[v] : -1; }
+
+    /**
+     * Get the ordinal of the transport type used to reach a stop
+     * @param v int the stop id
+     * @return int the transport type ordinal, -1 if not reached or the origin
+     */
+    public int transportType(int v) { return stamps[v] == epoch ? transportTypes[v] : NO_TYPE; }
+
+    /**
+     * Set the cost of an origin, without predecessor
+     * @param v int the stop id
+     * @param cost double the cost
+     */
+    public void setOrigin(int v, double cost) {
+        update(v, cost, -1, NO_TYPE);
+    }
+
+    /**
+     * Set the cost of a stop and how it was reached
+     * @param v int the stop id
+     * @param cost double the cost
+     * @param predecessorEdge int the edge used to reach the stop
+     * @param transportType int the ordinal of the transport type used to reach the stop
+     */
+    public void update(int v, double cost, int predecessorEdge, int transportType) {
+        costs[v] = cost;
+        predecessorEdges[v] = predecessorEdge;
+        transportTypes[v] = (byte) transportType;
+        stamps[v] = epoch;
+    }
+
+    /**
+     * Get the number of edges of the path to a stop, set by setPathLength
+     * @param v int the stop id
+     * @return int the number of edges, 0 if not reached
+     */
+    public int pathLength(int v) { return stamps[v] == epoch ? pathLengths[v] : 0; }
+
+    /**
+     * Set the number of edges of the path to a reached stop, after its update
+     * @param v int the stop id
+     * @param pathLength int the number of edges
+     */
+    public void setPathLength(int v, int pathLength) { pathLengths[v] = pathLength; }
+
+    /**
+     * Check if a stop was settled in this search
+     * @param v int the stop id
+     * @return true if the stop was settled
+     */
+    public boolean isSettled(int v) { return settledStamps[v] == epoch; }
+
+    /**
+     * Mark a stop as settled
+     * @param v int the stop id
+     */
+    public void settle(int v) { settledStamps[v] = epoch; }
+
+    /**
+     * Get the heap of the search, empty after reset
+     * @return IndexedMinHeap the heap
+     */
+    public IndexedMinHeap heap() { return heap; }
+}
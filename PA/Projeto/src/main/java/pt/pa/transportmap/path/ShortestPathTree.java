@@ -0,0 +1,208 @@
+package pt.pa.transportmap.path;
+
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.Arrays;
+
+/**
+ * Tree of the less cost paths from a source stop to every stop, for one criteria and transport mask, by a Dijkstra
+ * search on the minimum edge costs, which must not be negative. The path to a stop is the walk of the predecessor
+ * edges back to the source. As routes can be used in both directions, it is also the tree of the less cost paths from
+ * every stop to the source.
+ * When the cost of some edges changes (a route or transport type disabled or enabled) the tree can be repaired,
+ * searching only the stops whose less cost may change (see repair).
+ */
+public class ShortestPathTree {
+    /** The routing snapshot */
+    private final RoutingSnapshot snapshot;
+    /** The mask of transport types that can be used in the paths */
+    private final int transportMask;
+    /** The source stop id */
+    private final int source;
+    /** The less cost of each stop, infinity if not reached */
+    private final double[] costs;
+    /** The edge used to reach each stop, -1 for the source or if not reached */
+    private final int[] predecessorEdges;
+
+    /**
+     * Constructor for ShortestPathTree, runs the Dijkstra search from the source
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used, not negative
+     * @param transportMask int the mask of transport types of the edge costs
+     * @param source int the source stop id
+     */
+    ShortestPathTree(RoutingSnapshot snapshot, double[] edgeCosts, int transportMask, int source) {
+        this.snapshot = snapshot;
+        this.transportMask = transportMask;
+        this.source = source;
+        costs = new double[snapshot.numStops()];
+        predecessorEdges = new int[snapshot.numStops()];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessorEdges, -1);
+        IndexedMinHeap heap = new IndexedMinHeap(snapshot.numStops());
+        costs[source] = 0.0;
+        heap.insert(source, 0.0);
+        while(!heap.isEmpty()){
+            int current = heap.poll();
+            for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                int w = snapshot.arcTarget(arc);
+                double newCost = costs[current] + edgeCost;
+                if(newCost < costs[w]){
+                    costs[w] = newCost;
+                    predecessorEdges[w] = snapshot.arcEdge(arc);
+                    heap.insertOrDecreaseKey(w, newCost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor for ShortestPathTree, with the costs and predecessor edges of a search
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param transportMask int the mask of transport types of the edge costs
+     * @param source int the source stop id
+     * @param costs double[] the less cost of each stop
+     * @param predecessorEdges int[] the edge used to reach each stop
+     */
+    private ShortestPathTree(RoutingSnapshot snapshot, int transportMask, int source, double[] costs, int[] predecessorEdges) {
+        this.snapshot = snapshot;
+        this.transportMask = transportMask;
+        this.source = source;
+        this.costs = costs;
+        this.predecessorEdges = predecessorEdges;
+    }
+
+    /**
+     * Repair the tree after the cost of some edges changed, in the style of Ramalingam and Reps: the stops whose tree
+     * path uses a changed edge (the subtrees below the changed tree edges) lose their cost and are searched again from
+     * the unaffected stops around them, together with the improvements through the changed edges. Only the stops
+     * whose cost changes are searched, the other stops keep their cost and predecessor edge.
+     * @param edgeCosts double[] the new minimum cost of each edge, NaN if the edge can't be used
+     * @param changedEdges int[] the edges whose cost may have changed
+     * @return ShortestPathTree the repaired tree, this tree is not changed, or null if a changed edge has a negative cost
+     */
+    ShortestPathTree repair(double[] edgeCosts, int[] changedEdges) {
+        for(int edge : changedEdges){
+            if(edgeCosts[edge] < 0){ return null; } // NaN (can't be used) is not negative
+        }
+        int numStops = snapshot.numStops();
+        double[] newCosts = costs.clone();
+        int[] newPredecessorEdges = predecessorEdges.clone();
+
+        // stops whose tree path uses a changed edge, found down the tree from the stop below each changed tree edge
+        boolean[] affected = new boolean[numStops];
+        int[] affectedStops = new int[numStops];
+        int numAffected = 0;
+        int[] stack = new int[numStops];
+        for(int edge : changedEdges){
+            int child = predecessorEdges[snapshot.edgeSource(edge)] == edge ? snapshot.edgeSource(edge)
+                    : predecessorEdges[snapshot.edgeTarget(edge)] == edge ? snapshot.edgeTarget(edge) : -1;
+            if(child == -1 || affected[child]){ continue; } // not a tree edge or already in an affected subtree
+            int top = 0;
+            stack[top++] = child;
+            affected[child] = true;
+            while(top > 0){
+                int v = stack[--top];
+                affectedStops[numAffected++] = v;
+                newCosts[v] = Double.POSITIVE_INFINITY;
+                newPredecessorEdges[v] = -1;
+                for(int arc = snapshot.arcStart(v); arc < snapshot.arcEnd(v); arc++){
+                    int w = snapshot.arcTarget(arc);
+                    if(!affected[w] && predecessorEdges[w] == snapshot.arcEdge(arc)){
+                        affected[w] = true;
+                        stack[top++] = w;
+                    }
+                }
+            }
+        }
+
+        IndexedMinHeap heap = new IndexedMinHeap(numStops);
+        // each affected stop starts with its best unaffected neighbour
+        for(int i = 0; i < numAffected; i++){
+            int v = affectedStops[i];
+            for(int arc = snapshot.arcStart(v); arc < snapshot.arcEnd(v); arc++){
+                int w = snapshot.arcTarget(arc);
+                double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                if(affected[w] || Double.isNaN(edgeCost)){ continue; }
+                if(newCosts[w] + edgeCost < newCosts[v]){
+                    newCosts[v] = newCosts[w] + edgeCost;
+                    newPredecessorEdges[v] = snapshot.arcEdge(arc);
+                }
+            }
+            if(newCosts[v] != Double.POSITIVE_INFINITY){
+                heap.insertOrDecreaseKey(v, newCosts[v]);
+            }
+        }
+        // a changed edge with a lower cost can improve the stops at its ends
+        for(int edge : changedEdges){
+            double edgeCost = edgeCosts[edge];
+            if(Double.isNaN(edgeCost)){ continue; }
+            int u = snapshot.edgeSource(edge);
+            int w = snapshot.edgeTarget(edge);
+            for(int d = 0; d < 2; d++, u = w, w = snapshot.edgeSource(edge)){
+                if(newCosts[u] + edgeCost < newCosts[w]){
+                    newCosts[w] = newCosts[u] + edgeCost;
+                    newPredecessorEdges[w] = edge;
+                    heap.insertOrDecreaseKey(w, newCosts[w]);
+                }
+            }
+        }
+        // propagate the new costs, a stop is searched again only if its cost improves
+        while(!heap.isEmpty()){
+            int current = heap.poll();
+            for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                int w = snapshot.arcTarget(arc);
+                double newCost = newCosts[current] + edgeCost;
+                if(newCost < newCosts[w]){
+                    newCosts[w] = newCost;
+                    newPredecessorEdges[w] = snapshot.arcEdge(arc);
+                    heap.insertOrDecreaseKey(w, newCost);
+                }
+            }
+        }
+        return new ShortestPathTree(snapshot, transportMask, source, newCosts, newPredecessorEdges);
+    }
+
+    /**
+     * Get the routing snapshot the tree was built for
+     * @return RoutingSnapshot the routing snapshot
+     */
+    public RoutingSnapshot getSnapshot() { return snapshot; }
+
+    /**
+     * Get the source stop of the tree
+     * @return int the source stop id
+     */
+    public int getSource() { return source; }
+
+    /**
+     * Get the less cost between the source and a stop
+     * @param v int the stop id
+     * @return double the cost, infinity if the stop is not reached
+     */
+    public double cost(int v) { return costs[v]; }
+
+    /**
+     * Get the edge of the tree between a stop and the next stop towards the source
+     * @param v int the stop id
+     * @return int the edge id, -1 for the source or if the stop is not reached
+     */
+    public int predecessorEdge(int v) { return predecessorEdges[v]; }
+
+    /**
+     * Build the path result from the source to a stop, walking the predecessor edges
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param costStrategy CostStrategy the cost strategy of the tree criteria
+     * @param destination int the destination stop id
+     * @return PathResult the path found and its associated information
+     * @throws IllegalStateException if the destination is not reached or is the source
+     */
+    public PathResult getPathResult(UserConfiguration userConfiguration, CostStrategy costStrategy, int destination) throws IllegalStateException {
+        return PathUtils.getPathResult(snapshot, userConfiguration, costStrategy, transportMask, predecessorEdges, source, destination);
+    }
+}
@@ -0,0 +1,304 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.observerpattern.Observable;
+import pt.pa.observerpattern.Observer;
+import pt.pa.transportmap.Route;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the shortest path trees of the recent origins, so a query from the same origin with the same
+ * criteria and transports is a walk of the tree predecessor edges.
+ * Trees are keyed by origin, criteria, transport mask, map version and user configuration version, and the least
+ * recently used tree is evicted when the capacity is exceeded. Every change of the map or of the user configuration
+ * (all the configuration commands) changes a version, so a stale tree is never returned.
+ * The cache observes the user configuration: when only some routes changed (a route or transport type disabled or
+ * enabled, and their undo) the trees are repaired on the next get, searching only the stops whose cost may change,
+ * so exploring what happens when a route is disabled doesn't rebuild every tree. All trees are dropped when the map
+ * changes, another user configuration is loaded or the whole configuration changed (bicycle scale, reset).
+ * A tree is a whole single source search, so getIfRepeated only builds it for a key asked before: the first query
+ * from an origin can be answered by a point-to-point search and only the origins asked again get a tree.
+ * Only non-negative costs have a tree, see ShortestPathTree.
+ */
+public class ShortestPathTreeCache implements Observer {
+    /** Default maximum number of trees */
+    public static final int DEFAULT_CAPACITY = 64;
+    /** Maximum number of changed routes repaired, more changes drop all trees */
+    public static final int MAX_REPAIRED_EDGES = 16;
+
+    /** Maximum number of trees */
+    private final int capacity;
+    /** Trees by key, in access order */
+    private final LinkedHashMap<Key, ShortestPathTree> trees;
+    /** Keys asked once by getIfRepeated without a tree, in access order */
+    private final LinkedHashMap<Key, Boolean> requested;
+    /** The user configuration the trees were built for, observed by the cache */
+    private UserConfiguration userConfiguration;
+    /** The routing snapshot the trees were built for */
+    private RoutingSnapshot snapshot;
+    /** The map version the trees were built for */
+    private long graphVersion;
+    /** The user configuration version the trees were built for */
+    private long userConfigurationVersion;
+    /** The edges changed since the trees were built or repaired */
+    private final LinkedHashSet<Integer> changedEdges;
+    /** Whether the whole configuration changed since the trees were built or repaired */
+    private boolean changedAll;
+    /** The number of changes notified since the trees were built or repaired */
+    private long changes;
+
+    /**
+     * Key of a tree
+     */
+    private static final class Key {
+        final int origin;
+        final PathCriteria criteria;
+        final int transportMask;
+        final long graphVersion;
+        final long userConfigurationVersion;
+
+        Key(int origin, PathCriteria criteria, int transportMask, long graphVersion, long userConfigurationVersion) {
+            this.origin = origin;
+            this.criteria = criteria;
+            this.transportMask = transportMask;
+            this.graphVersion = graphVersion;
+            this.userConfigurationVersion = userConfigurationVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)){ return false; }
+            Key key = (Key) o;
+            return origin == key.origin && criteria == key.criteria && transportMask == key.transportMask
+                    && graphVersion == key.graphVersion && userConfigurationVersion == key.userConfigurationVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(origin, criteria, transportMask, graphVersion, userConfigurationVersion);
+        }
+    }
+
+    /**
+     * Constructor for ShortestPathTreeCache, with the default capacity
+     */
+    public ShortestPathTreeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for ShortestPathTreeCache
+     * @param capacity int the maximum number of trees
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public ShortestPathTreeCache(int capacity) throws IllegalArgumentException {
+        if(capacity <= 0){
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.trees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ShortestPathTree> eldest) {
+                return size() > ShortestPathTreeCache.this.capacity;
+            }
+        };
+        this.requested = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                return size() > ShortestPathTreeCache.this.capacity;
+            }
+        };
+        this.changedEdges = new LinkedHashSet<>();
+    }
+
+    /**
+     * Get the shortest path tree of an origin, building it if it is not cached, the cached trees are repaired first if
+     * some routes changed. A missing tree is built outside the lock, so the searches of different origins (the legs of
+     * a personalized path) run in parallel
+     * @param model TransportMap the transport map
+     * @param criteria PathCriteria the path criteria
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origin Vertex<Stop> the origin stop
+     * @return ShortestPathTree the tree of the origin, null if a usable edge has a negative cost
+     * @throws IllegalArgumentException if a parameter is null or if no transports are provided
+     * @throws InvalidVertexException if the origin is not in the graph
+     */
+    public ShortestPathTree get(TransportMap model, PathCriteria criteria, EnumSet<TransportType> transportList, Vertex<Stop> origin) throws IllegalArgumentException, InvalidVertexException {
+        return get(model, criteria, transportList, origin, false);
+    }
+
+    /**
+     * Get the shortest path tree of an origin if it is cached or if the same origin, criteria and transports were asked
+     * before, building it then. The first time a key is asked it is only remembered, so a single query from an origin
+     * doesn't pay for a whole single source search
+     * @param model TransportMap the transport map
+     * @param criteria PathCriteria the path criteria
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origin Vertex<Stop> the origin stop
+     * @return ShortestPathTree the tree of the origin, null if asked for the first time or if a usable edge has a negative cost
+     * @throws IllegalArgumentException if a parameter is null or if no transports are provided
+     * @throws InvalidVertexException if the origin is not in the graph
+     */
+    public ShortestPathTree getIfRepeated(TransportMap model, PathCriteria criteria, EnumSet<TransportType> transportList, Vertex<Stop> origin) throws IllegalArgumentException, InvalidVertexException {
+        return get(model, criteria, transportList, origin, true);
+    }
+
+    /**
+     * Get the shortest path tree of an origin, building it if it is not cached
+     * @param model TransportMap the transport map
+     * @param criteria PathCriteria the path criteria
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origin Vertex<Stop> the origin stop
+     * @param onlyRepeated boolean true to build a missing tree only if its key was asked before
+     * @return ShortestPathTree the tree of the origin, null if not built or if a usable edge has a negative cost
+     * @throws IllegalArgumentException if a parameter is null or if no transports are provided
+     * @throws InvalidVertexException if the origin is not in the graph
+     */
+    private ShortestPathTree get(TransportMap model, PathCriteria criteria, EnumSet<TransportType> transportList, Vertex<Stop> origin, boolean onlyRepeated) throws IllegalArgumentException, InvalidVertexException {
+        if(model == null || criteria == null || origin == null){
+            throw new IllegalArgumentException("Graph, criteria and origin must not be null.");
+        }
+        if(transportList == null || transportList.isEmpty()){
+            throw new IllegalArgumentException("No transports selected.");
+        }
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int originId = snapshot.id(origin);
+        if(originId == -1){
+            throw new InvalidVertexException("Origin must be in the graph.");
+        }
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        Key key;
+        synchronized(this){
+            key = currentKey(minimumCostTable, originId, criteria, transportMask);
+            ShortestPathTree tree = trees.get(key);
+            if(tree != null){ return tree; }
+            if(onlyRepeated && requested.remove(key) == null){
+                requested.put(key, Boolean.TRUE); // the next query of the key builds the tree
+                return null;
+            }
+        }
+
+        if(!minimumCostTable.hasNonNegativeCosts(criteria, transportMask)){ return null; }
+        double[] edgeCosts = minimumCostTable.costs(criteria, transportMask);
+        ShortestPathTree tree = new ShortestPathTree(snapshot, edgeCosts, transportMask, originId);
+        synchronized(this){
+            if(key.equals(currentKey(minimumCostTable, originId, criteria, transportMask))){
+                // another thread may have built the same tree meanwhile
+                ShortestPathTree cached = trees.putIfAbsent(key, tree);
+                return cached == null ? tree : cached;
+            }
+        }
+        return tree; // the map or the configuration changed during the search, the tree is not cached
+    }
+
+    /**
+     * Get the key of a tree for the current versions, dropping or repairing the cached trees if a version changed
+     * @param minimumCostTable MinimumCostTable the minimum cost table of the map
+     * @param originId int the origin stop id
+     * @param criteria PathCriteria the path criteria
+     * @param transportMask int the mask of transport types that can be used in the paths
+     * @return Key the key of the tree
+     */
+    private Key currentKey(MinimumCostTable minimumCostTable, int originId, PathCriteria criteria, int transportMask) {
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        UserConfiguration configuration = minimumCostTable.getUserConfiguration();
+        long configurationVersion = configuration == null ? 0 : configuration.getVersion();
+        if(userConfiguration != configuration || this.snapshot != snapshot || graphVersion != snapshot.getVersion()){
+            clear(); // the versions only grow, the trees of older versions can't be used again
+            userConfiguration = configuration;
+            if(configuration != null){
+                configuration.addObserver(this);
+            }
+            this.snapshot = snapshot;
+            graphVersion = snapshot.getVersion();
+            userConfigurationVersion = configurationVersion;
+        }else if(userConfigurationVersion != configurationVersion){
+            repair(minimumCostTable, configurationVersion);
+        }
+        return new Key(originId, criteria, transportMask, graphVersion, userConfigurationVersion);
+    }
+
+    /**
+     * Repair the cached trees after the changes of the user configuration, keeping their order, or drop them all if
+     * the changes are unknown or too many. A tree with a negative cost after the changes is dropped
+     * @param minimumCostTable MinimumCostTable the minimum cost table, already updated with the changes
+     * @param configurationVersion long the new user configuration version
+     */
+    private void repair(MinimumCostTable minimumCostTable, long configurationVersion) {
+        // every configuration change is notified, a missing notification means the changed routes are not known
+        boolean repairable = !changedAll && configurationVersion - userConfigurationVersion == changes;
+        Map<Key, ShortestPathTree> oldTrees = repairable ? new LinkedHashMap<>(trees) : Map.of();
+        trees.clear();
+        int[] edges = changedEdges.stream().mapToInt(Integer::intValue).toArray();
+        for(Map.Entry<Key, ShortestPathTree> entry : oldTrees.entrySet()){
+            Key key = entry.getKey();
+            ShortestPathTree tree = entry.getValue().repair(minimumCostTable.costs(key.criteria, key.transportMask), edges);
+            if(tree != null){
+                trees.put(new Key(key.origin, key.criteria, key.transportMask, graphVersion, configurationVersion), tree);
+            }
+        }
+        requested.clear(); // keyed by the old version
+        userConfigurationVersion = configurationVersion;
+        resetChanges();
+    }
+
+    /**
+     * Forget the changes of the user configuration
+     */
+    private void resetChanges() {
+        changedEdges.clear();
+        changedAll = false;
+        changes = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void update(Observable subject, Object arg) {
+        if(subject != userConfiguration){ return; } // no longer the configuration of the trees
+        changes++;
+        if(!(arg instanceof Edge<?, ?>)){
+            changedAll = true;
+            return;
+        }
+        int edge = snapshot.edgeId((Edge<Route, Stop>) arg);
+        if(edge == -1){ return; } // route not in this snapshot
+        changedEdges.add(edge);
+        if(changedEdges.size() > MAX_REPAIRED_EDGES){
+            changedAll = true;
+        }
+    }
+
+    /**
+     * Get the number of cached trees
+     * @return int the number of trees
+     */
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    /**
+     * Drop all trees and stop observing the user configuration
+     */
+    public synchronized void clear() {
+        trees.clear();
+        requested.clear();
+        resetChanges();
+        if(userConfiguration != null){
+            userConfiguration.removeObserver(this);
+        }
+        userConfiguration = null;
+        snapshot = null;
+    }
+}
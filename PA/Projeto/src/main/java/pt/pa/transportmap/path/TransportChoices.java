@@ -0,0 +1,98 @@
+package pt.pa.transportmap.path;
+
+import pt.pa.transportmap.TransportType;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+/**
+ * The transport types of each edge that can be used in a multi-criteria search, with their costs in every criteria.
+ * The choices of an edge are in [start[edge], start[edge + 1]).
+ */
+final class TransportChoices {
+    /** Transport types, cached to avoid copying the values array */
+    private static final TransportType[] TRANSPORT_TYPES = TransportType.values();
+
+    /** First choice of each edge */
+    final int[] start;
+    /** Ordinal of the transport type of each choice */
+    final byte[] types;
+    /** Distance of each choice */
+    final double[] distances;
+    /** Duration of each choice, with the bicycle duration scale */
+    final double[] durations;
+    /** Sustainability of each choice */
+    final double[] sustainabilities;
+
+    /**
+     * Constructor for TransportChoices, keeps the transport types of each edge that are available, enabled and
+     * not dominated by another type of the same edge
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param userConfiguration UserConfiguration the user configuration, null if nothing is disabled
+     * @param transportMask int the mask of transport types that can be used in the path
+     */
+    TransportChoices(RoutingSnapshot snapshot, UserConfiguration userConfiguration, int transportMask) {
+        int capacity = snapshot.numEdges() * TRANSPORT_TYPES.length;
+        start = new int[snapshot.numEdges() + 1];
+        types = new byte[capacity];
+        distances = new double[capacity];
+        durations = new double[capacity];
+        sustainabilities = new double[capacity];
+
+        int size = 0;
+        for(int edge = 0; edge < snapshot.numEdges(); edge++){
+            start[edge] = size;
+            if(userConfiguration != null && userConfiguration.isRouteDisabled(snapshot.edge(edge))){ continue; }
+            int available = snapshot.edgeTransports(edge) & transportMask;
+            for(TransportType type : TRANSPORT_TYPES){
+                if((available & (1 << type.ordinal())) == 0){ continue; }
+                if(userConfiguration != null && userConfiguration.isTransportTypeDisabled(snapshot.edge(edge), type)){ continue; }
+                double distance = snapshot.cost(edge, type, PathCriteria.DISTANCE);
+                double duration = PathUtils.getTransportCost(snapshot, userConfiguration, edge, type, PathCriteria.DURATION);
+                double sustainability = snapshot.cost(edge, type, PathCriteria.SUSTAINABILITY);
+                size = add(edge, size, type, distance, duration, sustainability);
+            }
+        }
+        start[snapshot.numEdges()] = size;
+    }
+
+    /**
+     * Add a transport type to the choices of an edge, unless dominated, removing the choices it dominates
+     * @param edge int the edge id
+     * @param size int the current number of choices
+     * @return int the new number of choices
+     */
+    private int add(int edge, int size, TransportType type, double distance, double duration, double sustainability) {
+        for(int c = start[edge]; c < size; c++){
+            if(dominates(distances[c], durations[c], sustainabilities[c], distance, duration, sustainability)){
+                return size;
+            }
+        }
+        int kept = start[edge];
+        for(int c = start[edge]; c < size; c++){
+            if(dominates(distance, duration, sustainability, distances[c], durations[c], sustainabilities[c])){ continue; }
+            types[kept] = types[c];
+            distances[kept] = distances[c];
+            durations[kept] = durations[c];
+            sustainabilities[kept] = sustainabilities[c];
+            kept++;
+        }
+        types[kept] = (byte) type.ordinal();
+        distances[kept] = distance;
+        durations[kept] = duration;
+        sustainabilities[kept] = sustainability;
+        return kept + 1;
+    }
+
+    /**
+     * Check if a cost vector dominates another, not worse in any criteria
+     * @param distance double the distance of the first vector
+     * @param duration double the duration of the first vector
+     * @param sustainability double the sustainability of the first vector
+     * @param otherDistance double the distance of the second vector
+     * @param otherDuration double the duration of the second vector
+     * @param otherSustainability double the sustainability of the second vector
+     * @return true if (distance, duration, sustainability) dominates (otherDistance, otherDuration, otherSustainability)
+     */
+    static boolean dominates(double distance, double duration, double sustainability, double otherDistance, double otherDuration, double otherSustainability) {
+        return distance <= otherDistance && duration <= otherDuration && sustainability <= otherSustainability;
+    }
+}
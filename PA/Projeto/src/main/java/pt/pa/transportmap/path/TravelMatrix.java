@@ -0,0 +1,187 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Many-to-many travel matrix: the less cost from every origin to every destination, for one criteria and transport
+ * mask. One Dijkstra search per origin runs in parallel on a fork-join pool, each with the search workspace of its
+ * thread, and stops when every destination is settled.
+ * With negative costs a usable route is a negative cycle there and back, so the matrix has the costs of the paths
+ * without repeated stops, one LooplessStrategy search per origin and destination, as the single pair searches.
+ * With non-negative costs and a contraction hierarchy already built, ContractionHierarchy.lessCostMatrix computes the
+ * matrix with bucket based searches (see ContractionHierarchyStrategy).
+ */
+public class TravelMatrix {
+    /** The pool to run the searches */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for TravelMatrix, with the common fork-join pool
+     */
+    public TravelMatrix() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for TravelMatrix
+     * @param pool ForkJoinPool the pool to run the searches
+     * @throws IllegalArgumentException if the pool is null
+     */
+    public TravelMatrix(ForkJoinPool pool) throws IllegalArgumentException {
+        if(pool == null){
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Compute the less cost from every origin to every destination
+     * @param model TransportMap the transport map
+     * @param criteria PathCriteria the path criteria
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the paths
+     * @param origins List<Vertex<Stop>> the origin stops
+     * @param destinations List<Vertex<Stop>> the destination stops
+     * @return double[][] the cost from origins[i] to destinations[j] in [i][j], infinity if there is no path
+     * @throws IllegalArgumentException if a parameter or stop is null or if no transports are provided
+     * @throws InvalidVertexException if a stop is not in the graph
+     */
+    public double[][] computeCosts(TransportMap model, PathCriteria criteria, EnumSet<TransportType> transportList, List<Vertex<Stop>> origins, List<Vertex<Stop>> destinations) throws IllegalArgumentException, InvalidVertexException {
+        if(model == null || criteria == null){
+            throw new IllegalArgumentException("Graph and criteria must not be null.");
+        }
+        if(transportList == null || transportList.isEmpty()){
+            throw new IllegalArgumentException("No transports selected.");
+        }
+        MinimumCostTable minimumCostTable = model.getMinimumCostTable();
+        RoutingSnapshot snapshot = minimumCostTable.getSnapshot();
+        int transportMask = RoutingSnapshot.transportMask(transportList);
+        int[] originIds = stopIds(snapshot, origins);
+        int[] destinationIds = stopIds(snapshot, destinations);
+        double[] edgeCosts = minimumCostTable.costs(criteria, transportMask);
+
+        if(!minimumCostTable.hasNonNegativeCosts(criteria, transportMask)){
+            return pool.submit(() -> IntStream.range(0, originIds.length).parallel()
+                    .mapToObj(i -> looplessCostsFrom(snapshot, edgeCosts, originIds[i], destinationIds))
+                    .toArray(double[][]::new)).join();
+        }
+        return computeCosts(snapshot, edgeCosts, originIds, destinationIds);
+    }
+
+    /**
+     * Compute the less cost from every origin to every destination, one search per origin in parallel
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param origins int[] the origin stop ids
+     * @param destinations int[] the destination stop ids
+     * @return double[][] the cost from origins[i] to destinations[j] in [i][j], infinity if there is no path
+     */
+    private double[][] computeCosts(RoutingSnapshot snapshot, double[] edgeCosts, int[] origins, int[] destinations) {
+        boolean[] isDestination = new boolean[snapshot.numStops()];
+        int numDestinations = 0;
+        for(int destination : destinations){
+            if(!isDestination[destination]){
+                isDestination[destination] = true;
+                numDestinations++;
+            }
+        }
+        int remaining = numDestinations;
+        return pool.submit(() -> IntStream.range(0, origins.length).parallel()
+                .mapToObj(i -> costsFrom(snapshot, edgeCosts, origins[i], destinations, isDestination, remaining))
+                .toArray(double[][]::new)).join();
+    }
+
+    /**
+     * Dijkstra search from an origin until every destination is settled
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param origin int the origin stop id
+     * @param destinations int[] the destination stop ids
+     * @param isDestination boolean[] true for the destination stops, by stop id
+     * @param numDestinations int the number of different destination stops
+     * @return double[] the cost to each destination, infinity if there is no path
+     */
+    private static double[] costsFrom(RoutingSnapshot snapshot, double[] edgeCosts, int origin, int[] destinations, boolean[] isDestination, int numDestinations) {
+        SearchWorkspace workspace = SearchWorkspace.acquire(snapshot.numStops());
+        try{
+            IndexedMinHeap heap = workspace.heap();
+            workspace.setOrigin(origin, 0.0);
+            heap.insert(origin, 0.0);
+            int remaining = numDestinations;
+            while(!heap.isEmpty()){
+                int current = heap.poll();
+                workspace.settle(current);
+                if(isDestination[current] && --remaining == 0){ break; } // every destination cost is final
+
+                for(int arc = snapshot.arcStart(current); arc < snapshot.arcEnd(current); arc++){
+                    double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+                    if(Double.isNaN(edgeCost)){ continue; } // Skip edge, disabled or no usable transport type
+                    int w = snapshot.arcTarget(arc);
+                    if(workspace.isSettled(w)){ continue; }
+                    double newCost = workspace.cost(current) + edgeCost;
+                    if(newCost < workspace.cost(w)){
+                        workspace.update(w, newCost, snapshot.arcEdge(arc), -1);
+                        heap.insertOrDecreaseKey(w, newCost);
+                    }
+                }
+            }
+
+            double[] costs = new double[destinations.length];
+            for(int j = 0; j < destinations.length; j++){
+                costs[j] = workspace.cost(destinations[j]);
+            }
+            return costs;
+        }finally{
+            workspace.release();
+        }
+    }
+
+    /**
+     * Loopless searches from an origin to each destination, for costs with negative values
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param origin int the origin stop id
+     * @param destinations int[] the destination stop ids
+     * @return double[] the cost of the less cost path without repeated stops to each destination, infinity if there is no path
+     */
+    private static double[] looplessCostsFrom(RoutingSnapshot snapshot, double[] edgeCosts, int origin, int[] destinations) {
+        double[] costs = new double[destinations.length];
+        for(int j = 0; j < destinations.length; j++){
+            costs[j] = LooplessStrategy.lessCost(snapshot, edgeCosts, origin, destinations[j]);
+        }
+        return costs;
+    }
+
+    /**
+     * Get the snapshot ids of a list of stops
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param stops List<Vertex<Stop>> the stops
+     * @return int[] the stop ids, in the same order
+     * @throws IllegalArgumentException if the list or a stop is null
+     * @throws InvalidVertexException if a stop is not in the graph
+     */
+    static int[] stopIds(RoutingSnapshot snapshot, List<Vertex<Stop>> stops) throws IllegalArgumentException, InvalidVertexException {
+        if(stops == null){
+            throw new IllegalArgumentException("Origins and destinations must not be null.");
+        }
+        int[] ids = new int[stops.size()];
+        for(int i = 0; i < ids.length; i++){
+            if(stops.get(i) == null){
+                throw new IllegalArgumentException("Origins and destinations must not be null.");
+            }
+            ids[i] = snapshot.id(stops.get(i));
+            if(ids[i] == -1){
+                throw new InvalidVertexException("Origins and destinations must be in the graph.");
+            }
+        }
+        return ids;
+    }
+}
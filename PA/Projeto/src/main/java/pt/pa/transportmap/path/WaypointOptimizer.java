@@ -0,0 +1,341 @@
+package pt.pa.transportmap.path;
+
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.Stop;
+import pt.pa.transportmap.TransportMap;
+import pt.pa.transportmap.TransportType;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Optimizer of the order of the waypoints of a trip: the less cost path from an origin to a destination that visits
+ * every waypoint, in any order. The less costs between every pair of stops are computed in parallel by the strategy
+ * (see PathStrategy.findLessCostMatrix). With negative costs the matrix is made of the legs of the strategy itself,
+ * searched in parallel and reused for the path, so the order is optimized on the costs of the path found. The order is exact by the Held-Karp dynamic programming up to a maximum number
+ * of waypoints, and above it a nearest neighbour order improved by 2-opt and Or-opt moves. The legs of the order are
+ * joined in a single path, see PathUtils.findLessCostPathThrough.
+ */
+public class WaypointOptimizer {
+    /** Default maximum number of waypoints ordered exactly, Held-Karp keeps 2^n * n costs */
+    public static final int DEFAULT_MAX_EXACT_WAYPOINTS = 12;
+    /** Maximum number of waypoints ordered exactly */
+    public static final int MAX_EXACT_WAYPOINTS = 16;
+    /** Minimum improvement of a local search move */
+    private static final double EPSILON = 1e-9;
+    /** Maximum length of the segments moved by Or-opt */
+    private static final int OR_OPT_MAX_SEGMENT = 3;
+
+    /** The strategy of the cost matrix and of the legs */
+    private final PathStrategy pathStrategy;
+    /** Maximum number of waypoints ordered exactly */
+    private final int maxExactWaypoints;
+
+    /**
+     * Constructor for WaypointOptimizer, with the default maximum number of waypoints ordered exactly
+     * @param pathStrategy PathStrategy the strategy of the cost matrix and of the legs
+     * @throws IllegalArgumentException if the strategy is null
+     */
+    public WaypointOptimizer(PathStrategy pathStrategy) throws IllegalArgumentException {
+        this(pathStrategy, DEFAULT_MAX_EXACT_WAYPOINTS);
+    }
+
+    /**
+     * Constructor for WaypointOptimizer
+     * @param pathStrategy PathStrategy the strategy of the cost matrix and of the legs
+     * @param maxExactWaypoints int the maximum number of waypoints ordered exactly, more use the local search
+     * @throws IllegalArgumentException if the strategy is null or the maximum is out of bounds
+     */
+    public WaypointOptimizer(PathStrategy pathStrategy, int maxExactWaypoints) throws IllegalArgumentException {
+        if(pathStrategy == null){
+            throw new IllegalArgumentException("Path strategy cannot be null.");
+        }
+        if(maxExactWaypoints < 0 || maxExactWaypoints > MAX_EXACT_WAYPOINTS){
+            throw new IllegalArgumentException("The maximum number of exact waypoints must be between 0 and " + MAX_EXACT_WAYPOINTS + ".");
+        }
+        this.pathStrategy = pathStrategy;
+        this.maxExactWaypoints = maxExactWaypoints;
+    }
+
+    /**
+     * Find the less cost path from the origin to the destination that visits every waypoint, in the best order found
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param origin Vertex<Stop> The origin stop
+     * @param destination Vertex<Stop> The destination stop
+     * @param waypoints Collection<Vertex<Stop>> the stops to visit, in any order, repeated stops are visited once
+     * @return PathResult the path found and its associated information
+     * @throws IllegalArgumentException if a parameter or waypoint is null or if no transports are provided
+     * @throws InvalidVertexException if origin, destination or a waypoint are not in the graph
+     * @throws IllegalStateException if a waypoint or the destination can't be reached
+     */
+    public PathResult findLessCostPathVisitingAll(TransportMap model, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Collection<Vertex<Stop>> waypoints) throws IllegalArgumentException, InvalidVertexException, IllegalStateException {
+        PathUtils.validateLessCostPathBetweenTwoVerticesParameters(model, transportList, origin, destination);
+        if(waypoints == null){
+            throw new IllegalArgumentException("Waypoints must not be null.");
+        }
+        Set<Vertex<Stop>> distinctWaypoints = new LinkedHashSet<>();
+        for(Vertex<Stop> waypoint : waypoints){
+            if(waypoint == null){
+                throw new IllegalArgumentException("Waypoints must not be null.");
+            }
+            if(!model.hasVertex(waypoint)){
+                throw new InvalidVertexException("Waypoints must be in the graph.");
+            }
+            if(!waypoint.equals(origin) && !waypoint.equals(destination)){
+                distinctWaypoints.add(waypoint);
+            }
+        }
+        if(distinctWaypoints.isEmpty()){
+            return pathStrategy.findLessCostPathBetweenTwoVertices(model, transportList, origin, destination);
+        }
+
+        // matrix index 0 is the origin, 1 to n the waypoints and n + 1 the destination
+        List<Vertex<Stop>> stops = new ArrayList<>(distinctWaypoints.size() + 2);
+        stops.add(origin);
+        stops.addAll(distinctWaypoints);
+        stops.add(destination);
+        PathCriteria criteria = pathStrategy.getCostStrategy().getPathCriteria();
+        boolean nonNegativeCosts = model.getMinimumCostTable().hasNonNegativeCosts(criteria, RoutingSnapshot.transportMask(transportList));
+        PathResult[][] legs = null;
+        RuntimeException[] error = new RuntimeException[1];
+        double[][] costs;
+        if(nonNegativeCosts){
+            costs = pathStrategy.findLessCostMatrix(model, transportList, stops, stops);
+        }else{
+            legs = findLegs(model, transportList, stops, error);
+            costs = legCosts(legs, criteria);
+        }
+        int[] order = distinctWaypoints.size() <= maxExactWaypoints ? heldKarp(costs) : localSearch(costs);
+        if(order == null || routeCost(costs, order) == Double.POSITIVE_INFINITY){
+            throw new IllegalStateException("A waypoint or the destination can't be reached.", error[0]);
+        }
+
+        List<Vertex<Stop>> orderedStops = new ArrayList<>(stops.size());
+        orderedStops.add(origin);
+        for(int waypoint : order){
+            orderedStops.add(stops.get(waypoint));
+        }
+        orderedStops.add(destination);
+        if(nonNegativeCosts){
+            return PathUtils.findLessCostPathThrough(pathStrategy, model, transportList, orderedStops);
+        }
+        // the legs of the order, already searched
+        PathResult[] orderedLegs = new PathResult[order.length + 1];
+        int previous = 0;
+        for(int i = 0; i <= order.length; i++){
+            int next = i < order.length ? order[i] : stops.size() - 1;
+            orderedLegs[i] = legs[previous][next];
+            previous = next;
+        }
+        return PathUtils.joinLegs(orderedLegs);
+    }
+
+    /**
+     * Search the leg between every pair of different stops with the strategy, in parallel on the common fork-join pool
+     * @param model TransportMap the transport map
+     * @param transportList EnumSet<TransportType> A list of transport types that can be used in the path
+     * @param stops List<Vertex<Stop>> the stops, origin first and destination last
+     * @param error RuntimeException[] filled with the error of a leg not found, to be the cause of an unreachable stop
+     * @return PathResult[][] the leg from stops[i] to stops[j] in [i][j], null if it was not found
+     */
+    private PathResult[][] findLegs(TransportMap model, EnumSet<TransportType> transportList, List<Vertex<Stop>> stops, RuntimeException[] error) {
+        int n = stops.size();
+        PathResult[][] legs = new PathResult[n][n];
+        ForkJoinPool.commonPool().submit(() -> IntStream.range(0, n * n).parallel().forEach(pair -> {
+            int i = pair / n;
+            int j = pair % n;
+            if(i == j || j == 0 || i == n - 1){ return; } // nothing enters the origin or leaves the destination
+            try{
+                legs[i][j] = pathStrategy.findLessCostPathBetweenTwoVertices(model, transportList, stops.get(i), stops.get(j));
+            }catch(IllegalStateException e){
+                error[0] = e;
+            }
+        })).join();
+        return legs;
+    }
+
+    /**
+     * Get the cost matrix of the legs
+     * @param legs PathResult[][] the legs, null if not found
+     * @param criteria PathCriteria the criteria of the costs
+     * @return double[][] the cost of each leg, 0 from a stop to itself, infinity if the leg was not found
+     */
+    private static double[][] legCosts(PathResult[][] legs, PathCriteria criteria) {
+        double[][] costs = new double[legs.length][legs.length];
+        for(int i = 0; i < legs.length; i++){
+            for(int j = 0; j < legs.length; j++){
+                PathResult leg = legs[i][j];
+                if(leg == null){
+                    costs[i][j] = i == j ? 0.0 : Double.POSITIVE_INFINITY;
+                }else if(criteria == PathCriteria.DISTANCE){
+                    costs[i][j] = leg.getTotalDistance();
+                }else if(criteria == PathCriteria.DURATION){
+                    costs[i][j] = leg.getTotalDuration();
+                }else{
+                    costs[i][j] = leg.getTotalSustainability();
+                }
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Exact order of the waypoints by Held-Karp: the less cost of visiting each set of waypoints ending at each of
+     * them, from the smaller sets to the set of all waypoints
+     * @param costs double[][] the cost matrix, origin first and destination last
+     * @return int[] the matrix indexes of the waypoints in visiting order, null if the destination can't be reached
+     */
+    private static int[] heldKarp(double[][] costs) {
+        int n = costs.length - 2;
+        int all = (1 << n) - 1;
+        double[][] best = new double[all + 1][n];
+        int[][] previous = new int[all + 1][n];
+        for(double[] row : best){
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        for(int i = 0; i < n; i++){
+            best[1 << i][i] = costs[0][i + 1];
+        }
+        for(int set = 1; set <= all; set++){
+            for(int last = 0; last < n; last++){
+                if((set & (1 << last)) == 0 || best[set][last] == Double.POSITIVE_INFINITY){ continue; }
+                for(int next = 0; next < n; next++){
+                    if((set & (1 << next)) != 0){ continue; }
+                    int nextSet = set | (1 << next);
+                    double cost = best[set][last] + costs[last + 1][next + 1];
+                    if(cost < best[nextSet][next]){
+                        best[nextSet][next] = cost;
+                        previous[nextSet][next] = last;
+                    }
+                }
+            }
+        }
+
+        int last = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for(int i = 0; i < n; i++){
+            double cost = best[all][i] + costs[i + 1][n + 1];
+            if(cost < bestCost){
+                bestCost = cost;
+                last = i;
+            }
+        }
+        if(last == -1){ return null; }
+        int[] order = new int[n];
+        int set = all;
+        for(int k = n - 1; k >= 0; k--){
+            order[k] = last + 1;
+            int before = previous[set][last];
+            set &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    /**
+     * Order of the waypoints by local search: the nearest neighbour order, improved by 2-opt (reverse a segment) and
+     * Or-opt (move a segment of up to three waypoints) moves until no move lowers the cost
+     * @param costs double[][] the cost matrix, origin first and destination last
+     * @return int[] the matrix indexes of the waypoints in visiting order
+     */
+    private static int[] localSearch(double[][] costs) {
+        int n = costs.length - 2;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n + 1];
+        int current = 0;
+        for(int k = 0; k < n; k++){
+            int next = -1;
+            for(int j = 1; j <= n; j++){
+                if(!visited[j] && (next == -1 || costs[current][j] < costs[current][next])){
+                    next = j;
+                }
+            }
+            order[k] = next;
+            visited[next] = true;
+            current = next;
+        }
+
+        double cost = routeCost(costs, order);
+        boolean improved = true;
+        while(improved){
+            improved = false;
+            for(int i = 0; i < n - 1; i++){
+                for(int j = i + 1; j < n; j++){
+                    reverse(order, i, j);
+                    double newCost = routeCost(costs, order);
+                    if(newCost < cost - EPSILON){
+                        cost = newCost;
+                        improved = true;
+                    }else{
+                        reverse(order, i, j); // undo
+                    }
+                }
+            }
+            for(int length = 1; length <= Math.min(OR_OPT_MAX_SEGMENT, n - 1); length++){
+                for(int i = 0; i + length <= n; i++){
+                    for(int j = 0; j <= n - length; j++){
+                        if(j == i){ continue; }
+                        int[] moved = move(order, i, length, j);
+                        double newCost = routeCost(costs, moved);
+                        if(newCost < cost - EPSILON){
+                            order = moved;
+                            cost = newCost;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Cost of the route from the origin to the destination through the waypoints in order
+     * @param costs double[][] the cost matrix, origin first and destination last
+     * @param order int[] the matrix indexes of the waypoints in visiting order
+     * @return double the cost, infinity if a leg has no path
+     */
+    private static double routeCost(double[][] costs, int[] order) {
+        double cost = costs[0][order[0]];
+        for(int k = 1; k < order.length; k++){
+            cost += costs[order[k - 1]][order[k]];
+        }
+        return cost + costs[order[order.length - 1]][costs.length - 1];
+    }
+
+    /**
+     * Reverse a segment of an order
+     * @param order int[] the order
+     * @param from int the first position of the segment
+     * @param to int the last position of the segment
+     */
+    private static void reverse(int[] order, int from, int to) {
+        for(; from < to; from++, to--){
+            int waypoint = order[from];
+            order[from] = order[to];
+            order[to] = waypoint;
+        }
+    }
+
+    /**
+     * Move a segment of an order to another position
+     * @param order int[] the order
+     * @param from int the first position of the segment
+     * @param length int the length of the segment
+     * @param to int the position of the segment in the order without it
+     * @return int[] the new order, the order is not changed
+     */
+    private static int[] move(int[] order, int from, int length, int to) {
+        int[] rest = new int[order.length - length];
+        System.arraycopy(order, 0, rest, 0, from);
+        System.arraycopy(order, from + length, rest, from, order.length - from - length);
+        int[] moved = new int[order.length];
+        System.arraycopy(rest, 0, moved, 0, to);
+        System.arraycopy(order, from, moved, to, length);
+        System.arraycopy(rest, to, moved, to + length, rest.length - to);
+        return moved;
+    }
+}
@@ -3,7 +3,9 @@ package pt.pa.transportmap.userconfiguration;
 import java.io.Serializable;
 
 /**
- * Represents a command that can be executed and undone
+ * Represents a command that can be executed and undone.
+ * Commands change the user configuration only through its methods, which increment its version on execute and undo,
+ * so the data derived from the configuration (cost tables, cached shortest path trees) is never stale.
  */
 public interface Command extends Serializable {
     /**
@@ -1,6 +1,7 @@
 package pt.pa.transportmap.userconfiguration;
 
 import com.brunomnsilva.smartgraph.graph.Edge;
+import pt.pa.observerpattern.Subject;
 import pt.pa.transportmap.Route;
 import pt.pa.transportmap.Stop;
 import pt.pa.transportmap.TransportMap;
@@ -10,9 +11,11 @@ import java.io.*;
 import java.util.*;
 
 /**
- * User configuration for the transport map
+ * User configuration for the transport map.
+ * Observers are notified after every change, with the changed route as argument, or null if the change can affect
+ * every route (bicycle duration scale and reset).
  */
-public class UserConfiguration implements Serializable {
+public class UserConfiguration extends Subject implements Serializable {
     /** Serial version UID */
     @Serial
     private static final long serialVersionUID = 1L;
@@ -30,6 +33,8 @@ public class UserConfiguration implements Serializable {
     transient private Map<Edge<Route, Stop>, EnumSet<TransportType>> disabledTransportTypes;
     /** The edge converter */
     public static EdgeConverter edgeConverter;
+    /** Number of changes to the configuration, used to invalidate data derived from it */
+    transient private long version;
 
     /**
      * Constructor for UserConfiguration
@@ -42,6 +47,14 @@ public class UserConfiguration implements Serializable {
         UserConfiguration.edgeConverter = edgeConverter;
     }
 
+    /**
+     * Return the configuration version, incremented on every change
+     * @return long the configuration version
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Return the bicycle duration scale
      * @return double the bicycle duration scale
@@ -59,6 +72,8 @@ public class UserConfiguration implements Serializable {
             throw new IllegalArgumentException("Bicycle duration scale must be between " + MIN_BICYCLE_DURATION_SCALE + " and " + MAX_BICYCLE_DURATION_SCALE + ".");
         }
         this.bicycleDurationScale = bicycleDurationScale;
+        version++;
+        notifyObservers(null);
     }
 
     /**
@@ -83,6 +98,8 @@ public class UserConfiguration implements Serializable {
             throw new IllegalArgumentException("Route cannot be null.");
         }
         disabledRoutes.add(route);
+        version++;
+        notifyObservers(route);
     }
 
     /**
@@ -95,6 +112,8 @@ public class UserConfiguration implements Serializable {
             throw new IllegalArgumentException("Route cannot be null.");
         }
         disabledRoutes.remove(route);
+        version++;
+        notifyObservers(route);
     }
 
     /**
@@ -114,6 +133,8 @@ public class UserConfiguration implements Serializable {
             transportTypes.add(transportType);
             disabledTransportTypes.put(route, transportTypes);
         }
+        version++;
+        notifyObservers(route);
     }
 
     /**
@@ -133,6 +154,8 @@ public class UserConfiguration implements Serializable {
                 disabledTransportTypes.remove(route);
             }
         }
+        version++;
+        notifyObservers(route);
     }
 
     /**
@@ -182,6 +205,8 @@ public class UserConfiguration implements Serializable {
     public void resetDisabledRoutes() {
         disabledRoutes.clear();
         disabledTransportTypes.clear();
+        version++;
+        notifyObservers(null);
     }
 
     /**
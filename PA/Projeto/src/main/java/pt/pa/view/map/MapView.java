@@ -13,6 +13,7 @@ import javafx.scene.layout.*;
 import pt.pa.controller.TransportMapController;
 import pt.pa.observerpattern.Observable;
 import pt.pa.observerpattern.Observer;
+import pt.pa.transportmap.path.CachedPathStrategy;
 import pt.pa.transportmap.path.PathCriteria;
 import pt.pa.transportmap.path.PathCriteriaManager;
 import pt.pa.transportmap.path.PathResult;
@@ -205,7 +206,7 @@ public class MapView implements Observable {
             selectedVertices.add(vertex);
 
             // get path
-            model.setPathStrategy(PathStrategyFactory.create(currentCriteria));
+            model.setPathStrategy(new CachedPathStrategy(PathStrategyFactory.create(currentCriteria), model.getShortestPathTreeCache()));
             PathResult result = model.getPathStrategy().findLessCostPathBetweenTwoVertices(model, transportType, lastVertex, vertex);
 
             if (listDetails == null) {
@@ -276,7 +277,7 @@ public class MapView implements Observable {
 
             // Recalcula métricas
             PathCriteria currentCriteria = PathCriteriaManager.getPathCriteria();
-            model.setPathStrategy(PathStrategyFactory.create(currentCriteria));
+            model.setPathStrategy(new CachedPathStrategy(PathStrategyFactory.create(currentCriteria), model.getShortestPathTreeCache()));
             PathResult result = model.getPathStrategy().findLessCostPathBetweenTwoVertices(model, transportType, newLastVertex, vertex);
 
             // Atualiza estilos do grafo
@@ -382,6 +383,30 @@ public class MapView implements Observable {
         colorDisabledEdges();
     }
 
+    /**
+     * Colors the stops reachable from an origin within a budget (isochrone), by thirds of the budget.
+     *
+     * @param origin Vertex<Stop> the origin stop
+     * @param reachable Map<Vertex<Stop>, Double> the less cost of each reachable stop
+     * @param budget double the maximum cost of the paths
+     */
+    public void visualizeIsochrone(Vertex<Stop> origin, Map<Vertex<Stop>, Double> reachable, double budget) {
+        clearGraphColors();
+        graphView.getStylableVertex(origin.element()).setStyleClass("vertex-start");
+        for (Map.Entry<Vertex<Stop>, Double> entry : reachable.entrySet()) {
+            String css;
+            if (entry.getValue() <= budget / 3) {
+                css = "vertex-isochrone-near";
+            } else if (entry.getValue() <= 2 * budget / 3) {
+                css = "vertex-isochrone-middle";
+            } else {
+                css = "vertex-isochrone-far";
+            }
+            graphView.getStylableVertex(entry.getKey().element()).addStyleClass(css);
+        }
+        colorDisabledEdges();
+    }
+
     /**
      * Return the css class depending on the next transport in transportIterator.
      * <p>
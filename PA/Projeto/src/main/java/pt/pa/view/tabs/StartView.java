@@ -47,6 +47,10 @@ public class StartView extends VBox implements Observable {
      * The routes box
      */
     private RoutesBox routesBox;
+    /**
+     * The Pareto paths box
+     */
+    private ParetoBox paretoBox;
     /**
      * Constructs the Start View UI component, which contains actions for trip and route searching
      */
@@ -62,6 +66,7 @@ public class StartView extends VBox implements Observable {
         actionGrid = new ActionGrid();
         tripBox = new TripBox();
         routesBox = new RoutesBox();
+        paretoBox = new ParetoBox();
         pathTabPane = new PathTabPane();
         this.getChildren().addAll(actionGrid, pathTabPane);
     }
@@ -227,6 +232,10 @@ public class StartView extends VBox implements Observable {
          * The routes tab
          */
         public Tab routesTab;
+        /**
+         * The Pareto paths tab
+         */
+        public Tab paretoTab;
 
         /**
          * Constructs the path tab pane
@@ -241,13 +250,17 @@ public class StartView extends VBox implements Observable {
             routesTab.setContent(routesBox);
             routesTab.setClosable(false);
 
+            paretoTab = new Tab("Alternativas");
+            paretoTab.setContent(paretoBox);
+            paretoTab.setClosable(false);
+
             // Style
             this.setTabMaxWidth(50);
             this.setTabMaxHeight(25);
             this.setPadding(new Insets(30));
 
             // Add the tabs
-            getTabs().addAll(tripTab, routesTab);
+            getTabs().addAll(tripTab, routesTab, paretoTab);
         }
     }
 
@@ -271,6 +284,10 @@ public class StartView extends VBox implements Observable {
          * The sustainability label
          */
         public Label sustainabilityLabel;
+        /**
+         * The list of alternative paths, by increasing cost
+         */
+        public ListView<PathResult> alternativesListView;
 
         /**
          * Constructs the trip box
@@ -297,9 +314,17 @@ public class StartView extends VBox implements Observable {
             sustainabilityLabel.setFont(Font.font(14));
             sustainabilityLabel.setPadding(new Insets(5));
 
+            Label alternativesLabel = new Label("Percursos alternativos");
+            alternativesLabel.setFont(Font.font(14));
+            alternativesLabel.setPadding(new Insets(5));
+
+            alternativesListView = new ListView<>();
+            alternativesListView.setPrefHeight(100);
+            alternativesListView.setCellFactory(list -> new PathResultCell());
+
             this.setMaxWidth(500);
 
-            this.getChildren().addAll(listLabel, tripTextArea, durationLabel, distanceLabel, sustainabilityLabel);
+            this.getChildren().addAll(listLabel, tripTextArea, durationLabel, distanceLabel, sustainabilityLabel, alternativesLabel, alternativesListView);
         }
     }
 
@@ -327,6 +352,18 @@ public class StartView extends VBox implements Observable {
          * The routes button
          */
         public Button routesButton;
+        /**
+         * The budget label
+         */
+        public Label budgetLabel;
+        /**
+         * The budget text field, in the unit of the selected parameter
+         */
+        public TextField budgetTextField;
+        /**
+         * The reachable stops (isochrone) button
+         */
+        public Button isochroneButton;
         /**
          * The text area with the routes stops
          */
@@ -377,9 +414,24 @@ public class StartView extends VBox implements Observable {
             stopHBox.setSpacing(10);
             stopHBox.getChildren().addAll(stopLabel, stopComboBox);
 
+            budgetLabel = new Label("Orçamento");
+            budgetLabel.setFont(Font.font(13));
+            budgetLabel.setPadding(new Insets(5));
+
+            budgetTextField = new TextField();
+            budgetTextField.setPrefWidth(80);
+
+            isochroneButton = new Button("Paragens Alcançáveis");
+
+            HBox budgetHBox = new HBox();
+            budgetHBox.setPrefWidth(280);
+            budgetHBox.setPrefHeight(50);
+            budgetHBox.setSpacing(10);
+            budgetHBox.getChildren().addAll(budgetLabel, budgetTextField, isochroneButton);
+
             VBox containerVBox = new VBox();
             containerVBox.setSpacing(10);
-            containerVBox.getChildren().addAll(numberRoutesHBox, stopHBox, routesButton);
+            containerVBox.getChildren().addAll(numberRoutesHBox, stopHBox, routesButton, budgetHBox);
 
             leftHBox.getChildren().add(containerVBox);
 
@@ -402,6 +454,59 @@ public class StartView extends VBox implements Observable {
         }
     }
 
+    /**
+     * Creates the Pareto paths tab, with the paths not dominated in duration, distance and sustainability
+     */
+    private class ParetoBox extends VBox {
+        /**
+         * The Pareto paths button
+         */
+        public Button paretoButton;
+        /**
+         * The list of Pareto paths
+         */
+        public ListView<PathResult> paretoListView;
+
+        /**
+         * Constructs the Pareto paths box
+         */
+        public ParetoBox() {
+            super();
+            Label paretoLabel = new Label("Viagens não dominadas em duração, distância e sustentabilidade");
+            paretoLabel.setFont(Font.font(16));
+            paretoLabel.setPadding(new Insets(5));
+
+            paretoButton = new Button("Calcular Alternativas");
+
+            paretoListView = new ListView<>();
+            paretoListView.setPrefHeight(150);
+            paretoListView.setCellFactory(list -> new PathResultCell());
+
+            this.setMaxWidth(500);
+            this.setSpacing(10);
+
+            this.getChildren().addAll(paretoLabel, paretoButton, paretoListView);
+        }
+    }
+
+    /**
+     * List cell of a path result, with its duration, distance, sustainability and number of routes
+     */
+    private static class PathResultCell extends ListCell<PathResult> {
+        @Override
+        protected void updateItem(PathResult result, boolean empty) {
+            super.updateItem(result, empty);
+            if (empty || result == null) {
+                setText(null);
+            } else {
+                setText(String.format("%.2f", result.getTotalDuration()) + " " + PathCriteria.DURATION.getUnit()
+                        + " | " + String.format("%.2f", result.getTotalDistance()) + " " + PathCriteria.DISTANCE.getUnit()
+                        + " | " + String.format("%.2f", result.getTotalSustainability()) + " " + PathCriteria.SUSTAINABILITY.getUnit()
+                        + " | " + (result.getPath().size() - 1) + " rotas");
+            }
+        }
+    }
+
     /**
      * Put the list of stops into the TextArea
      * @param list Collection<Vertex<Stop>> a collection of stops
@@ -414,6 +519,20 @@ public class StartView extends VBox implements Observable {
         routesBox.routesTextArea.setText(sb.toString());
     }
 
+    /**
+     * Put the stops reachable within a budget and their costs into the TextArea
+     * @param criteria PathCriteria the criteria of the budget
+     * @param reachable Map<Vertex<Stop>, Double> the less cost of each reachable stop, by increasing cost
+     */
+    public void showReachableStops(PathCriteria criteria, Map<Vertex<Stop>, Double> reachable) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Vertex<Stop>, Double> entry : reachable.entrySet()) {
+            sb.append(" [").append(entry.getKey().element().getName()).append(" ")
+                    .append(String.format("%.2f", entry.getValue())).append(" ").append(criteria.getUnit()).append("] ");
+        }
+        routesBox.routesTextArea.setText(sb.toString());
+    }
+
     /**
      * Return the path criteria selected or null if none is selected
      * @return PathCriteria the path criteria selected or null if none is selected
@@ -472,6 +591,23 @@ public class StartView extends VBox implements Observable {
         }
     }
 
+    /**
+     * Show the alternative paths in the trip box
+     * @param paths List<PathResult> the alternative paths, by increasing cost
+     */
+    public void showAlternativePaths(List<PathResult> paths) {
+        tripBox.alternativesListView.getItems().setAll(paths);
+    }
+
+    /**
+     * Show the Pareto paths in the Pareto box and the first one in the trip box
+     * @param front List<PathResult> the non-dominated paths, by increasing duration
+     */
+    public void showParetoPaths(List<PathResult> front) {
+        paretoBox.paretoListView.getItems().setAll(front);
+        showPathResult(front.isEmpty() ? null : front.get(0));
+    }
+
     /**
      * Set the triggers for the actions
      * @param controller TransportMapController the controller
@@ -491,6 +627,79 @@ public class StartView extends VBox implements Observable {
             );
         });
 
+        routesBox.isochroneButton.setOnAction(e -> {
+            Vertex<Stop> stop = routesBox.stopComboBox.getValue();
+            PathCriteria pathCriteria = getPathCriteria();
+            EnumSet<TransportType> transportTypes = getTransportTypes();
+            if (stop == null || pathCriteria == null) {
+                controller.showError("Selecione uma paragem e um parâmetro a otimizar.");
+                notifyObservers("Erro na procura de paragens alcançáveis, paragem ou parâmetro não selecionado.");
+                return;
+            }
+            if (transportTypes.isEmpty()) {
+                controller.showError("Selecione pelo menos um transporte.");
+                notifyObservers("Erro na procura de paragens alcançáveis, nenhum transporte selecionado.");
+                return;
+            }
+            double budget;
+            try {
+                budget = Double.parseDouble(routesBox.budgetTextField.getText().trim().replace(',', '.'));
+            } catch (NumberFormatException ex) {
+                controller.showError("Indique um orçamento numérico.");
+                notifyObservers("Erro na procura de paragens alcançáveis, orçamento inválido.");
+                return;
+            }
+
+            try {
+                controller.startActionReachableStops(pathCriteria, transportTypes, stop, budget);
+                notifyObservers("Procura de paragens alcançáveis a partir de " + stop.element().getName()
+                        + " com " + budget + " " + pathCriteria.getUnit() + ".");
+            } catch (IllegalArgumentException ex) {
+                controller.showError("Não é possível calcular as paragens alcançáveis com custos negativos ou orçamento inválido.");
+                notifyObservers("Erro na procura de paragens alcançáveis: " + ex.getMessage());
+            }
+        });
+
+        paretoBox.paretoButton.setOnAction(e -> {
+            Vertex<Stop> origin = actionGrid.originComboBox.getValue();
+            Vertex<Stop> destination = actionGrid.destinationComboBox.getValue();
+            EnumSet<TransportType> transportTypes = getTransportTypes();
+            if (origin == null || destination == null || Objects.equals(origin, destination)) {
+                controller.showError("Selecione paragens de origem e de destino diferentes.");
+                notifyObservers("Erro na procura de alternativas, paragens de origem e de destino inválidas.");
+                return;
+            }
+            if (transportTypes.isEmpty()) {
+                controller.showError("Selecione pelo menos um transporte.");
+                notifyObservers("Erro na procura de alternativas, nenhum transporte selecionado.");
+                return;
+            }
+
+            controller.startActionParetoPaths(transportTypes, origin, destination);
+            notifyObservers("Procura de alternativas entre "
+                    + origin.element().getName() + " e "
+                    + destination.element().getName() + ": "
+                    + paretoBox.paretoListView.getItems().size() + " viagens."
+            );
+            if (paretoBox.paretoListView.getItems().isEmpty()) {
+                controller.showError("Não pode efetuar este percurso com os meios de transporte escolhidos");
+            }
+        });
+
+        paretoBox.paretoListView.getSelectionModel().selectedItemProperty().addListener((obs, oldResult, result) -> {
+            if (result != null) {
+                controller.mapActionVisualizeGraphColors(result);
+                showPathResult(result);
+            }
+        });
+
+        tripBox.alternativesListView.getSelectionModel().selectedItemProperty().addListener((obs, oldResult, result) -> {
+            if (result != null) {
+                controller.mapActionVisualizeGraphColors(result);
+                showPathResult(result);
+            }
+        });
+
         actionGrid.searchButton.setOnAction(e -> {
             PathCriteria pathCriteria = getPathCriteria();
 
@@ -538,6 +747,7 @@ public class StartView extends VBox implements Observable {
                         + destination.element().getName() + "."
                 ));
                 showPathResult(null);
+                showAlternativePaths(List.of());
             }
         });
     }
@@ -0,0 +1,99 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.InvalidVertexException;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ALTStrategyTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+    }
+
+    @Test
+    void distance() {
+        PathStrategy alt = new ALTStrategy(new DistanceCostStrategy());
+        PathTestHelper.assertSameAsDijkstra(graph, alt, EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, alt, EnumSet.of(TransportType.TRAIN, TransportType.WALK));
+    }
+
+    @Test
+    void duration() {
+        PathStrategy alt = new ALTStrategy(new DurationCostStrategy(), 8);
+        PathTestHelper.assertSameAsDijkstra(graph, alt, EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, alt, EnumSet.of(TransportType.BUS));
+    }
+
+    @Test
+    void landmarkCodes() {
+        PathStrategy alt = new ALTStrategy(new DistanceCostStrategy(), List.of("SET014", "CAIS019"), new ForkJoinPool(2));
+        PathTestHelper.assertSameAsDijkstra(graph, alt, EnumSet.allOf(TransportType.class));
+
+        PathStrategy invalid = new ALTStrategy(new DistanceCostStrategy(), List.of("NONE"), ForkJoinPool.commonPool());
+        assertThrows(InvalidVertexException.class, () -> invalid.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), graph.getVertex("SET014"), graph.getVertex("PAL018")));
+        assertThrows(IllegalArgumentException.class, () -> new ALTStrategy(new DistanceCostStrategy(), -1));
+    }
+
+    @Test
+    void lowerBound() {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        int[] landmarks = LandmarkTable.selectFarthestLandmarks(snapshot, 4);
+        assertEquals(4, landmarks.length);
+        LandmarkTable table = new LandmarkTable(snapshot, null, PathCriteria.DISTANCE, RoutingSnapshot.ALL_TRANSPORTS, landmarks, ForkJoinPool.commonPool());
+        PathStrategy dijkstra = new DijkstraStrategy(new DistanceCostStrategy());
+        Vertex<Stop> destination = graph.getVertex("PAL018");
+        for (Vertex<Stop> origin : graph.vertices()) {
+            PathResult result;
+            try {
+                result = dijkstra.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination);
+            } catch (IllegalStateException e) {
+                continue; // no path (or same stop)
+            }
+            assertTrue(table.lowerBound(snapshot.id(origin), snapshot.id(destination)) <= result.getTotalDistance() + 1e-9);
+        }
+        assertFalse(graph.getMinimumCostTable().hasNonNegativeCosts(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS));
+        assertTrue(graph.getMinimumCostTable().hasNonNegativeCosts(PathCriteria.DURATION, RoutingSnapshot.ALL_TRANSPORTS));
+    }
+
+    @Test
+    void userConfigurationChange() {
+        graph.loadUserConfiguration();
+        graph.getUserConfiguration().resetDisabledRoutes();
+        PathStrategy alt = new ALTStrategy(new DistanceCostStrategy());
+        Vertex<Stop> setubal = graph.getVertex("SET014");
+        Vertex<Stop> palmela = graph.getVertex("PAL018");
+        assertEquals(2, alt.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), setubal, palmela).getPath().size());
+
+        // landmark tables must be rebuilt without the disabled route
+        Edge<Route, Stop> edge = graph.getEdge(setubal, palmela);
+        graph.getUserConfiguration().addDisabledRoute(edge);
+        PathTestHelper.assertSameAsDijkstra(graph, alt, EnumSet.allOf(TransportType.class));
+        graph.getUserConfiguration().resetDisabledRoutes();
+    }
+
+    @Test
+    void sustainability() {
+        // negative costs, the query is done by the loopless search
+        PathStrategy alt = new ALTStrategy(new SustainabilityCostStrategy());
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("CAIS019");
+        assertEquals(loopless.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination).getTotalSustainability(),
+                alt.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination).getTotalSustainability(), 1e-9);
+    }
+}
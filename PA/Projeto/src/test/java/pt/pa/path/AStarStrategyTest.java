@@ -0,0 +1,72 @@
+package pt.pa.path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AStarStrategyTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+    }
+
+    @Test
+    void distance() {
+        PathTestHelper.assertSameAsDijkstra(graph, new AStarStrategy(new DistanceCostStrategy()), EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, new AStarStrategy(new DistanceCostStrategy()), EnumSet.of(TransportType.TRAIN, TransportType.WALK));
+    }
+
+    @Test
+    void duration() {
+        PathTestHelper.assertSameAsDijkstra(graph, new AStarStrategy(new DurationCostStrategy()), EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, new AStarStrategy(new DurationCostStrategy()), EnumSet.of(TransportType.BUS));
+    }
+
+    @Test
+    void sustainability() {
+        // negative costs, the query is done by the loopless search
+        PathStrategy aStar = new AStarStrategy(new SustainabilityCostStrategy());
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        EnumSet<TransportType> transportList = EnumSet.allOf(TransportType.class);
+        assertEquals(loopless.findLessCostPathBetweenTwoVertices(graph, transportList, graph.getVertex("SET014"), graph.getVertex("CAIS019")).getTotalSustainability(),
+                aStar.findLessCostPathBetweenTwoVertices(graph, transportList, graph.getVertex("SET014"), graph.getVertex("CAIS019")).getTotalSustainability(), 1e-9);
+        // non-negative costs, a plain Dijkstra without lower bound
+        PathTestHelper.assertSameAsDijkstra(graph, aStar, EnumSet.of(TransportType.TRAIN, TransportType.BUS, TransportType.BOAT));
+    }
+
+    @Test
+    void geodesicSpeedIsLowerBound() {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        for (int edge = 0; edge < snapshot.numEdges(); edge++) {
+            double geodesicDistance = snapshot.geodesicDistance(snapshot.edgeSource(edge), snapshot.edgeTarget(edge));
+            for (TransportType type : TransportType.values()) {
+                if (!snapshot.hasTransport(edge, type)) { continue; }
+                for (PathCriteria criteria : EnumSet.of(PathCriteria.DISTANCE, PathCriteria.DURATION)) {
+                    assertTrue(geodesicDistance / snapshot.geodesicSpeed(type, criteria) <= snapshot.cost(edge, type, criteria) + 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void pathInfo() {
+        PathStrategy aStar = new AStarStrategy(new DistanceCostStrategy());
+        // set-pal is a direct train route of 5.19
+        PathResult result = aStar.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), graph.getVertex("SET014"), graph.getVertex("PAL018"));
+        assertEquals(2, result.getPath().size());
+        assertEquals(List.of(TransportType.TRAIN), result.getTransportList());
+        assertEquals(5.19, result.getTotalDistance(), 1e-9);
+        assertEquals(4.0, result.getTotalDuration(), 1e-9);
+    }
+}
@@ -0,0 +1,108 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstrainedSearchTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+    List<Vertex<Stop>> vertices;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+        transportList = EnumSet.allOf(TransportType.class);
+        vertices = new ArrayList<>(graph.vertices());
+    }
+
+    @Test
+    void withoutBudgetsSameAsDijkstra() {
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            PathTestHelper.assertSameAsDijkstra(graph, dijkstra.getCostStrategy(), transportList,
+                    (origin, destination) -> dijkstra.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of()));
+        }
+    }
+
+    @Test
+    void negativeCostsWithoutBudgetsSameAsLoopless() {
+        // the dominance is not applied with negative costs, the search is exact on the paths without repeated stops
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        ConstrainedSearch search = new ConstrainedSearch(new SustainabilityCostStrategy());
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        for (Vertex<Stop> destination : vertices) {
+            double expected = PathTestHelper.lessCost(graph, loopless, transportList, origin, destination);
+            if (Double.isInfinite(expected)) { continue; }
+            assertEquals(expected, search.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of()).getTotalSustainability(), 1e-9);
+        }
+    }
+
+    @Test
+    void mostSustainableWithinDuration() {
+        PathStrategy fastest = new DijkstraStrategy(new DurationCostStrategy());
+        PathStrategy sustainable = new DijkstraStrategy(new SustainabilityCostStrategy());
+        ParetoSearch pareto = new ParetoSearch();
+        for (Vertex<Stop> origin : vertices) {
+            for (Vertex<Stop> destination : vertices) {
+                if (origin.equals(destination)) { continue; }
+                double budget;
+                try {
+                    budget = fastest.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getTotalDuration() + 10;
+                } catch (IllegalStateException e) {
+                    continue;
+                }
+                PathResult result = sustainable.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of(PathCriteria.DURATION, budget));
+                assertTrue(result.getTotalDuration() <= budget);
+                // not worse than any path of the Pareto front within the budget
+                for (PathResult path : pareto.findParetoPaths(graph, transportList, origin, destination)) {
+                    if (path.getTotalDuration() <= budget) {
+                        assertTrue(result.getTotalSustainability() <= path.getTotalSustainability() + 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void mostSustainableWithinTightDuration() {
+        // a budget at the duration of each path of the front, the search must find it or a more sustainable path
+        ConstrainedSearch search = new ConstrainedSearch(new SustainabilityCostStrategy());
+        ParetoSearch pareto = new ParetoSearch(64, 1_000_000);
+        for (String[] codes : List.of(new String[]{"SET014", "PAL018"}, new String[]{"SET014", "MEM002"}, new String[]{"CAIS019", "MEM002"})) {
+            Vertex<Stop> origin = graph.getVertex(codes[0]);
+            Vertex<Stop> destination = graph.getVertex(codes[1]);
+            List<PathResult> front = pareto.findParetoPaths(graph, transportList, origin, destination);
+            assertFalse(front.isEmpty());
+            for (PathResult path : front) {
+                double budget = path.getTotalDuration() + 1e-9;
+                PathResult result = search.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of(PathCriteria.DURATION, budget));
+                assertTrue(result.getTotalDuration() <= budget);
+                assertTrue(result.getTotalSustainability() <= path.getTotalSustainability() + 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void fastestWithinDistance() {
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("MEM002");
+        ConstrainedSearch search = new ConstrainedSearch(new DurationCostStrategy());
+        PathResult fastest = search.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of());
+        PathResult shorter = search.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of(PathCriteria.DISTANCE, fastest.getTotalDistance() - 1));
+        assertTrue(shorter.getTotalDistance() <= fastest.getTotalDistance() - 1);
+        assertTrue(shorter.getTotalDuration() >= fastest.getTotalDuration());
+
+        assertThrows(IllegalStateException.class, () -> search.findLessCostPathWithBudgets(graph, transportList, origin, destination, Map.of(PathCriteria.DISTANCE, 1.0)));
+        assertThrows(IllegalArgumentException.class, () -> search.findLessCostPathWithBudgets(graph, transportList, origin, destination, null));
+        assertThrows(IllegalArgumentException.class, () -> new ConstrainedSearch(null));
+    }
+}
@@ -0,0 +1,71 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyStrategyTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+    }
+
+    @Test
+    void distance() {
+        PathTestHelper.assertSameAsDijkstra(graph, new ContractionHierarchyStrategy(new DistanceCostStrategy(), new ForkJoinPool(4)), EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, new ContractionHierarchyStrategy(new DistanceCostStrategy(), new ForkJoinPool(4)), EnumSet.of(TransportType.TRAIN, TransportType.WALK));
+    }
+
+    @Test
+    void duration() {
+        PathTestHelper.assertSameAsDijkstra(graph, new ContractionHierarchyStrategy(new DurationCostStrategy(), new ForkJoinPool(4)), EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, new ContractionHierarchyStrategy(new DurationCostStrategy(), new ForkJoinPool(4)), EnumSet.of(TransportType.BUS));
+    }
+
+    @Test
+    void contractionHierarchy() {
+        ContractionHierarchyStrategy strategy = new ContractionHierarchyStrategy(new DistanceCostStrategy());
+        ContractionHierarchy hierarchy = strategy.getContractionHierarchy(graph, EnumSet.allOf(TransportType.class));
+        assertSame(hierarchy, strategy.getContractionHierarchy(graph, EnumSet.allOf(TransportType.class)));
+        assertTrue(hierarchy.getPreprocessingTime() > 0);
+        assertTrue(hierarchy.getNumShortcuts() >= 0);
+
+        // ranks are a permutation of the stops
+        Set<Integer> ranks = new HashSet<>();
+        for (int v = 0; v < hierarchy.getSnapshot().numStops(); v++) {
+            ranks.add(hierarchy.rank(v));
+        }
+        assertEquals(graph.getNumberOfStops(), ranks.size());
+
+        // rebuilt when the graph changes
+        graph.insertVertex(new Stop("TEST1", "Test1", 0, 0));
+        assertNotSame(hierarchy, strategy.getContractionHierarchy(graph, EnumSet.allOf(TransportType.class)));
+        assertThrows(IllegalArgumentException.class, () -> new ContractionHierarchyStrategy(new DistanceCostStrategy(), null));
+    }
+
+    @Test
+    void sustainability() {
+        // negative costs, the query is done by the loopless search
+        PathStrategy contraction = new ContractionHierarchyStrategy(new SustainabilityCostStrategy());
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("CAIS019");
+        assertEquals(loopless.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination).getTotalSustainability(),
+                contraction.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination).getTotalSustainability(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new ContractionHierarchy(graph.getRoutingSnapshot(), null, PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS, ForkJoinPool.commonPool()));
+    }
+}
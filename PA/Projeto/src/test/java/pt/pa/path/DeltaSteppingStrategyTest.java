@@ -0,0 +1,82 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaSteppingStrategyTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+    }
+
+    @Test
+    void distance() {
+        PathTestHelper.assertSameAsDijkstra(graph, new DeltaSteppingStrategy(new DistanceCostStrategy()), EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, new DeltaSteppingStrategy(new DistanceCostStrategy(), 0.5, ForkJoinPool.commonPool()), EnumSet.of(TransportType.TRAIN, TransportType.WALK));
+    }
+
+    @Test
+    void duration() {
+        PathTestHelper.assertSameAsDijkstra(graph, new DeltaSteppingStrategy(new DurationCostStrategy(), 100, new ForkJoinPool(2)), EnumSet.allOf(TransportType.class));
+        PathTestHelper.assertSameAsDijkstra(graph, new DeltaSteppingStrategy(new DurationCostStrategy()), EnumSet.of(TransportType.BUS));
+        assertThrows(IllegalArgumentException.class, () -> new DeltaSteppingStrategy(new DurationCostStrategy(), -1, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void largeGraph() {
+        // grid large enough to relax the buckets in parallel, routes with equal info are the same route
+        TransportMap grid = new TransportMap();
+        Random random = new Random(7);
+        int size = 40;
+        for (int i = 0; i < size * size; i++) {
+            grid.insertVertex(new Stop("G" + i, "Grid " + i, i / size, i % size));
+        }
+        for (int i = 0; i < size * size; i++) {
+            if (i % size < size - 1) {
+                grid.insertEdge(grid.getVertex("G" + i).element(), grid.getVertex("G" + (i + 1)).element(), new Route().addTransport(TransportType.BUS, 1 + random.nextInt(10), 2 * i + 1, 1));
+            }
+            if (i / size < size - 1) {
+                grid.insertEdge(grid.getVertex("G" + i).element(), grid.getVertex("G" + (i + size)).element(), new Route().addTransport(TransportType.BUS, 1 + random.nextInt(10), 2 * i + 2, 1));
+            }
+        }
+        EnumSet<TransportType> bus = EnumSet.of(TransportType.BUS);
+        Vertex<Stop> origin = grid.getVertex("G0");
+        PathStrategy dijkstra = new DijkstraStrategy(new DistanceCostStrategy());
+        // wide buckets have hundreds of vertices each, a tiny delta is widened to a bounded number of cyclic buckets
+        for (double delta : new double[]{ 2, 100, 1e-9 }) {
+            Map<Vertex<Stop>, Double> costs = new DeltaSteppingStrategy(new DistanceCostStrategy(), delta, new ForkJoinPool(4)).findLessCostToAllVertices(grid, bus, origin);
+            assertEquals(size * size, costs.size());
+            for (int i = 1; i < size * size; i += 37) {
+                Vertex<Stop> destination = grid.getVertex("G" + i);
+                assertEquals(dijkstra.findLessCostPathBetweenTwoVertices(grid, bus, origin, destination).getTotalDistance(), costs.get(destination), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void sustainability() {
+        // negative costs, the query is done by the loopless search
+        PathStrategy deltaStepping = new DeltaSteppingStrategy(new SustainabilityCostStrategy());
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("CAIS019");
+        assertEquals(loopless.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination).getTotalSustainability(),
+                deltaStepping.findLessCostPathBetweenTwoVertices(graph, EnumSet.allOf(TransportType.class), origin, destination).getTotalSustainability(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new DeltaSteppingStrategy(new SustainabilityCostStrategy()).findLessCostToAllVertices(graph, EnumSet.allOf(TransportType.class), origin));
+    }
+}
@@ -0,0 +1,78 @@
+package pt.pa.path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.IndexedMinHeap;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedMinHeapTest {
+    IndexedMinHeap heap;
+
+    @BeforeEach
+    void setUp() {
+        heap = new IndexedMinHeap(10);
+    }
+
+    @Test
+    void insertAndPoll() {
+        heap.insert(3, 5.0);
+        heap.insert(1, -2.0);
+        heap.insert(7, 1.5);
+        assertEquals(3, heap.size());
+        assertTrue(heap.contains(7));
+        assertFalse(heap.contains(0));
+        assertEquals(-2.0, heap.peekKey());
+
+        assertEquals(1, heap.poll());
+        assertEquals(7, heap.poll());
+        assertEquals(3, heap.poll());
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(3));
+        assertThrows(NoSuchElementException.class, () -> heap.poll());
+        assertThrows(IllegalArgumentException.class, () -> new IndexedMinHeap(-1));
+    }
+
+    @Test
+    void decreaseKey() {
+        heap.insert(0, 10.0);
+        heap.insert(1, 20.0);
+        heap.insert(2, 30.0);
+        heap.decreaseKey(2, 5.0);
+        assertEquals(5.0, heap.getKey(2));
+        assertEquals(2, heap.poll());
+
+        heap.insertOrDecreaseKey(1, 1.0);
+        heap.insertOrDecreaseKey(4, 2.0);
+        assertEquals(1, heap.poll());
+        assertEquals(4, heap.poll());
+
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(0, 50.0));
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(9, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> heap.insert(0, 1.0));
+    }
+
+    @Test
+    void randomOrder() {
+        Random random = new Random(42);
+        IndexedMinHeap bigHeap = new IndexedMinHeap(1000);
+        double[] keys = new double[1000];
+        for (int id = 0; id < 1000; id++) {
+            keys[id] = random.nextDouble() * 100;
+            bigHeap.insert(id, keys[id]);
+        }
+        for (int id = 0; id < 1000; id += 3) {
+            keys[id] -= 50;
+            bigHeap.decreaseKey(id, keys[id]);
+        }
+        double last = Double.NEGATIVE_INFINITY;
+        while (!bigHeap.isEmpty()) {
+            int id = bigHeap.poll();
+            assertTrue(keys[id] >= last);
+            last = keys[id];
+        }
+    }
+}
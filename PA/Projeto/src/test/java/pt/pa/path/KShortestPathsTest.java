@@ -0,0 +1,123 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KShortestPathsTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+    List<Vertex<Stop>> vertices;
+
+    @BeforeEach
+    void setUp() {
+        graph = new TransportMap();
+        graph.update();
+        transportList = EnumSet.allOf(TransportType.class);
+        vertices = new ArrayList<>(graph.vertices());
+    }
+
+    /**
+     * Add to costs the distance of every path without repeated stops from a stop to the destination within a bound
+     */
+    private void simplePathDistances(Vertex<Stop> v, Vertex<Stop> destination, Set<Vertex<Stop>> visited, double distance, double bound, List<Double> costs) {
+        if (v.equals(destination)) {
+            costs.add(distance);
+            return;
+        }
+        for (Edge<Route, Stop> edge : graph.incidentEdges(v)) {
+            Vertex<Stop> w = graph.opposite(v, edge);
+            double edgeDistance = edge.element().getTransportList().stream().mapToDouble(edge.element()::getTransportDistance).min().orElseThrow();
+            if (visited.contains(w) || distance + edgeDistance > bound) { continue; }
+            visited.add(w);
+            simplePathDistances(w, destination, visited, distance + edgeDistance, bound, costs);
+            visited.remove(w);
+        }
+    }
+
+    @Test
+    void pathsAreOrderedDistinctAndLoopless() {
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            for (Vertex<Stop> origin : vertices) {
+                for (Vertex<Stop> destination : vertices) {
+                    if (origin.equals(destination)) { continue; }
+                    PathResult expected;
+                    try {
+                        expected = dijkstra.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+                    } catch (IllegalStateException e) {
+                        assertThrows(IllegalStateException.class, () -> dijkstra.findKLessCostPaths(graph, transportList, origin, destination, 5));
+                        continue;
+                    }
+                    List<PathResult> paths = dijkstra.findKLessCostPaths(graph, transportList, origin, destination, 5);
+                    boolean distance = dijkstra.getCostStrategy().getPathCriteria() == PathCriteria.DISTANCE;
+                    assertFalse(paths.isEmpty());
+                    assertEquals(distance ? expected.getTotalDistance() : expected.getTotalDuration(),
+                            distance ? paths.get(0).getTotalDistance() : paths.get(0).getTotalDuration(), 1e-9);
+                    Set<List<Vertex<Stop>>> seen = new HashSet<>();
+                    for (int i = 0; i < paths.size(); i++) {
+                        List<Vertex<Stop>> path = paths.get(i).getPath();
+                        assertEquals(origin, path.get(0));
+                        assertEquals(destination, path.get(path.size() - 1));
+                        assertEquals(path.size(), new HashSet<>(path).size());
+                        assertTrue(seen.add(path));
+                        if (i > 0) {
+                            assertTrue(distance ? paths.get(i - 1).getTotalDistance() <= paths.get(i).getTotalDistance() + 1e-9
+                                    : paths.get(i - 1).getTotalDuration() <= paths.get(i).getTotalDuration() + 1e-9);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameAsAllSimplePaths() {
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("MEM002");
+        List<PathResult> paths = new KShortestPaths(new DistanceCostStrategy()).findKLessCostPaths(graph, transportList, origin, destination, 10);
+        assertEquals(10, paths.size());
+
+        List<Double> costs = new ArrayList<>();
+        simplePathDistances(origin, destination, new HashSet<>(Set.of(origin)), 0.0, paths.get(9).getTotalDistance() + 1e-9, costs);
+        Collections.sort(costs);
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(costs.get(i), paths.get(i).getTotalDistance(), 1e-9);
+        }
+    }
+
+    @Test
+    void noPath() {
+        KShortestPaths search = new KShortestPaths(new DurationCostStrategy());
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> isolated = graph.vertices().stream().filter(vertex -> graph.incidentEdges(vertex).isEmpty()).findFirst().orElseThrow();
+        for (Vertex<Stop> destination : List.of(isolated, origin)) {
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> search.findKLessCostPaths(graph, transportList, origin, destination, 3));
+            assertEquals("No path found between the origin and the destination.", exception.getMessage());
+        }
+    }
+
+    @Test
+    void bounds() {
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("MEM002");
+        KShortestPaths search = new KShortestPaths(new DurationCostStrategy());
+        assertThrows(IllegalArgumentException.class, () -> search.findKLessCostPaths(graph, transportList, origin, destination, 0));
+        assertThrows(IllegalArgumentException.class, () -> search.findKLessCostPaths(graph, transportList, origin, destination, KShortestPaths.MAX_PATHS + 1));
+        assertThrows(IllegalArgumentException.class, () -> new KShortestPaths(null));
+        assertThrows(IllegalArgumentException.class, () -> new KShortestPaths(new DurationCostStrategy(), 0, ForkJoinPool.commonPool()));
+        // the walk and bicycle sustainability costs are negative
+        assertThrows(IllegalArgumentException.class, () -> new KShortestPaths(new SustainabilityCostStrategy()).findKLessCostPaths(graph, transportList, origin, destination, 2));
+        assertEquals(KShortestPaths.MAX_PATHS, search.findKLessCostPaths(graph, transportList, origin, destination, KShortestPaths.MAX_PATHS).size());
+    }
+}
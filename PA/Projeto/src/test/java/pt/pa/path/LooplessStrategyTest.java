@@ -0,0 +1,96 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LooplessStrategyTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+    }
+
+    /**
+     * Find the less cost of the paths without repeated stops by trying all of them
+     * @param snapshot RoutingSnapshot the routing snapshot
+     * @param edgeCosts double[] the minimum cost of each edge, NaN if the edge can't be used
+     * @param v int the current stop id
+     * @param destination int the destination stop id
+     * @param onPath boolean[] the stops of the current path
+     * @return double the less cost from v to the destination, infinity if there is no path
+     */
+    private static double bruteForce(RoutingSnapshot snapshot, double[] edgeCosts, int v, int destination, boolean[] onPath) {
+        if (v == destination) { return 0.0; }
+        onPath[v] = true;
+        double best = Double.POSITIVE_INFINITY;
+        for (int arc = snapshot.arcStart(v); arc < snapshot.arcEnd(v); arc++) {
+            double edgeCost = edgeCosts[snapshot.arcEdge(arc)];
+            int w = snapshot.arcTarget(arc);
+            if (Double.isNaN(edgeCost) || onPath[w]) { continue; }
+            best = Math.min(best, edgeCost + bruteForce(snapshot, edgeCosts, w, destination, onPath));
+        }
+        onPath[v] = false;
+        return best;
+    }
+
+    @Test
+    void sameAsBruteForce() {
+        // walk and bicycle have negative sustainability costs
+        EnumSet<TransportType> transportList = EnumSet.allOf(TransportType.class);
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        double[] edgeCosts = graph.getMinimumCostTable().costs(PathCriteria.SUSTAINABILITY, RoutingSnapshot.transportMask(transportList));
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        for (Vertex<Stop> destination : graph.vertices()) {
+            if (origin.equals(destination)) { continue; }
+            double expected = bruteForce(snapshot, edgeCosts, snapshot.id(origin), snapshot.id(destination), new boolean[snapshot.numStops()]);
+            if (Double.isInfinite(expected)) {
+                IllegalStateException exception = assertThrows(IllegalStateException.class, () -> loopless.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination));
+                assertEquals("No path found between the origin and the destination.", exception.getMessage());
+                continue;
+            }
+            PathResult result = loopless.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+            List<Vertex<Stop>> path = result.getPath();
+            assertEquals(origin, path.get(0));
+            assertEquals(destination, path.get(path.size() - 1));
+            assertEquals(path.size(), new HashSet<>(path).size()); // each stop once
+            assertEquals(expected, result.getTotalSustainability(), 1e-9);
+        }
+    }
+
+    @Test
+    void sameAsDijkstraWithoutNegativeCosts() {
+        EnumSet<TransportType> transportList = EnumSet.of(TransportType.TRAIN, TransportType.BUS, TransportType.BOAT);
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        PathTestHelper.assertSameAsDijkstra(graph, loopless, transportList);
+    }
+
+    @Test
+    void negativeCycle() {
+        // a usable route with a negative cost is a negative cycle there and back, the Bellman-Ford search throws
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        PathStrategy bellman = new BellmanStrategy(new SustainabilityCostStrategy());
+        EnumSet<TransportType> transportList = EnumSet.allOf(TransportType.class);
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("CAIS019");
+        assertThrows(IllegalStateException.class, () -> bellman.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination));
+        List<Vertex<Stop>> path = loopless.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getPath();
+        assertEquals(path.size(), new HashSet<>(path).size()); // each stop once
+    }
+
+    @Test
+    void factory() {
+        assertInstanceOf(LooplessStrategy.class, PathStrategyFactory.create(PathCriteria.SUSTAINABILITY));
+    }
+}
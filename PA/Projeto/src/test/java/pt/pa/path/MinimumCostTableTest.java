@@ -0,0 +1,128 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.UserConfiguration;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinimumCostTableTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new TransportMap();
+        graph.update();
+        graph.loadUserConfiguration();
+        graph.getUserConfiguration().resetDisabledRoutes();
+        graph.getUserConfiguration().setBicycleDurationScale(1.0);
+    }
+
+    /**
+     * Check every built array of the table against the minimum transport type of PathUtils
+     * @param table MinimumCostTable the table to check
+     * @param mask int the transport mask
+     */
+    private void assertMatchesPathUtils(MinimumCostTable table, int mask) {
+        RoutingSnapshot snapshot = table.getSnapshot();
+        UserConfiguration userConfiguration = table.getUserConfiguration();
+        for (PathCriteria criteria : PathCriteria.values()) {
+            double[] costs = table.costs(criteria, mask);
+            for (int edge = 0; edge < snapshot.numEdges(); edge++) {
+                TransportType expected = userConfiguration.isRouteDisabled(snapshot.edge(edge)) ? null
+                        : PathUtils.getMinimumTransportType(snapshot, userConfiguration, mask, edge, criteria);
+                assertEquals(expected, table.type(criteria, mask, edge));
+                if (expected == null) {
+                    assertTrue(Double.isNaN(costs[edge]));
+                } else {
+                    assertEquals(PathUtils.getTransportCost(snapshot, userConfiguration, edge, expected, criteria), costs[edge]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sameAsPathUtils() {
+        MinimumCostTable table = graph.getMinimumCostTable();
+        assertMatchesPathUtils(table, RoutingSnapshot.ALL_TRANSPORTS);
+        assertMatchesPathUtils(table, RoutingSnapshot.transportMask(EnumSet.of(TransportType.TRAIN, TransportType.BUS)));
+        assertArrayEquals(MinimumCostTable.computeCosts(table.getSnapshot(), table.getUserConfiguration(), PathCriteria.DURATION, RoutingSnapshot.ALL_TRANSPORTS),
+                table.costs(PathCriteria.DURATION, RoutingSnapshot.ALL_TRANSPORTS));
+    }
+
+    @Test
+    void updatedByUserConfiguration() {
+        MinimumCostTable table = graph.getMinimumCostTable();
+        RoutingSnapshot snapshot = table.getSnapshot();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+        Edge<Route, Stop> edge = graph.getEdge(graph.getVertex("SET014"), graph.getVertex("PAL018"));
+        int id = snapshot.edgeId(edge);
+        double[] sustainability = table.costs(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS);
+        double[] duration = table.costs(PathCriteria.DURATION, RoutingSnapshot.ALL_TRANSPORTS);
+        assertEquals(TransportType.BICYCLE, table.type(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS, id));
+
+        // the built arrays are updated in new arrays, the arrays already returned are not changed
+        userConfiguration.addDisabledTransportType(edge, TransportType.BICYCLE);
+        assertNotEquals(TransportType.BICYCLE, table.type(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS, id));
+        assertMatchesPathUtils(table, RoutingSnapshot.ALL_TRANSPORTS);
+
+        userConfiguration.addDisabledRoute(edge);
+        assertTrue(Double.isNaN(table.costs(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS)[id]));
+        assertNotSame(sustainability, table.costs(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS));
+        assertFalse(Double.isNaN(sustainability[id]));
+        assertNull(table.type(PathCriteria.DISTANCE, RoutingSnapshot.ALL_TRANSPORTS, id));
+
+        userConfiguration.removeDisabledRoute(edge);
+        userConfiguration.removeDisabledTransportType(edge, TransportType.BICYCLE);
+        assertEquals(TransportType.BICYCLE, table.type(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS, id));
+
+        userConfiguration.setBicycleDurationScale(0.25);
+        assertMatchesPathUtils(table, RoutingSnapshot.ALL_TRANSPORTS);
+        userConfiguration.addDisabledRoute(edge);
+        userConfiguration.resetDisabledRoutes();
+        assertFalse(Double.isNaN(duration[id]));
+        assertMatchesPathUtils(table, RoutingSnapshot.ALL_TRANSPORTS);
+        assertSame(table, graph.getMinimumCostTable());
+    }
+
+    @Test
+    void nonNegativeCostsIgnoreDisabledRoutes() {
+        MinimumCostTable table = graph.getMinimumCostTable();
+        RoutingSnapshot snapshot = table.getSnapshot();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+        assertTrue(table.hasNonNegativeCosts(PathCriteria.DURATION, RoutingSnapshot.ALL_TRANSPORTS));
+        assertFalse(table.hasNonNegativeCosts(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS));
+
+        // disabling every route with a negative cost leaves only non-negative costs
+        double[] sustainability = table.costs(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS);
+        for (int edge = 0; edge < snapshot.numEdges(); edge++) {
+            if (sustainability[edge] < 0) {
+                userConfiguration.addDisabledRoute(snapshot.edge(edge));
+            }
+        }
+        assertTrue(table.hasNonNegativeCosts(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS));
+        userConfiguration.resetDisabledRoutes();
+        assertFalse(table.hasNonNegativeCosts(PathCriteria.SUSTAINABILITY, RoutingSnapshot.ALL_TRANSPORTS));
+    }
+
+    @Test
+    void rebuiltWhenModelChanges() {
+        MinimumCostTable table = graph.getMinimumCostTable();
+        assertSame(table, graph.getMinimumCostTable());
+
+        Edge<Route, Stop> edge = graph.getEdge(graph.getVertex("SET014"), graph.getVertex("PAL018"));
+        graph.removeVertex(graph.getVertex("PAL018"));
+        MinimumCostTable rebuilt = graph.getMinimumCostTable();
+        assertNotSame(table, rebuilt);
+        assertEquals(-1, rebuilt.getSnapshot().edgeId(edge));
+
+        // the old table no longer observes the user configuration
+        graph.getUserConfiguration().addDisabledRoute(edge);
+        assertMatchesPathUtils(rebuilt, RoutingSnapshot.ALL_TRANSPORTS);
+    }
+}
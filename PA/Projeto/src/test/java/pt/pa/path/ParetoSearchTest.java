@@ -0,0 +1,111 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParetoSearchTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+
+    @BeforeEach
+    void setUp() {
+        graph = new TransportMap();
+        graph.update();
+        transportList = EnumSet.allOf(TransportType.class);
+    }
+
+    /**
+     * Check if a path dominates another, not worse in any criteria
+     */
+    private boolean dominates(PathResult a, PathResult b) {
+        return a.getTotalDistance() <= b.getTotalDistance()
+                && a.getTotalDuration() <= b.getTotalDuration()
+                && a.getTotalSustainability() <= b.getTotalSustainability();
+    }
+
+    @Test
+    void frontIsNotDominated() {
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("PAL018");
+        List<PathResult> front = new DijkstraStrategy(new DurationCostStrategy()).findParetoPaths(graph, transportList, origin, destination);
+
+        assertFalse(front.isEmpty());
+        for (int i = 0; i < front.size(); i++) {
+            assertEquals(origin, front.get(i).getPath().get(0));
+            assertEquals(destination, front.get(i).getPath().get(front.get(i).getPath().size() - 1));
+            if (i > 0) {
+                assertTrue(front.get(i - 1).getTotalDuration() <= front.get(i).getTotalDuration());
+            }
+            for (int j = 0; j < front.size(); j++) {
+                if (i != j) {
+                    assertFalse(dominates(front.get(i), front.get(j)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void frontHasSingleCriteriaOptima() {
+        PathStrategy distance = new DijkstraStrategy(new DistanceCostStrategy());
+        PathStrategy duration = new DijkstraStrategy(new DurationCostStrategy());
+        ParetoSearch search = new ParetoSearch();
+        List<Vertex<Stop>> vertices = new ArrayList<>(graph.vertices());
+        for (Vertex<Stop> origin : vertices) {
+            for (Vertex<Stop> destination : vertices) {
+                if (origin.equals(destination)) { continue; }
+                List<PathResult> front = search.findParetoPaths(graph, transportList, origin, destination);
+                PathResult shortest;
+                try {
+                    shortest = distance.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+                } catch (IllegalStateException e) {
+                    assertTrue(front.isEmpty());
+                    continue;
+                }
+                PathResult fastest = duration.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+                assertEquals(shortest.getTotalDistance(), front.stream().mapToDouble(PathResult::getTotalDistance).min().orElseThrow(), 1e-9);
+                assertEquals(fastest.getTotalDuration(), front.get(0).getTotalDuration(), 1e-9, origin.element().getCode() + "-" + destination.element().getCode() + " " + fastest.getRoute() + front.get(0).getRoute());
+            }
+        }
+    }
+
+    @Test
+    void disabledRoutesAreNotUsed() {
+        graph.loadUserConfiguration();
+        graph.getUserConfiguration().resetDisabledRoutes();
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("PAL018");
+        Edge<Route, Stop> edge = graph.getEdge(origin, destination);
+        graph.getUserConfiguration().addDisabledRoute(edge);
+        try {
+            List<PathResult> front = new ParetoSearch().findParetoPaths(graph, transportList, origin, destination);
+            assertFalse(front.isEmpty());
+            for (PathResult result : front) {
+                assertTrue(result.getPath().size() > 2);
+            }
+        } finally {
+            graph.getUserConfiguration().resetDisabledRoutes();
+        }
+    }
+
+    @Test
+    void labelBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ParetoSearch(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ParetoSearch(10, 0));
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("PAL018");
+        assertEquals(1, new ParetoSearch(1, 1000).findParetoPaths(graph, transportList, origin, destination).size());
+        assertThrows(IllegalArgumentException.class, () -> new ParetoSearch().findParetoPaths(graph, EnumSet.noneOf(TransportType.class), origin, destination));
+    }
+}
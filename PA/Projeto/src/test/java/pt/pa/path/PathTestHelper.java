@@ -0,0 +1,132 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.CostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fixture and assertions shared by the path tests
+ */
+final class PathTestHelper {
+
+    /**
+     * Query of the path between two stops
+     */
+    interface PathQuery {
+        /**
+         * Find the path between two stops
+         * @param origin Vertex<Stop> the origin stop
+         * @param destination Vertex<Stop> the destination stop
+         * @return PathResult the path found
+         */
+        PathResult find(Vertex<Stop> origin, Vertex<Stop> destination);
+    }
+
+    private PathTestHelper() {}
+
+    /**
+     * Load the transport map of the dataset
+     * @return TransportMap the transport map
+     */
+    static TransportMap loadTransportMap() {
+        TransportMap graph = new TransportMap();
+        graph.update();
+        return graph;
+    }
+
+    /**
+     * Get the total cost of a path in a criteria
+     * @param result PathResult the path
+     * @param criteria PathCriteria the criteria
+     * @return double the total cost
+     */
+    static double totalCost(PathResult result, PathCriteria criteria) {
+        return criteria == PathCriteria.DISTANCE ? result.getTotalDistance() : criteria == PathCriteria.DURATION ? result.getTotalDuration() : result.getTotalSustainability();
+    }
+
+    /**
+     * Get the less cost between two stops found by a strategy
+     * @param graph TransportMap the transport map
+     * @param dijkstra PathStrategy the reference strategy
+     * @param transportList EnumSet<TransportType> the transport types
+     * @param origin Vertex<Stop> the origin stop
+     * @param destination Vertex<Stop> the destination stop
+     * @return double the less cost, infinity if there is no path
+     */
+    static double lessCost(TransportMap graph, PathStrategy dijkstra, EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination) {
+        try {
+            return totalCost(dijkstra.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination), dijkstra.getCostStrategy().getPathCriteria());
+        } catch (IllegalStateException e) {
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Check that a strategy finds paths with the same cost as the single source Dijkstra for every pair of stops
+     * @param graph TransportMap the transport map
+     * @param strategy PathStrategy the strategy to check
+     * @param transportList EnumSet<TransportType> the transport types
+     */
+    static void assertSameAsDijkstra(TransportMap graph, PathStrategy strategy, EnumSet<TransportType> transportList) {
+        assertSameAsDijkstra(graph, strategy.getCostStrategy(), transportList, (origin, destination) -> strategy.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination));
+    }
+
+    /**
+     * Check that a query finds paths with the same cost as the single source Dijkstra for every pair of stops, and
+     * that the paths go from the origin to the destination through routes of the graph
+     * @param graph TransportMap the transport map
+     * @param costStrategy CostStrategy the cost strategy
+     * @param transportList EnumSet<TransportType> the transport types
+     * @param query PathQuery the query to check
+     */
+    static void assertSameAsDijkstra(TransportMap graph, CostStrategy costStrategy, EnumSet<TransportType> transportList, PathQuery query) {
+        PathStrategy dijkstra = new DijkstraStrategy(costStrategy);
+        for (Vertex<Stop> origin : graph.vertices()) {
+            for (Vertex<Stop> destination : graph.vertices()) {
+                PathResult expected;
+                try {
+                    expected = dijkstra.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+                } catch (IllegalStateException e) {
+                    // no path (or same stop)
+                    assertThrows(IllegalStateException.class, () -> query.find(origin, destination));
+                    continue;
+                }
+                PathResult result = query.find(origin, destination);
+                List<Vertex<Stop>> path = result.getPath();
+                assertEquals(origin, path.get(0));
+                assertEquals(destination, path.get(path.size() - 1));
+                for (int i = 0; i < path.size() - 1; i++) {
+                    assertTrue(graph.areAdjacent(path.get(i), path.get(i + 1)));
+                }
+                assertEquals(path.size() - 1, result.getTransportList().size());
+                PathCriteria criteria = costStrategy.getPathCriteria();
+                assertEquals(totalCost(expected, criteria), totalCost(result, criteria), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Check that a cost matrix has the same costs as the single source Dijkstra
+     * @param graph TransportMap the transport map
+     * @param dijkstra PathStrategy the reference strategy
+     * @param transportList EnumSet<TransportType> the transport types
+     * @param vertices List<Vertex<Stop>> the stops of the rows and columns
+     * @param matrix double[][] the cost matrix to check
+     */
+    static void assertSameAsDijkstra(TransportMap graph, PathStrategy dijkstra, EnumSet<TransportType> transportList, List<Vertex<Stop>> vertices, double[][] matrix) {
+        assertEquals(vertices.size(), matrix.length);
+        for (int i = 0; i < vertices.size(); i++) {
+            assertEquals(vertices.size(), matrix[i].length);
+            for (int j = 0; j < vertices.size(); j++) {
+                double expected = i == j ? 0.0 : lessCost(graph, dijkstra, transportList, vertices.get(i), vertices.get(j));
+                assertEquals(expected, matrix[i][j], 1e-9);
+            }
+        }
+    }
+}
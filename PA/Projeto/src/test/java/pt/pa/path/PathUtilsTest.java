@@ -3,15 +3,14 @@ package pt.pa.path;
 import com.brunomnsilva.smartgraph.graph.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import pt.pa.transportmap.path.PathUtils;
+import pt.pa.transportmap.path.*;
 import pt.pa.transportmap.path.cost.CostStrategy;
 import pt.pa.transportmap.path.cost.DistanceCostStrategy;
 import pt.pa.transportmap.path.cost.DurationCostStrategy;
 import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
 import pt.pa.transportmap.*;
 
-import java.util.EnumSet;
-import java.util.Map;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -97,6 +96,35 @@ class PathUtilsTest {
         assertEquals(-1.45, entry.getValue());
     }
 
+    @Test
+    void getPathResult() {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        Vertex<Stop> setubal = graph.getVertex("SET014");
+        Vertex<Stop> palmela = graph.getVertex("PAL018");
+        Edge<Route, Stop> edge = graph.getEdge(setubal, palmela);
+        int[] stops = { snapshot.id(setubal), snapshot.id(palmela) };
+        int[] edges = { snapshot.edgeId(edge) };
+
+        // the path criteria picks the transport type, the other totals are the costs of that transport type
+        PathResult result = PathUtils.getPathResult(snapshot, null, new DurationCostStrategy(), RoutingSnapshot.ALL_TRANSPORTS, stops, edges);
+        RouteInfo train = edge.element().getTransportInfo(TransportType.TRAIN);
+        assertEquals(List.of(setubal, palmela), result.getPath());
+        assertEquals(List.of(TransportType.TRAIN), result.getTransportList());
+        assertEquals(train.getDuration(), result.getTotalDuration());
+        assertEquals(train.getDistance(), result.getTotalDistance());
+        assertEquals(train.getSustainability(), result.getTotalSustainability());
+        assertEquals(train.getDistance(), result.getPathInfo().get(0).getDistance());
+
+        result = PathUtils.getPathResult(snapshot, null, new SustainabilityCostStrategy(), RoutingSnapshot.ALL_TRANSPORTS, stops, edges);
+        RouteInfo bicycle = edge.element().getTransportInfo(TransportType.BICYCLE);
+        assertEquals(List.of(TransportType.BICYCLE), result.getTransportList());
+        assertEquals(bicycle.getSustainability(), result.getTotalSustainability());
+        assertEquals(bicycle.getDuration(), result.getTotalDuration());
+
+        // no edges, no path
+        assertThrows(IllegalStateException.class, () -> PathUtils.getPathResult(snapshot, null, new DistanceCostStrategy(), RoutingSnapshot.ALL_TRANSPORTS, new int[]{ stops[0] }, new int[0]));
+    }
+
     @Test
     void setOtherCosts() {
         CostStrategy costStrategy = new DistanceCostStrategy();
@@ -221,12 +249,82 @@ class PathUtilsTest {
         //public static void validateLessCostPathBetweenTwoVerticesPersonalizedParameters(EnumSet<TransportType> transportList, Vertex<Stop> origin, Vertex<Stop> destination, Vertex<Stop>[] intermediaryVertices) throws IllegalArgumentException, InvalidVertexException {
     }
 
+    @Test
+    void findLessCostPathPersonalized() {
+        EnumSet<TransportType> transportList = EnumSet.allOf(TransportType.class);
+        // a walk of adjacent stops, origin, three intermediary stops and destination
+        List<Vertex<Stop>> stops = new ArrayList<>(List.of(graph.getVertex("SET014")));
+        while (stops.size() < 5) {
+            Vertex<Stop> last = stops.get(stops.size() - 1);
+            Vertex<Stop> next = null;
+            for (Edge<Route, Stop> edge : graph.incidentEdges(last)) {
+                next = graph.opposite(last, edge);
+                if (!stops.contains(next)) { break; } // prefer a new stop
+            }
+            stops.add(next);
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Vertex<Stop>[] intermediaryVertices = stops.subList(1, stops.size() - 1).toArray(new Vertex[0]);
+
+        for (CostStrategy costStrategy : List.of(new DistanceCostStrategy(), new DurationCostStrategy())) {
+            for (PathStrategy strategy : List.of(new DijkstraStrategy(costStrategy), new BellmanStrategy(costStrategy), new DFSStrategy(costStrategy), new DijkstraNegativeFixStrategy(costStrategy))) {
+                PathResult result = strategy.findLessCostPathBetweenTwoVerticesPersonalized(graph, transportList, stops.get(0), stops.get(stops.size() - 1), intermediaryVertices);
+                double distance = 0.0;
+                double duration = 0.0;
+                double sustainability = 0.0;
+                int pathSize = 1;
+                for (int i = 0; i < stops.size() - 1; i++) {
+                    PathResult leg = strategy.findLessCostPathBetweenTwoVertices(graph, transportList, stops.get(i), stops.get(i + 1));
+                    distance += leg.getTotalDistance();
+                    duration += leg.getTotalDuration();
+                    sustainability += leg.getTotalSustainability();
+                    pathSize += leg.getPath().size() - 1;
+                }
+                // the totals are the sums of every leg, not only the last one
+                assertEquals(distance, result.getTotalDistance(), 1e-9);
+                assertEquals(duration, result.getTotalDuration(), 1e-9);
+                assertEquals(sustainability, result.getTotalSustainability(), 1e-9);
+                assertEquals(pathSize, result.getPath().size());
+                assertEquals(pathSize - 1, result.getTransportList().size());
+                assertEquals(stops.get(0), result.getPath().get(0));
+                assertEquals(stops.get(stops.size() - 1), result.getPath().get(pathSize - 1));
+            }
+        }
+    }
+
     @Test
     void bfs() {
     }
 
     @Test
     void bfsLimited() {
+        for (Vertex<Stop> origin : graph.vertices()) {
+            // number of routes from the origin to each stop, by levels
+            Map<Vertex<Stop>, Integer> routes = new HashMap<>(Map.of(origin, 0));
+            Deque<Vertex<Stop>> queue = new ArrayDeque<>(List.of(origin));
+            while (!queue.isEmpty()) {
+                Vertex<Stop> v = queue.remove();
+                for (Edge<Route, Stop> edge : graph.incidentEdges(v)) {
+                    Vertex<Stop> w = graph.opposite(v, edge);
+                    if (!routes.containsKey(w)) {
+                        routes.put(w, routes.get(v) + 1);
+                        queue.add(w);
+                    }
+                }
+            }
+            for (int maxRoutes = 0; maxRoutes <= 4; maxRoutes++) {
+                Set<Vertex<Stop>> expected = new HashSet<>();
+                for (Map.Entry<Vertex<Stop>, Integer> entry : routes.entrySet()) {
+                    if (entry.getValue() > 0 && entry.getValue() <= maxRoutes) {
+                        expected.add(entry.getKey());
+                    }
+                }
+                Collection<Vertex<Stop>> result = PathUtils.bfsLimited(graph, origin, maxRoutes);
+                assertEquals(expected.size(), result.size());
+                assertEquals(expected, new HashSet<>(result));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> PathUtils.bfsLimited(graph, null, 1));
     }
 
     @Test
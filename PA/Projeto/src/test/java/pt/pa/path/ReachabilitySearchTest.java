@@ -0,0 +1,73 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilitySearchTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+    List<Vertex<Stop>> vertices;
+
+    @BeforeEach
+    void setUp() {
+        graph = new TransportMap();
+        graph.update();
+        transportList = EnumSet.allOf(TransportType.class);
+        vertices = new ArrayList<>(graph.vertices());
+    }
+
+    @Test
+    void sameAsDijkstra() {
+        ReachabilitySearch search = new ReachabilitySearch();
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            PathCriteria criteria = dijkstra.getCostStrategy().getPathCriteria();
+            for (EnumSet<TransportType> transports : List.of(transportList, EnumSet.of(TransportType.TRAIN, TransportType.BUS))) {
+                for (Vertex<Stop> origin : vertices) {
+                    // less cost to every other stop
+                    Map<Vertex<Stop>, Double> costs = new HashMap<>();
+                    for (Vertex<Stop> destination : vertices) {
+                        if (origin.equals(destination)) { continue; }
+                        try {
+                            PathResult result = dijkstra.findLessCostPathBetweenTwoVertices(graph, transports, origin, destination);
+                            costs.put(destination, criteria == PathCriteria.DISTANCE ? result.getTotalDistance() : result.getTotalDuration());
+                        } catch (IllegalStateException e) {
+                            // not reachable
+                        }
+                    }
+                    for (double budget : List.of(0.0, 10.0, 30.0, 60.0, Double.POSITIVE_INFINITY)) {
+                        Map<Vertex<Stop>, Double> reachable = search.findReachableStops(graph, criteria, transports, origin, budget);
+                        long expected = costs.values().stream().filter(cost -> cost <= budget).count();
+                        assertEquals(expected, reachable.size());
+                        double previous = 0.0;
+                        for (Map.Entry<Vertex<Stop>, Double> entry : reachable.entrySet()) {
+                            assertEquals(costs.get(entry.getKey()), entry.getValue(), 1e-9);
+                            assertTrue(entry.getValue() >= previous); // by increasing cost
+                            previous = entry.getValue();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void parametersAreValidated() {
+        ReachabilitySearch search = new ReachabilitySearch();
+        Vertex<Stop> origin = vertices.get(0);
+        assertTrue(search.findReachableStops(graph, PathCriteria.DURATION, transportList, origin, -1.0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> search.findReachableStops(graph, PathCriteria.DURATION, transportList, origin, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> search.findReachableStops(graph, null, transportList, origin, 10.0));
+        assertThrows(IllegalArgumentException.class, () -> search.findReachableStops(graph, PathCriteria.DURATION, EnumSet.noneOf(TransportType.class), origin, 10.0));
+        // walking and cycling have negative sustainability costs
+        assertThrows(IllegalArgumentException.class, () -> search.findReachableStops(graph, PathCriteria.SUSTAINABILITY, transportList, origin, 10.0));
+    }
+}
@@ -0,0 +1,76 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.PathCriteria;
+import pt.pa.transportmap.path.RoutingSnapshot;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingSnapshotTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new TransportMap();
+        graph.update();
+    }
+
+    @Test
+    void snapshotMatchesGraph() {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        assertEquals(graph.getNumberOfStops(), snapshot.numStops());
+        assertEquals(graph.getNumberOfRoutes(), snapshot.numEdges());
+
+        for (Vertex<Stop> vertex : graph.vertices()) {
+            int id = snapshot.id(vertex);
+            assertSame(vertex, snapshot.vertex(id));
+            assertEquals(graph.incidentEdges(vertex).size(), snapshot.arcEnd(id) - snapshot.arcStart(id));
+            for (int arc = snapshot.arcStart(id); arc < snapshot.arcEnd(id); arc++) {
+                Edge<Route, Stop> edge = snapshot.edge(snapshot.arcEdge(arc));
+                assertSame(graph.opposite(vertex, edge), snapshot.vertex(snapshot.arcTarget(arc)));
+            }
+        }
+    }
+
+    @Test
+    void costs() {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        Edge<Route, Stop> edge = graph.getEdge(graph.getVertex("SET014"), graph.getVertex("PAL018"));
+        int id = -1;
+        for (int e = 0; e < snapshot.numEdges(); e++) {
+            if (snapshot.edge(e) == edge) { id = e; }
+        }
+        assertNotEquals(-1, id);
+
+        // set-pal train has distance 5.19 and duration 4 min
+        assertTrue(snapshot.hasTransport(id, TransportType.TRAIN));
+        assertEquals(5.19, snapshot.cost(id, TransportType.TRAIN, PathCriteria.DISTANCE));
+        assertEquals(4.0, snapshot.cost(id, TransportType.TRAIN, PathCriteria.DURATION));
+        assertFalse(snapshot.hasTransport(id, TransportType.BOAT));
+        assertTrue(Double.isNaN(snapshot.cost(id, TransportType.BOAT, PathCriteria.DISTANCE)));
+    }
+
+    @Test
+    void rebuildOnChange() {
+        RoutingSnapshot snapshot = graph.getRoutingSnapshot();
+        assertSame(snapshot, graph.getRoutingSnapshot());
+
+        graph.insertVertex(new Stop("TEST1", "Test1", 0, 0));
+        RoutingSnapshot rebuilt = graph.getRoutingSnapshot();
+        assertNotSame(snapshot, rebuilt);
+        assertEquals(snapshot.numStops() + 1, rebuilt.numStops());
+        assertEquals(-1, snapshot.id(graph.getVertex("TEST1")));
+    }
+
+    @Test
+    void transportMask() {
+        assertEquals(0, RoutingSnapshot.transportMask(EnumSet.noneOf(TransportType.class)));
+        assertEquals(RoutingSnapshot.ALL_TRANSPORTS, RoutingSnapshot.transportMask(EnumSet.allOf(TransportType.class)));
+        assertEquals(1 << TransportType.BUS.ordinal(), RoutingSnapshot.transportMask(EnumSet.of(TransportType.BUS)));
+    }
+}
@@ -0,0 +1,54 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SPFAStrategyTest {
+    TransportMap graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+    }
+
+    @Test
+    void distance() {
+        PathTestHelper.assertSameAsDijkstra(graph, new SPFAStrategy(new DistanceCostStrategy()), EnumSet.allOf(TransportType.class));
+    }
+
+    @Test
+    void sustainabilityWithoutNegativeCosts() {
+        PathTestHelper.assertSameAsDijkstra(graph, new SPFAStrategy(new SustainabilityCostStrategy()), EnumSet.of(TransportType.TRAIN, TransportType.BUS, TransportType.BOAT));
+    }
+
+    @Test
+    void negativeCycle() {
+        SPFAStrategy spfa = new SPFAStrategy(new SustainabilityCostStrategy());
+        NegativeCycleException exception = assertThrows(NegativeCycleException.class, () -> spfa.findLessCostPathBetweenTwoVertices(graph,
+                EnumSet.allOf(TransportType.class), graph.getVertex("SET014"), graph.getVertex("CAIS019")));
+        assertTrue(exception.getCost() < 0);
+
+        // each route links a stop of the cycle to the next one
+        List<Vertex<Stop>> cycle = exception.getCycle();
+        List<Edge<Route, Stop>> cycleEdges = exception.getCycleEdges();
+        assertFalse(cycle.isEmpty());
+        assertEquals(cycle.size(), cycleEdges.size());
+        for (int i = 0; i < cycle.size(); i++) {
+            assertSame(cycleEdges.get(i), graph.getEdge(cycle.get(i), cycle.get((i + 1) % cycle.size())));
+        }
+
+        assertTrue(spfa.findNegativeCycle(graph, EnumSet.of(TransportType.WALK)).isPresent());
+        assertTrue(spfa.findNegativeCycle(graph, EnumSet.of(TransportType.TRAIN, TransportType.BUS)).isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchWorkspaceTest {
+
+    @Test
+    void resetForgetsValues() {
+        SearchWorkspace workspace = SearchWorkspace.acquire(4);
+        try {
+            workspace.setOrigin(0, 0.0);
+            workspace.update(2, 5.0, 7, TransportType.BUS.ordinal());
+            workspace.setPathLength(2, 3);
+            workspace.settle(2);
+            workspace.heap().insert(3, 1.0);
+            assertEquals(5.0, workspace.cost(2));
+            assertEquals(7, workspace.predecessorEdge(2));
+            assertEquals(TransportType.BUS.ordinal(), workspace.transportType(2));
+            assertEquals(3, workspace.pathLength(2));
+            assertEquals(-1, workspace.predecessorEdge(0));
+            assertTrue(workspace.isSettled(2));
+
+            workspace.reset();
+            assertFalse(workspace.isReached(0));
+            assertEquals(Double.POSITIVE_INFINITY, workspace.cost(2));
+            assertEquals(-1, workspace.predecessorEdge(2));
+            assertEquals(-1, workspace.transportType(2));
+            assertEquals(0, workspace.pathLength(2));
+            assertFalse(workspace.isSettled(2));
+            assertTrue(workspace.heap().isEmpty());
+        } finally {
+            workspace.release();
+        }
+    }
+
+    @Test
+    void acquireReusesThreadWorkspace() {
+        SearchWorkspace workspace = SearchWorkspace.acquire(4);
+        workspace.update(1, 3.0, 2, 0);
+        // a search inside another search gets its own workspace
+        SearchWorkspace nested = SearchWorkspace.acquire(4);
+        assertNotSame(workspace, nested);
+        nested.release();
+        assertEquals(3.0, workspace.cost(1));
+        // the second thread workspace (the backward search of a bidirectional search) is reused too
+        SearchWorkspace second = SearchWorkspace.acquire(4);
+        assertSame(nested, second);
+        second.release();
+        workspace.release();
+
+        SearchWorkspace reused = SearchWorkspace.acquire(2);
+        assertSame(workspace, reused);
+        assertFalse(reused.isReached(1));
+        reused.release();
+        // a larger search grows the thread workspace
+        SearchWorkspace larger = SearchWorkspace.acquire(100_000);
+        assertNotSame(workspace, larger);
+        larger.release();
+    }
+
+    @Test
+    void parallelQueriesShareOneStrategy() throws Exception {
+        TransportMap graph = new TransportMap();
+        graph.update();
+        EnumSet<TransportType> transportList = EnumSet.allOf(TransportType.class);
+        PathStrategy dijkstra = new DijkstraStrategy(new DurationCostStrategy());
+        List<Vertex<Stop>> vertices = new ArrayList<>(graph.vertices());
+
+        // sequential results, null if there is no path
+        Map<List<Vertex<Stop>>, Double> expected = new HashMap<>();
+        for (Vertex<Stop> origin : vertices) {
+            for (Vertex<Stop> destination : vertices) {
+                try {
+                    expected.put(List.of(origin, destination), dijkstra.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getTotalDuration());
+                } catch (IllegalStateException e) {
+                    expected.put(List.of(origin, destination), null);
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Vertex<Stop> origin : vertices) {
+                futures.add(executor.submit(() -> {
+                    for (Vertex<Stop> destination : vertices) {
+                        Double duration;
+                        try {
+                            duration = dijkstra.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getTotalDuration();
+                        } catch (IllegalStateException e) {
+                            duration = null;
+                        }
+                        if (!Objects.equals(expected.get(List.of(origin, destination)), duration)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Edge;
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+import pt.pa.transportmap.userconfiguration.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShortestPathTreeCacheTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+    List<Vertex<Stop>> vertices;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+        transportList = EnumSet.allOf(TransportType.class);
+        vertices = new ArrayList<>(graph.vertices());
+    }
+
+    @Test
+    void sameAsDijkstra() {
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            PathTestHelper.assertSameAsDijkstra(graph, new CachedPathStrategy(dijkstra, graph.getShortestPathTreeCache()), transportList);
+        }
+        assertEquals(Math.min(ShortestPathTreeCache.DEFAULT_CAPACITY, 2 * vertices.size()), graph.getShortestPathTreeCache().size());
+    }
+
+    @Test
+    void treeOnlyForRepeatedOrigins() {
+        ShortestPathTreeCache cache = new ShortestPathTreeCache();
+        // the first query is a point-to-point search of the decorated strategy
+        PathStrategy cached = new CachedPathStrategy(new AStarStrategy(new DistanceCostStrategy()), cache);
+        cached.findLessCostPathBetweenTwoVertices(graph, transportList, graph.getVertex("SET014"), graph.getVertex("PAL018"));
+        assertEquals(0, cache.size());
+        cached.findLessCostPathBetweenTwoVertices(graph, transportList, graph.getVertex("SET014"), graph.getVertex("MEM002"));
+        assertEquals(1, cache.size());
+
+        assertNull(cache.getIfRepeated(graph, PathCriteria.DURATION, transportList, vertices.get(0)));
+        ShortestPathTree tree = cache.getIfRepeated(graph, PathCriteria.DURATION, transportList, vertices.get(0));
+        assertNotNull(tree);
+        assertSame(tree, cache.getIfRepeated(graph, PathCriteria.DURATION, transportList, vertices.get(0)));
+        assertSame(tree, cache.get(graph, PathCriteria.DURATION, transportList, vertices.get(0)));
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvicted() {
+        ShortestPathTreeCache cache = new ShortestPathTreeCache(2);
+        ShortestPathTree first = cache.get(graph, PathCriteria.DISTANCE, transportList, vertices.get(0));
+        ShortestPathTree second = cache.get(graph, PathCriteria.DISTANCE, transportList, vertices.get(1));
+        assertSame(first, cache.get(graph, PathCriteria.DISTANCE, transportList, vertices.get(0)));
+        cache.get(graph, PathCriteria.DISTANCE, transportList, vertices.get(2));
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(graph, PathCriteria.DISTANCE, transportList, vertices.get(0)));
+        assertNotSame(second, cache.get(graph, PathCriteria.DISTANCE, transportList, vertices.get(1)));
+        // the criteria and the transports are part of the key
+        assertNotSame(first, cache.get(graph, PathCriteria.DURATION, transportList, vertices.get(0)));
+        assertNotSame(first, cache.get(graph, PathCriteria.DISTANCE, EnumSet.of(TransportType.TRAIN), vertices.get(0)));
+        assertThrows(IllegalArgumentException.class, () -> new ShortestPathTreeCache(0));
+    }
+
+    @Test
+    void configurationCommandsInvalidateTrees() {
+        graph.loadUserConfiguration();
+        graph.getUserConfiguration().resetDisabledRoutes();
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("PAL018");
+        Edge<Route, Stop> edge = graph.getEdge(origin, destination);
+        ShortestPathTreeCache cache = graph.getShortestPathTreeCache();
+        PathStrategy cached = new CachedPathStrategy(new DijkstraStrategy(new DistanceCostStrategy()), cache);
+        UserConfigurationManager manager = new UserConfigurationManager();
+        try {
+            assertEquals(2, cached.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getPath().size());
+            ShortestPathTree tree = cache.get(graph, PathCriteria.DISTANCE, transportList, origin);
+
+            manager.execute(new DisableRouteCommand(graph.getUserConfiguration(), edge));
+            assertNotSame(tree, cache.get(graph, PathCriteria.DISTANCE, transportList, origin));
+            assertTrue(cached.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getPath().size() > 2);
+
+            manager.undo(RouteCommand.class);
+            assertEquals(2, cached.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getPath().size());
+        } finally {
+            graph.getUserConfiguration().resetDisabledRoutes();
+        }
+    }
+
+    @Test
+    void routeCommandsRepairTrees() {
+        graph.loadUserConfiguration();
+        UserConfiguration userConfiguration = graph.getUserConfiguration();
+        userConfiguration.resetDisabledRoutes();
+        double bicycleDurationScale = userConfiguration.getBicycleDurationScale();
+        ShortestPathTreeCache cache = graph.getShortestPathTreeCache();
+        UserConfigurationManager manager = new UserConfigurationManager();
+        List<Edge<Route, Stop>> edges = new ArrayList<>(graph.edges());
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < edges.size(); i += 5) {
+            commands.add(new DisableRouteCommand(userConfiguration, edges.get(i)));
+        }
+        Edge<Route, Stop> edge = edges.get(1);
+        commands.add(new DisableRouteTransportTypeCommand(userConfiguration, edge, edge.element().getTransportList().iterator().next()));
+        try {
+            assertRepairedSameAsDijkstra(cache);
+            for (Command command : commands) {
+                manager.execute(command);
+                assertRepairedSameAsDijkstra(cache);
+            }
+            for (int i = 1; i < commands.size(); i++) {
+                manager.undo(RouteCommand.class);
+                assertRepairedSameAsDijkstra(cache);
+            }
+            manager.undo(RouteTransportTypeCommand.class);
+            assertRepairedSameAsDijkstra(cache);
+
+            // a change of the whole configuration drops the trees
+            manager.execute(new ChangeBicycleDurationScaleCommand(userConfiguration, 2.0));
+            cache.get(graph, PathCriteria.DURATION, transportList, vertices.get(0));
+            assertEquals(1, cache.size());
+        } finally {
+            userConfiguration.resetDisabledRoutes();
+            userConfiguration.setBicycleDurationScale(bicycleDurationScale);
+        }
+    }
+
+    /**
+     * Check that the cached trees are repaired, not dropped, and give the same costs as a new Dijkstra search
+     * @param cache ShortestPathTreeCache the cache of the graph
+     */
+    private void assertRepairedSameAsDijkstra(ShortestPathTreeCache cache) {
+        for (PathCriteria criteria : List.of(PathCriteria.DISTANCE, PathCriteria.DURATION)) {
+            for (Vertex<Stop> origin : vertices) {
+                cache.get(graph, criteria, transportList, origin);
+            }
+        }
+        int size = cache.size();
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            PathCriteria criteria = dijkstra.getCostStrategy().getPathCriteria();
+            for (Vertex<Stop> origin : vertices) {
+                ShortestPathTree tree = cache.get(graph, criteria, transportList, origin);
+                assertEquals(size, cache.size());
+                for (Vertex<Stop> destination : vertices) {
+                    if (origin.equals(destination)) { continue; }
+                    assertEquals(PathTestHelper.lessCost(graph, dijkstra, transportList, origin, destination), tree.cost(tree.getSnapshot().id(destination)), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void negativeCostsUseDecoratedStrategy() {
+        Vertex<Stop> origin = graph.getVertex("SET014");
+        Vertex<Stop> destination = graph.getVertex("PAL018");
+        assertNull(graph.getShortestPathTreeCache().get(graph, PathCriteria.SUSTAINABILITY, transportList, origin));
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        PathStrategy cached = new CachedPathStrategy(loopless, graph.getShortestPathTreeCache());
+        assertEquals(loopless.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getTotalSustainability(),
+                cached.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination).getTotalSustainability(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new CachedPathStrategy(null, graph.getShortestPathTreeCache()));
+    }
+}
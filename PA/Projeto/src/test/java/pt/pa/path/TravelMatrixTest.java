@@ -0,0 +1,76 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TravelMatrixTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+    List<Vertex<Stop>> vertices;
+
+    @BeforeEach
+    void setUp() {
+        graph = PathTestHelper.loadTransportMap();
+        transportList = EnumSet.allOf(TransportType.class);
+        vertices = new ArrayList<>(graph.vertices());
+    }
+
+    @Test
+    void sameAsDijkstra() {
+        TravelMatrix travelMatrix = new TravelMatrix();
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            PathCriteria criteria = dijkstra.getCostStrategy().getPathCriteria();
+            PathTestHelper.assertSameAsDijkstra(graph, dijkstra, transportList, vertices, travelMatrix.computeCosts(graph, criteria, transportList, vertices, vertices));
+            PathTestHelper.assertSameAsDijkstra(graph, dijkstra, transportList, vertices, dijkstra.findLessCostMatrix(graph, transportList, vertices, vertices));
+        }
+        EnumSet<TransportType> bus = EnumSet.of(TransportType.BUS);
+        PathStrategy dijkstra = new DijkstraStrategy(new SustainabilityCostStrategy());
+        PathTestHelper.assertSameAsDijkstra(graph, dijkstra, bus, vertices, travelMatrix.computeCosts(graph, PathCriteria.SUSTAINABILITY, bus, vertices, vertices));
+    }
+
+    @Test
+    void contractionHierarchyBuckets() {
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            PathStrategy hierarchy = new ContractionHierarchyStrategy(dijkstra.getCostStrategy());
+            PathTestHelper.assertSameAsDijkstra(graph, dijkstra, transportList, vertices, hierarchy.findLessCostMatrix(graph, transportList, vertices, vertices));
+        }
+        EnumSet<TransportType> train = EnumSet.of(TransportType.TRAIN);
+        PathTestHelper.assertSameAsDijkstra(graph, new DijkstraStrategy(new DurationCostStrategy()), train, vertices,
+                new ContractionHierarchyStrategy(new DurationCostStrategy()).findLessCostMatrix(graph, train, vertices, vertices));
+    }
+
+    @Test
+    void negativeCostsSameAsLoopless() {
+        // the walk and bicycle sustainability costs are negative, the matrix has the costs of the paths without repeated stops
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        double[][] matrix = new TravelMatrix().computeCosts(graph, PathCriteria.SUSTAINABILITY, transportList, vertices, vertices);
+        double[][] hierarchyMatrix = new ContractionHierarchyStrategy(new SustainabilityCostStrategy()).findLessCostMatrix(graph, transportList, vertices, vertices);
+        for (int i = 0; i < vertices.size(); i++) {
+            for (int j = 0; j < vertices.size(); j++) {
+                double expected = i == j ? 0.0 : PathTestHelper.lessCost(graph, loopless, transportList, vertices.get(i), vertices.get(j));
+                assertEquals(expected, matrix[i][j], 1e-9);
+                assertEquals(expected, hierarchyMatrix[i][j], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void invalidParameters() {
+        TravelMatrix travelMatrix = new TravelMatrix();
+        assertThrows(IllegalArgumentException.class, () -> travelMatrix.computeCosts(graph, PathCriteria.DISTANCE, EnumSet.noneOf(TransportType.class), vertices, vertices));
+        assertThrows(IllegalArgumentException.class, () -> travelMatrix.computeCosts(graph, PathCriteria.DISTANCE, transportList, null, vertices));
+        assertThrows(IllegalArgumentException.class, () -> travelMatrix.computeCosts(graph, PathCriteria.DISTANCE, transportList, vertices, Collections.singletonList(null)));
+        assertThrows(IllegalArgumentException.class, () -> new TravelMatrix(null));
+        assertEquals(0, travelMatrix.computeCosts(graph, PathCriteria.DISTANCE, transportList, List.of(), vertices).length);
+    }
+}
@@ -0,0 +1,151 @@
+package pt.pa.path;
+
+import com.brunomnsilva.smartgraph.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pt.pa.transportmap.path.*;
+import pt.pa.transportmap.path.cost.DistanceCostStrategy;
+import pt.pa.transportmap.path.cost.DurationCostStrategy;
+import pt.pa.transportmap.path.cost.SustainabilityCostStrategy;
+import pt.pa.transportmap.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaypointOptimizerTest {
+    TransportMap graph;
+    EnumSet<TransportType> transportList;
+    List<Vertex<Stop>> vertices;
+
+    @BeforeEach
+    void setUp() {
+        graph = new TransportMap();
+        graph.update();
+        transportList = EnumSet.allOf(TransportType.class);
+        // stops with routes, the isolated stops can't be visited
+        vertices = new ArrayList<>();
+        for (Vertex<Stop> vertex : graph.vertices()) {
+            if (!graph.incidentEdges(vertex).isEmpty()) {
+                vertices.add(vertex);
+            }
+        }
+    }
+
+    /**
+     * Less cost of visiting the waypoints in any order, trying every order
+     */
+    private double bruteForceCost(double[][] costs, int last, boolean[] visited, int remaining) {
+        int destination = costs.length - 1;
+        if (remaining == 0) { return costs[last][destination]; }
+        double best = Double.POSITIVE_INFINITY;
+        for (int next = 1; next < destination; next++) {
+            if (visited[next]) { continue; }
+            visited[next] = true;
+            best = Math.min(best, costs[last][next] + bruteForceCost(costs, next, visited, remaining - 1));
+            visited[next] = false;
+        }
+        return best;
+    }
+
+    /**
+     * Check the path goes from the origin to the destination through every waypoint
+     */
+    private void assertVisitsAll(PathResult result, Vertex<Stop> origin, Vertex<Stop> destination, List<Vertex<Stop>> waypoints) {
+        List<Vertex<Stop>> path = result.getPath();
+        assertEquals(origin, path.get(0));
+        assertEquals(destination, path.get(path.size() - 1));
+        assertTrue(path.containsAll(waypoints));
+        assertEquals(path.size() - 1, result.getTransportList().size());
+    }
+
+    @Test
+    void exactOrderIsBest() {
+        for (PathStrategy dijkstra : List.of(new DijkstraStrategy(new DistanceCostStrategy()), new DijkstraStrategy(new DurationCostStrategy()))) {
+            Vertex<Stop> origin = vertices.get(0);
+            Vertex<Stop> destination = vertices.get(1);
+            List<Vertex<Stop>> waypoints = vertices.subList(2, 8);
+            List<Vertex<Stop>> stops = new ArrayList<>();
+            stops.add(origin);
+            stops.addAll(waypoints);
+            stops.add(destination);
+            double[][] costs = dijkstra.findLessCostMatrix(graph, transportList, stops, stops);
+            double expected = bruteForceCost(costs, 0, new boolean[stops.size()], waypoints.size());
+
+            PathResult result = dijkstra.findLessCostPathVisitingAll(graph, transportList, origin, destination, waypoints);
+            assertVisitsAll(result, origin, destination, waypoints);
+            double cost = dijkstra.getCostStrategy().getPathCriteria() == PathCriteria.DISTANCE ? result.getTotalDistance() : result.getTotalDuration();
+            assertEquals(expected, cost, 1e-9);
+        }
+    }
+
+    @Test
+    void localSearchVisitsAll() {
+        PathStrategy dijkstra = new DijkstraStrategy(new DistanceCostStrategy());
+        Vertex<Stop> origin = vertices.get(0);
+        Vertex<Stop> destination = vertices.get(1);
+        List<Vertex<Stop>> waypoints = vertices.subList(2, 12);
+        PathResult exact = new WaypointOptimizer(dijkstra).findLessCostPathVisitingAll(graph, transportList, origin, destination, waypoints);
+        PathResult heuristic = new WaypointOptimizer(dijkstra, 0).findLessCostPathVisitingAll(graph, transportList, origin, destination, waypoints);
+        assertVisitsAll(exact, origin, destination, waypoints);
+        assertVisitsAll(heuristic, origin, destination, waypoints);
+        assertTrue(heuristic.getTotalDistance() >= exact.getTotalDistance() - 1e-9);
+
+        // the cached strategy gives the same path
+        PathStrategy cached = new CachedPathStrategy(dijkstra, graph.getShortestPathTreeCache());
+        assertEquals(exact.getTotalDistance(), cached.findLessCostPathVisitingAll(graph, transportList, origin, destination, waypoints).getTotalDistance(), 1e-9);
+    }
+
+    @Test
+    void repeatedWaypointsAndBounds() {
+        PathStrategy dijkstra = new DijkstraStrategy(new DistanceCostStrategy());
+        Vertex<Stop> origin = vertices.get(0);
+        Vertex<Stop> destination = vertices.get(1);
+        WaypointOptimizer optimizer = new WaypointOptimizer(dijkstra);
+        PathResult direct = dijkstra.findLessCostPathBetweenTwoVertices(graph, transportList, origin, destination);
+        assertEquals(direct.getTotalDistance(), optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, List.of()).getTotalDistance(), 1e-9);
+        assertEquals(direct.getTotalDistance(), optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, List.of(origin, destination, origin)).getTotalDistance(), 1e-9);
+
+        Vertex<Stop> waypoint = vertices.get(2);
+        assertEquals(optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, List.of(waypoint)).getTotalDistance(),
+                optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, List.of(waypoint, waypoint, origin)).getTotalDistance(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, null));
+        assertThrows(IllegalArgumentException.class, () -> optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, Arrays.asList(waypoint, null)));
+        assertThrows(IllegalArgumentException.class, () -> new WaypointOptimizer(null));
+        Vertex<Stop> isolated = graph.vertices().stream().filter(vertex -> graph.incidentEdges(vertex).isEmpty()).findFirst().orElseThrow();
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> optimizer.findLessCostPathVisitingAll(graph, transportList, origin, destination, List.of(waypoint, isolated)));
+        assertEquals("A waypoint or the destination can't be reached.", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new WaypointOptimizer(dijkstra, WaypointOptimizer.MAX_EXACT_WAYPOINTS + 1));
+    }
+
+    @Test
+    void negativeCostsOrderTheLegs() {
+        // the walk and bicycle sustainability costs are negative, the order is optimized on the legs of the strategy
+        PathStrategy loopless = new LooplessStrategy(new SustainabilityCostStrategy());
+        Vertex<Stop> origin = vertices.get(0);
+        Vertex<Stop> destination = vertices.get(1);
+        List<Vertex<Stop>> waypoints = vertices.subList(2, 6);
+        List<Vertex<Stop>> stops = new ArrayList<>();
+        stops.add(origin);
+        stops.addAll(waypoints);
+        stops.add(destination);
+        double[][] costs = new double[stops.size()][stops.size()];
+        for (int i = 0; i < stops.size(); i++) {
+            for (int j = 0; j < stops.size(); j++) {
+                costs[i][j] = i == j ? 0.0 : PathTestHelper.lessCost(graph, loopless, transportList, stops.get(i), stops.get(j));
+            }
+        }
+        double expected = bruteForceCost(costs, 0, new boolean[stops.size()], waypoints.size());
+
+        PathResult result = loopless.findLessCostPathVisitingAll(graph, transportList, origin, destination, waypoints);
+        assertVisitsAll(result, origin, destination, waypoints);
+        assertEquals(expected, result.getTotalSustainability(), 1e-9);
+
+        // the Bellman-Ford legs throw on the negative cycles, the cause is kept
+        PathStrategy bellman = new BellmanStrategy(new SustainabilityCostStrategy());
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> bellman.findLessCostPathVisitingAll(graph, transportList, origin, destination, waypoints));
+        assertEquals("A waypoint or the destination can't be reached.", exception.getMessage());
+        assertNotNull(exception.getCause());
+    }
+}
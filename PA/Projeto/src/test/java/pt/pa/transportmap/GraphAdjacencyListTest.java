@@ -0,0 +1,143 @@
+package pt.pa.transportmap;
+
+import com.brunomnsilva.smartgraph.graph.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GraphAdjacencyList class.
+ */
+class GraphAdjacencyListTest {
+    /** The graph (fixture) */
+    Graph<Stop, Route> graph;
+    /** Stops in the fixture */
+    Stop stop1, stop2, stop3;
+    /** Vertices in the fixture */
+    Vertex<Stop> vertex1, vertex2, vertex3;
+    /** Edges in the fixture */
+    Edge<Route, Stop> edge12, edge23;
+
+    @BeforeEach
+    void setUp() {
+        graph = new GraphAdjacencyList<>();
+        stop1 = new Stop("TEST1", "Test1", 0, 0);
+        stop2 = new Stop("TEST2", "Test2", 0, 0);
+        stop3 = new Stop("TEST3", "Test3", 0, 0);
+        vertex1 = graph.insertVertex(stop1);
+        vertex2 = graph.insertVertex(stop2);
+        vertex3 = graph.insertVertex(stop3);
+        edge12 = graph.insertEdge(stop1, stop2, new Route().addTransport(TransportType.BUS, 1, 2, 3));
+        edge23 = graph.insertEdge(vertex2, vertex3, new Route().addTransport(TransportType.TRAIN, 4, 5, -6));
+    }
+
+    @Test
+    void insertVertex() {
+        assertEquals(3, graph.numVertices());
+        assertThrows(InvalidVertexException.class, () -> graph.insertVertex(new Stop("TEST1", "Other", 1, 1)));
+        assertEquals(3, graph.numVertices());
+    }
+
+    @Test
+    void insertEdge() {
+        assertEquals(2, graph.numEdges());
+        // same element
+        assertThrows(InvalidEdgeException.class, () -> graph.insertEdge(stop1, stop3, edge12.element()));
+        // vertices not in graph
+        assertThrows(InvalidVertexException.class, () -> graph.insertEdge(stop1, new Stop("X", "X", 0, 0), new Route()));
+        assertThrows(InvalidVertexException.class, () -> graph.insertEdge(vertex1, null, new Route()));
+        assertEquals(2, graph.numEdges());
+    }
+
+    @Test
+    void incidentEdges() {
+        Collection<Edge<Route, Stop>> incident = graph.incidentEdges(vertex2);
+        assertEquals(2, incident.size());
+        assertTrue(incident.contains(edge12));
+        assertTrue(incident.contains(edge23));
+        assertEquals(1, graph.incidentEdges(vertex1).size());
+        assertThrows(InvalidVertexException.class, () -> graph.incidentEdges(null));
+    }
+
+    @Test
+    void areAdjacent() {
+        assertTrue(graph.areAdjacent(vertex1, vertex2));
+        assertTrue(graph.areAdjacent(vertex2, vertex1));
+        assertTrue(graph.areAdjacent(vertex3, vertex2));
+        assertFalse(graph.areAdjacent(vertex1, vertex3));
+        assertThrows(InvalidVertexException.class, () -> graph.areAdjacent(vertex1, null));
+    }
+
+    @Test
+    void opposite() {
+        assertEquals(vertex2, graph.opposite(vertex1, edge12));
+        assertEquals(vertex1, graph.opposite(vertex2, edge12));
+        assertNull(graph.opposite(vertex1, edge23));
+        assertThrows(InvalidVertexException.class, () -> graph.opposite(null, edge12));
+        assertThrows(InvalidEdgeException.class, () -> graph.opposite(vertex1, null));
+    }
+
+    @Test
+    void removeVertex() {
+        assertEquals(stop2, graph.removeVertex(vertex2));
+        assertEquals(2, graph.numVertices());
+        assertEquals(0, graph.numEdges());
+        assertTrue(graph.incidentEdges(vertex1).isEmpty());
+        assertTrue(graph.incidentEdges(vertex3).isEmpty());
+        assertThrows(InvalidVertexException.class, () -> graph.removeVertex(vertex2));
+        assertThrows(InvalidEdgeException.class, () -> graph.opposite(vertex1, edge12));
+    }
+
+    @Test
+    void removeEdge() {
+        Route parallel = new Route().addTransport(TransportType.WALK, 1, 20, 0);
+        Edge<Route, Stop> parallelEdge = graph.insertEdge(vertex2, vertex1, parallel);
+
+        graph.removeEdge(edge12);
+        assertTrue(graph.areAdjacent(vertex1, vertex2)); // parallel edge remains
+        graph.removeEdge(parallelEdge);
+        assertFalse(graph.areAdjacent(vertex1, vertex2));
+        assertEquals(1, graph.numEdges());
+        assertThrows(InvalidEdgeException.class, () -> graph.removeEdge(edge12));
+    }
+
+    @Test
+    void replace() {
+        Stop newStop = new Stop("TEST4", "Test4", 0, 0);
+        assertEquals(stop1, graph.replace(vertex1, newStop));
+        assertEquals(newStop, vertex1.element());
+        assertTrue(graph.areAdjacent(vertex1, vertex2));
+        assertThrows(InvalidVertexException.class, () -> graph.replace(vertex2, stop3));
+    }
+
+    @Test
+    void testToString() {
+        Graph<Stop, Route> edgeList = new GraphEdgeList<>();
+        Graph<Stop, Route> adjacencyList = new GraphAdjacencyList<>();
+        assertEquals(edgeList.toString(), adjacencyList.toString());
+        for (Graph<Stop, Route> g : List.of(edgeList, adjacencyList)) {
+            g.insertVertex(stop1);
+            g.insertVertex(stop2);
+            g.insertEdge(stop1, stop2, edge12.element());
+        }
+        assertEquals(edgeList.toString(), adjacencyList.toString());
+    }
+
+    @Test
+    void transportMapBehavesAsEdgeList() {
+        TransportMap adjacencyModel = new TransportMap();
+        adjacencyModel.update();
+        TransportMap edgeListModel = new TransportMap(new GraphEdgeList<>());
+        edgeListModel.update();
+
+        assertEquals(edgeListModel.getNumberOfStops(), adjacencyModel.getNumberOfStops());
+        assertEquals(edgeListModel.getNumberOfRoutes(), adjacencyModel.getNumberOfRoutes());
+        assertEquals(edgeListModel.getNumberOfIsolatedStops(), adjacencyModel.getNumberOfIsolatedStops());
+        assertEquals(edgeListModel.getNumberOfRoutesByTransportType(), adjacencyModel.getNumberOfRoutesByTransportType());
+        assertEquals(edgeListModel.getStopCentrality(), adjacencyModel.getStopCentrality());
+    }
+}
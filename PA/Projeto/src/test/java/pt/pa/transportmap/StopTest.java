@@ -45,6 +45,16 @@ class StopTest {
         assertEquals(2.0, stop.getLongitude());
     }
 
+    @Test
+    void distanceTo() {
+        assertEquals(0.0, stop.distanceTo(stop));
+        // one degree of latitude is about 111.2 km
+        Stop other = new Stop("2", "Stop2", 2.0, 1.0);
+        assertEquals(111.2, stop.distanceTo(other), 0.1);
+        assertEquals(stop.distanceTo(other), other.distanceTo(stop));
+        assertThrows(IllegalArgumentException.class, () -> stop.distanceTo(null));
+    }
+
     @Test
     void testEquals() {
         // same
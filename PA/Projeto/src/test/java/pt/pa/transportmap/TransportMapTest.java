@@ -245,6 +245,44 @@ class TransportMapTest {
         assertEquals(0, list.size());
     }
 
+    @Test
+    void getStopCentralityLimit() {
+        List<Map.Entry<Stop, Integer>> top = model.getStopCentrality(5);
+        assertEquals(5, top.size());
+        assertEquals(model.getStopCentrality().subList(0, 5), top);
+        assertTrue(model.getStopCentrality(0).isEmpty());
+        assertEquals(31, model.getStopCentrality(100).size());
+    }
+
+    @Test
+    void metricsUpdatedOnChange() {
+        Stop stop1 = new Stop("TEST1", "Test1", 0, 0);
+        Stop stop2 = new Stop("TEST2", "Test2", 0, 0);
+        model.insertVertex(stop1);
+        Vertex<Stop> vertex2 = model.insertVertex(stop2);
+        assertEquals(4, model.getNumberOfIsolatedStops());
+        assertEquals(29, model.getNumberOfNotIsolatedStops());
+
+        // connect a new stop to Cais do Sodré, it becomes the most central stop
+        Stop caisDoSodre = model.getVertex(CAIS_DO_SODRE_STOP_CODE).element();
+        model.insertEdge(stop1, caisDoSodre, new Route().addTransport(TransportType.BOAT, 1, 1, 1));
+        model.insertEdge(stop1, stop2, new Route().addTransport(TransportType.WALK, 1, 1, 1));
+        assertEquals(2, model.getNumberOfIsolatedStops());
+        assertEquals(5, model.getNumberOfRoutesByTransportType().get(TransportType.BOAT));
+        assertEquals(16, model.getNumberOfRoutesByTransportType().get(TransportType.WALK));
+        assertEquals(caisDoSodre, model.getStopCentrality(1).get(0).getKey());
+        assertEquals(6, model.getStopCentrality(1).get(0).getValue());
+
+        // remove the new stop, its routes are removed too
+        model.removeVertex(vertex2);
+        assertEquals(2, model.getNumberOfIsolatedStops());
+        assertEquals(15, model.getNumberOfRoutesByTransportType().get(TransportType.WALK));
+        model.removeVertex(model.getVertex(stop1));
+        assertEquals(2, model.getNumberOfIsolatedStops());
+        assertEquals(4, model.getNumberOfRoutesByTransportType().get(TransportType.BOAT));
+        assertEquals(model.getStopCentrality(), new TransportMap(graph).getStopCentrality());
+    }
+
     @Test
     void vertices() {
         List<Vertex<Stop>> list = (List<Vertex<Stop>>) model.vertices();
@@ -322,6 +360,17 @@ class TransportMapTest {
         assertFalse(model.hasStop(""));
     }
 
+    @Test
+    void hasVertex() {
+        Vertex<Stop> vertex = model.getVertex(PALMELA_STOP_CODE);
+        assertTrue(model.hasVertex(vertex));
+        assertFalse(model.hasVertex(null));
+
+        Graph<Stop, Route> graph = new GraphEdgeList<>();
+        Vertex<Stop> other = graph.insertVertex(vertex.element()); // same stop, other graph
+        assertFalse(model.hasVertex(other));
+    }
+
     @Test
     void edges() {
         List<Edge<Route, Stop>> list = (List<Edge<Route, Stop>>) model.edges();
@@ -634,6 +683,14 @@ class TransportMapTest {
         assertThrows(InvalidVertexException.class, () -> model.removeVertex(finalVertex));
         assertThrows(InvalidVertexException.class, () -> model.removeVertex(null));
 
+        // routes of the removed stop are no longer found
+        Vertex<Stop> palmela = model.getVertex(PALMELA_STOP_CODE);
+        Vertex<Stop> coina = model.getVertex(COINA_STOP_CODE);
+        model.removeVertex(palmela);
+        assertThrows(InvalidVertexException.class, () -> model.getEdge(coina, palmela));
+        assertFalse(model.areAdjacent(PALMELA_STOP_CODE, COINA_STOP_CODE));
+        assertNotNull(model.getEdge(coina, model.getVertex("PIN013")));
+
         Graph<Stop, Route> graph = new GraphEdgeList<>();
         model = new TransportMap(graph);
         vertex1 = model.insertVertex(stop1);
@@ -59,6 +59,22 @@ class UserConfigurationTest {
         assertThrows(IllegalArgumentException.class, () -> userConfiguration.setBicycleDurationScale(2.01));
     }
 
+    @Test
+    void getVersion() {
+        long version = userConfiguration.getVersion();
+        userConfiguration.setBicycleDurationScale(0.5);
+        assertTrue(userConfiguration.getVersion() > version);
+
+        version = userConfiguration.getVersion();
+        Edge<Route, Stop> edge = model.getEdge(model.getVertex(PALMELA_STOP_CODE), model.getVertex(COINA_STOP_CODE));
+        userConfiguration.addDisabledRoute(edge);
+        assertTrue(userConfiguration.getVersion() > version);
+
+        version = userConfiguration.getVersion();
+        userConfiguration.resetDisabledRoutes();
+        assertTrue(userConfiguration.getVersion() > version);
+    }
+
     @Test
     void applyBicycleDurationScale() {
         assertEquals(1.0, userConfiguration.getBicycleDurationScale());